@@ -0,0 +1,109 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * The grid graphs that benchmarks run on. Each location of a square grid has an edge to and from
+ * each of its neighbors, with seeded random walking times, so the same size always gives the same
+ * graph, and shortest paths between opposite corners cross the whole grid.
+ */
+final class BenchmarkGraphs {
+
+  // a location that no edge enters or leaves, for queries that have no path
+  static final String ISLAND = "Island";
+
+  private static final long SEED = 20;
+
+  // the endpoints and walking time of every edge, in the order they are inserted and written
+  final String[] preds;
+  final String[] succs;
+  final Double[] weights;
+  final int side;
+
+  /**
+   * Generates the edges of a grid.
+   *
+   * @param size the least number of locations in the grid, which has the smallest square number
+   *             of locations that is at least size
+   */
+  BenchmarkGraphs(int size) {
+    side = (int) Math.ceil(Math.sqrt(size));
+    int count = 4 * side * (side - 1);
+    preds = new String[count];
+    succs = new String[count];
+    weights = new Double[count];
+    Random random = new Random(SEED);
+    int edge = 0;
+    for (int row = 0; row < side; row++) {
+      for (int column = 0; column < side; column++) {
+        if (column + 1 < side) {
+          edge = add(edge, name(row, column), name(row, column + 1), random);
+          edge = add(edge, name(row, column + 1), name(row, column), random);
+        }
+        if (row + 1 < side) {
+          edge = add(edge, name(row, column), name(row + 1, column), random);
+          edge = add(edge, name(row + 1, column), name(row, column), random);
+        }
+      }
+    }
+  }
+
+  /**
+   * Retrieves the name of a location within the grid.
+   *
+   * @param row    the row of the location
+   * @param column the column of the location
+   * @return its name
+   */
+  static String name(int row, int column) {
+    return "Hall " + row + "-" + column;
+  }
+
+  /**
+   * Builds a DijkstraGraph of the grid, together with ISLAND.
+   *
+   * @return the new graph
+   */
+  Object build() throws Throwable {
+    Object graph = (Object) Project.NEW_DIJKSTRA_GRAPH.invokeExact();
+    Object inserted = (Object) Project.INSERT_NODE.invokeExact(graph, (Object) ISLAND);
+    for (int i = 0; i < preds.length; i++) {
+      inserted = (Object) Project.INSERT_NODE.invokeExact(graph, (Object) preds[i]);
+      inserted = (Object) Project.INSERT_NODE.invokeExact(graph, (Object) succs[i]);
+      inserted = (Object) Project.INSERT_EDGE.invokeExact(graph, (Object) preds[i],
+          (Object) succs[i], (Object) weights[i]);
+    }
+    return graph;
+  }
+
+  /**
+   * Writes the grid to a temporary dot file, in the format that loadGraphData reads. Since that
+   * format only lists edges, the file leaves out ISLAND.
+   *
+   * @return the path of a file that is deleted when the JVM exits
+   * @throws IOException if the file cannot be written
+   */
+  Path write() throws IOException {
+    Path path = Files.createTempFile("grid" + side * side, ".dot");
+    path.toFile().deleteOnExit();
+    try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8))) {
+      out.println("digraph grid {");
+      for (int i = 0; i < preds.length; i++)
+        out.println("\t\"" + preds[i] + "\" -> \"" + succs[i] + "\" [seconds=" + weights[i] + "];");
+      out.println("}");
+    }
+    return path;
+  }
+
+  private int add(int edge, String pred, String succ, Random random) {
+    preds[edge] = pred;
+    succs[edge] = succ;
+    weights[edge] = 10 + random.nextInt(2000) / 10.0;
+    return edge + 1;
+  }
+}
@@ -0,0 +1,35 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.ProfilerConfig;
+
+/**
+ * Runs the JMH benchmarks of this project, with the usual JMH command line options (for example, a
+ * regular expression that selects benchmarks, or -p size=1000 to run a single size). Unless those
+ * options say otherwise, the gc profiler reports the bytes allocated by each operation, and the
+ * results are written as JSON to jmh-result.json, so that runs can be compared. Benchmarks load
+ * campus.dot from the working directory, so this should be run from the DijkstraGraph directory.
+ */
+public class BenchmarkMain {
+
+  public static void main(String[] args) throws Exception {
+    CommandLineOptions options = new CommandLineOptions(args);
+    ChainedOptionsBuilder builder = new OptionsBuilder().parent(options);
+    boolean profiled = false;
+    for (ProfilerConfig profiler : options.getProfilers())
+      profiled |= profiler.getKlass().equals("gc")
+          || profiler.getKlass().equals(GCProfiler.class.getName());
+    if (!profiled)
+      builder.addProfiler(GCProfiler.class);
+    if (!options.getResultFormat().hasValue())
+      builder.resultFormat(ResultFormatType.JSON);
+    if (!options.getResult().hasValue())
+      builder.result("jmh-result.json");
+    new Runner(builder.build()).run();
+  }
+}
@@ -0,0 +1,61 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the edge operations of BaseGraph on grid graphs: inserting every edge into a new
+ * graph, updating the weight of an existing edge, and finding an edge with getEdgeHelper.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphBenchmarks {
+
+  @Param({"1000", "10000", "100000"})
+  public int size;
+
+  private BenchmarkGraphs grid;
+  private Object graph;
+  private int next = 0;
+
+  @Setup
+  public void setup() throws Throwable {
+    grid = new BenchmarkGraphs(size);
+    graph = grid.build();
+  }
+
+  // inserts the nodes and edges of the grid into a new graph, in the order of its dot file
+  @Benchmark
+  public Object insertEdges() throws Throwable {
+    return grid.build();
+  }
+
+  // inserting an edge that already exists updates its weight in place
+  @Benchmark
+  public Object insertEdge() throws Throwable {
+    next = next + 1 == grid.preds.length ? 0 : next + 1;
+    return (Object) Project.INSERT_EDGE.invokeExact(graph, (Object) grid.preds[next],
+        (Object) grid.succs[next], (Object) grid.weights[next]);
+  }
+
+  @Benchmark
+  public Object getEdgeHelper() throws Throwable {
+    next = next + 1 == grid.preds.length ? 0 : next + 1;
+    return (Object) Project.GET_EDGE_HELPER.invokeExact(graph, (Object) grid.preds[next],
+        (Object) grid.succs[next]);
+  }
+}
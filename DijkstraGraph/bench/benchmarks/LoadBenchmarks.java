@@ -0,0 +1,47 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of Backend.loadGraphData, on campus.dot and on dot files of grid graphs. Each load
+ * goes into the same Backend, so it also removes the graph that the previous load left behind.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoadBenchmarks {
+
+  // the number of locations in a grid, or campus for campus.dot
+  @Param({"campus", "10000", "100000"})
+  public String size;
+
+  private Object filename;
+  private Object backend;
+
+  @Setup
+  public void setup() throws Throwable {
+    filename = size.equals("campus") ? "campus.dot"
+        : new BenchmarkGraphs(Integer.parseInt(size)).write().toString();
+    backend = (Object) Project.NEW_BACKEND.invokeExact((Object) Project.NEW_DIJKSTRA_GRAPH
+        .invokeExact());
+  }
+
+  @Benchmark
+  public void loadGraphData() throws Throwable {
+    Project.LOAD_GRAPH_DATA.invokeExact(backend, filename);
+  }
+}
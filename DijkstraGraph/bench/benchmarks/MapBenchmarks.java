@@ -0,0 +1,65 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of HashtableMap: filling a map that is large enough to never rehash, filling one that
+ * starts at the default capacity and rehashes as it grows, and looking up keys that are present.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapBenchmarks {
+
+  @Param({"100", "1000", "10000"})
+  public int size;
+
+  private String[] keys;
+  private Object filled;
+  private int next = 0;
+
+  @Setup
+  public void setup() throws Throwable {
+    keys = new String[size];
+    for (int i = 0; i < size; i++)
+      keys[i] = "Hall " + i;
+    filled = put();
+  }
+
+  // the capacity keeps the load factor below the rehash threshold
+  @Benchmark
+  public Object put() throws Throwable {
+    return fill((Object) Project.NEW_HASHTABLE_MAP_WITH_CAPACITY.invokeExact((Object) (2 * size)));
+  }
+
+  @Benchmark
+  public Object putWithRehash() throws Throwable {
+    return fill((Object) Project.NEW_HASHTABLE_MAP.invokeExact());
+  }
+
+  @Benchmark
+  public Object get() throws Throwable {
+    next = next + 1 == size ? 0 : next + 1;
+    return (Object) Project.GET.invokeExact(filled, (Object) keys[next]);
+  }
+
+  private Object fill(Object map) throws Throwable {
+    for (int i = 0; i < size; i++)
+      Project.PUT.invokeExact(map, (Object) keys[i], (Object) i);
+    return map;
+  }
+}
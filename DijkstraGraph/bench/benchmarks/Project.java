@@ -0,0 +1,85 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Method;
+
+/**
+ * The method handles that benchmarks call the classes of this project through. Those classes are
+ * in the default package, which code in a named package cannot refer to, while JMH requires
+ * benchmarks to be in a named package. So each method is looked up once by its class name, method
+ * name and number of parameters, and its handle is adapted to take and return Objects (or to
+ * return nothing, for methods that return nothing). Since the
+ * handles are static final and called with invokeExact, the JIT compiles each call into a direct
+ * call of the method, which costs no more than calling it by name would.
+ */
+final class Project {
+
+  static final MethodHandle NEW_DIJKSTRA_GRAPH = constructor("DijkstraGraph", 0);
+  static final MethodHandle INSERT_NODE = method("DijkstraGraph", "insertNode", 1);
+  static final MethodHandle INSERT_EDGE = method("DijkstraGraph", "insertEdge", 3);
+  static final MethodHandle GET_EDGE = method("DijkstraGraph", "getEdge", 2);
+  static final MethodHandle GET_EDGE_HELPER = method("DijkstraGraph", "getEdgeHelper", 2);
+  static final MethodHandle FREEZE = method("DijkstraGraph", "freeze", 0);
+  static final MethodHandle COMPUTE_SHORTEST_PATH =
+      method("DijkstraGraph", "computeShortestPath", 2);
+
+  static final MethodHandle NEW_HASHTABLE_MAP = constructor("HashtableMap", 0);
+  static final MethodHandle NEW_HASHTABLE_MAP_WITH_CAPACITY = constructor("HashtableMap", 1);
+  static final MethodHandle PUT = method("HashtableMap", "put", 2);
+  static final MethodHandle GET = method("HashtableMap", "get", 1);
+
+  static final MethodHandle NEW_BACKEND = constructor("Backend", 1);
+  static final MethodHandle LOAD_GRAPH_DATA = method("Backend", "loadGraphData", 1);
+  static final MethodHandle GET_LIST_OF_ALL_LOCATIONS =
+      method("Backend", "getListOfAllLocations", 0);
+  static final MethodHandle GET_FURTHEST_DESTINATION_FROM =
+      method("Backend", "getFurthestDestinationFrom", 1);
+
+  private Project() {}
+
+  // finds a constructor of a class by its number of parameters
+  private static MethodHandle constructor(String className, int parameterCount) {
+    try {
+      for (Constructor<?> constructor : Class.forName(className).getDeclaredConstructors())
+        if (constructor.getParameterCount() == parameterCount)
+          return adapt(constructor);
+      throw new IllegalStateException(className + " has no constructor with " + parameterCount
+          + " parameters");
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  // finds the most derived method of a class, or of its superclasses, by name and number of
+  // parameters, whether or not it is public
+  private static MethodHandle method(String className, String name, int parameterCount) {
+    try {
+      for (Class<?> type = Class.forName(className); type != null; type = type.getSuperclass())
+        for (Method method : type.getDeclaredMethods())
+          if (method.getName().equals(name) && method.getParameterCount() == parameterCount
+              && !method.isBridge())
+            return adapt(method);
+      throw new IllegalStateException(className + " has no method " + name + " with "
+          + parameterCount + " parameters");
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  // unlocks a method or constructor, and adapts its handle to Object parameters and result, where
+  // void methods keep their void result, so that they can be called as statements
+  private static MethodHandle adapt(Executable executable) throws ReflectiveOperationException {
+    executable.setAccessible(true);
+    MethodHandle handle = executable instanceof Method method
+        ? MethodHandles.lookup().unreflect(method)
+        : MethodHandles.lookup().unreflectConstructor((Constructor<?>) executable);
+    MethodType type = handle.type().generic();
+    if (handle.type().returnType() == void.class)
+      type = type.changeReturnType(void.class);
+    return handle.asType(type);
+  }
+}
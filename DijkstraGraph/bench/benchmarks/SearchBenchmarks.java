@@ -0,0 +1,91 @@
+package benchmarks;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of shortest path queries on grid graphs, through DijkstraGraph.computeShortestPath
+ * and Backend.getFurthestDestinationFrom. Short queries join two locations a few steps apart near
+ * the middle of the grid, long queries join opposite corners, and unreachable queries end at a
+ * location with no edges, so that they settle every node before they fail. The graph is frozen,
+ * as it is after loadGraphData.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmarks {
+
+  @Param({"1000", "10000", "100000"})
+  public int size;
+
+  private Object graph;
+  private Object backend;
+  private List<?> locations;
+  private String middle;
+  private String nearMiddle;
+  private String corner;
+  private String oppositeCorner;
+  private int next = 0;
+
+  @Setup
+  public void setup() throws Throwable {
+    BenchmarkGraphs grid = new BenchmarkGraphs(size);
+    graph = grid.build();
+    // invoke, unlike invokeExact, can drop the snapshot, which the graph keeps for its searches
+    Project.FREEZE.invoke(graph);
+    int side = grid.side;
+    middle = BenchmarkGraphs.name(side / 2, side / 2);
+    nearMiddle = BenchmarkGraphs.name(side / 2 + 2, side / 2 + 1);
+    corner = BenchmarkGraphs.name(0, 0);
+    oppositeCorner = BenchmarkGraphs.name(side - 1, side - 1);
+    backend = (Object) Project.NEW_BACKEND.invokeExact((Object) Project.NEW_DIJKSTRA_GRAPH
+        .invokeExact());
+    Project.LOAD_GRAPH_DATA.invokeExact(backend, (Object) grid.write().toString());
+    locations = (List<?>) (Object) Project.GET_LIST_OF_ALL_LOCATIONS.invokeExact(backend);
+  }
+
+  @Benchmark
+  public Object shortQuery() throws Throwable {
+    return (Object) Project.COMPUTE_SHORTEST_PATH.invokeExact(graph, (Object) middle,
+        (Object) nearMiddle);
+  }
+
+  @Benchmark
+  public Object longQuery() throws Throwable {
+    return (Object) Project.COMPUTE_SHORTEST_PATH.invokeExact(graph, (Object) corner,
+        (Object) oppositeCorner);
+  }
+
+  @Benchmark
+  public Object unreachableQuery() throws Throwable {
+    try {
+      return (Object) Project.COMPUTE_SHORTEST_PATH.invokeExact(graph, (Object) corner,
+          (Object) BenchmarkGraphs.ISLAND);
+    } catch (NoSuchElementException e) {
+      return e;
+    }
+  }
+
+  // one search that settles every location, from each location in turn
+  @Benchmark
+  public Object getFurthestDestinationFrom() throws Throwable {
+    next = next + 1 == locations.size() ? 0 : next + 1;
+    return (Object) Project.GET_FURTHEST_DESTINATION_FROM.invokeExact(backend,
+        (Object) locations.get(next));
+  }
+}
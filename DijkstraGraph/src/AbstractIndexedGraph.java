@@ -0,0 +1,179 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * This class answers the queries of GraphADT for graphs that store nodes by dense int ids, and
+ * that name them by Strings, such as GraphSnapshot and OffHeapGraph. Subclasses only need to
+ * translate between names and ids and to relax their edges into a SearchState; the searches and
+ * the conversion of their results back into names are shared here.
+ */
+public abstract class AbstractIndexedGraph implements GraphADT<String, Double>, IndexedGraph {
+
+  // search states that no query is using, as in DijkstraGraph
+  private final ConcurrentLinkedQueue<SearchState> idleStates = new ConcurrentLinkedQueue<>();
+
+  /**
+   * Retrieves the id of a node.
+   *
+   * @param name the name of the node
+   * @return the id of that node, or -1 when there is none with that name
+   */
+  public abstract int getId(String name);
+
+  /**
+   * Retrieves the name of a node.
+   *
+   * @param id the id of the node
+   * @return the name of that node, or null when no node has this id
+   */
+  public abstract String getName(int id);
+
+  /**
+   * Retrieves the heuristic that guides point-to-point searches.
+   *
+   * @return a consistent heuristic for this graph, or null to run plain Dijkstra searches
+   */
+  protected SearchHeuristic getHeuristic() {
+    return null;
+  }
+
+  @Override
+  public boolean containsNode(String data) {
+    return getId(data) != -1;
+  }
+
+  @Override
+  public List<String> getAllNodes() {
+    ArrayList<String> list = new ArrayList<>(getNodeCount());
+    for (int id = 0; id < getIdBound(); id++) {
+      String name = getName(id);
+      if (name != null)
+        list.add(name);
+    }
+    return list;
+  }
+
+  @Override
+  public List<String> shortestPathData(String start, String end) {
+    int[] path = shortestPath(start, end);
+    ArrayList<String> list = new ArrayList<>(path.length);
+    for (int id : path)
+      list.add(getName(id));
+    return list;
+  }
+
+  @Override
+  public double shortestPathCost(String start, String end) {
+    int[] path = shortestPath(start, end);
+    // sum edge by edge in forward order, so that costs match those of a DijkstraGraph
+    double cost = 0;
+    for (int i = 1; i < path.length; i++)
+      cost += getWeight(path[i - 1], path[i]);
+    return cost;
+  }
+
+  @Override
+  public ShortestPathTree<String> shortestPathTree(String start) {
+    int source = getId(start);
+    if (source == -1)
+      throw new NoSuchElementException("start node not present");
+    int idBound = getIdBound();
+    SearchState search = acquireSearchState();
+    try {
+      search.reset(idBound);
+      search.start(source);
+      while (!search.isFrontierEmpty())
+        relaxLeaving(search.settleNext(), search);
+      double[] distance = new double[idBound];
+      int[] predecessor = new int[idBound];
+      for (int id = 0; id < idBound; id++) {
+        distance[id] = search.getDistance(id);
+        predecessor[id] = search.isReached(id) ? search.getPredecessor(id) : -1;
+      }
+      return new ShortestPathTree<>(source, getNames(), distance, predecessor, this::getId);
+    } finally {
+      releaseSearchState(search);
+    }
+  }
+
+  /**
+   * Computes the shortest path between two nodes with a Dijkstra search, or an A* search when
+   * there is a heuristic.
+   *
+   * @param source the id of the node the path starts at
+   * @param target the id of the node the path ends at
+   * @return the ids of the nodes along the shortest path, starting with source and ending with
+   *         target
+   * @throws NoSuchElementException when there is no path from source to target
+   */
+  protected int[] shortestPath(int source, int target) {
+    SearchState search = acquireSearchState();
+    try {
+      search.reset(getIdBound());
+      SearchHeuristic heuristic = getHeuristic();
+      if (heuristic != null)
+        search.setHeuristic(heuristic, target);
+      search.start(source);
+      while (!search.isFrontierEmpty()) {
+        int id = search.settleNext();
+        if (id == target) {
+          int length = 0;
+          for (int node = id; node != -1; node = search.getPredecessor(node))
+            length++;
+          int[] path = new int[length];
+          for (int node = id; node != -1; node = search.getPredecessor(node))
+            path[--length] = node;
+          return path;
+        }
+        relaxLeaving(id, search);
+      }
+      throw new NoSuchElementException("path not found");
+    } finally {
+      releaseSearchState(search);
+    }
+  }
+
+  /**
+   * Retrieves the name of every node, indexed by id. The array is the one that shortest path
+   * trees refer to, so it must not be modified afterwards.
+   *
+   * @return the name of each id, or null for unused ids
+   */
+  protected String[] getNames() {
+    String[] names = new String[getIdBound()];
+    for (int id = 0; id < names.length; id++)
+      names[id] = getName(id);
+    return names;
+  }
+
+  /**
+   * Takes a search state that no other search is using, from the pool of idle states if there is
+   * one.
+   *
+   * @return a search state for the calling thread to use until it is released
+   */
+  protected SearchState acquireSearchState() {
+    SearchState search = idleStates.poll();
+    return search != null ? search : new SearchState();
+  }
+
+  /**
+   * Returns a search state to the pool of idle states, once nothing refers to its results.
+   *
+   * @param search a state taken by acquireSearchState
+   */
+  protected void releaseSearchState(SearchState search) {
+    idleStates.offer(search);
+  }
+
+  // finds the ids along the shortest path between two named nodes
+  private int[] shortestPath(String start, String end) {
+    int source = getId(start);
+    int target = getId(end);
+    if (source == -1 || target == -1)
+      throw new NoSuchElementException("start/end node not present");
+    return shortestPath(source, target);
+  }
+}
@@ -17,17 +17,19 @@
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
-import java.io.File;
-import java.util.Scanner;
 import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
 
 
 public class Backend implements BackendInterface {
 
   ///////////////// DATA FIELDS /////////////////
-  private GraphADT<String, Double> graph;
+  private GraphADT<String, Double> graph; // the graph that queries are answered from
+  private final GraphADT<String, Double> loadableGraph; // the graph that loadGraphData fills
 
 
   ///////////////// CONSTRUCTOR /////////////////
@@ -38,12 +40,30 @@ public class Backend implements BackendInterface {
    */
   public Backend(GraphADT<String, Double> graph) {
     this.graph = graph;
+    this.loadableGraph = graph;
   }
 
 
   ////////////// INTERFACE METHODS //////////////
   @Override
   public void loadGraphData(String filename) throws IOException {
+    // parse the file in parallel chunks straight from its mapped bytes (throws IOException if
+    // unable to read or parse it, leaving the graph unchanged)
+    DotParser.ParsedGraph parsed = DotParser.parse(filename);
+
+    // queries go back to the graph passed to the constructor, in case a snapshot was loaded
+    graph = loadableGraph;
+
+    if (graph instanceof BaseGraph) {
+      // replace the graph's contents in one pass over the parsed arrays, and since the graph is
+      // rarely modified after loading, search a compact snapshot of it
+      @SuppressWarnings("unchecked")
+      BaseGraph<String, Double> baseGraph = (BaseGraph<String, Double>) graph;
+      baseGraph.load(parsed.names, parsed.sources, parsed.targets, i -> parsed.weights[i]);
+      baseGraph.freeze();
+      return;
+    }
+
     // if graph is nonempty, deletes contents
     if (graph.getNodeCount() != 0) {
       for (String node: graph.getAllNodes()) {
@@ -51,33 +71,54 @@ public class Backend implements BackendInterface {
       }
     }
 
-    File file = new File(filename);
-
-    // throws IOException if unable to read file
-    Scanner reader = new Scanner(file);
-    while (reader.hasNextLine()) {
-      String line = reader.nextLine().trim();
-
-      // if line w/ data (has ->), then extract values
-      int arrowInd = line.indexOf(" -> ");
-      if (arrowInd != -1) {
-        // source node value
-        String source = line.substring(1, arrowInd - 1);
-        // target node value
-        String target = line.substring(arrowInd + 5, line.indexOf("\" [seconds="));
-        // edge weight value (as String)
-        String edgeWeight = line.substring(line.indexOf("=") + 1, line.length() - 2);
-
-        // ensure that source node is in graph
-        graph.insertNode(source);
-        // ensure that target node is in graph
-        graph.insertNode(target);
-        // add edge between source and target node
-        graph.insertEdge(source, target, Double.parseDouble(edgeWeight));
-      }
+    // insert the nodes in the order they first appear, followed by the edges in file order
+    for (String name : parsed.names) {
+      graph.insertNode(name);
     }
+    for (int i = 0; i < parsed.sources.length; i++) {
+      graph.insertEdge(parsed.names[parsed.sources[i]], parsed.names[parsed.targets[i]],
+          parsed.weights[i]);
+    }
+  }
 
-    reader.close();
+  /**
+   * Loads graph data from a snapshot file written by saveGraphSnapshot or GraphSnapshot.write.
+   * The file is memory mapped and queried in place, rather than read into the graph passed to
+   * the constructor, so this takes milliseconds however large the graph is. The snapshot is
+   * read-only, and answers every query until loadGraphData is called again.
+   *
+   * @param filename the path to a snapshot file to read graph data from
+   * @throws IOException if there was any problem reading from this file
+   */
+  public void loadGraphSnapshot(String filename) throws IOException {
+    graph = GraphSnapshot.load(filename);
+  }
+
+  /**
+   * Writes the graph loaded by loadGraphData to a snapshot file, together with any landmarks or
+   * contraction hierarchy that were prepared for it, so that loadGraphSnapshot can load it later.
+   *
+   * @param filename the path to the snapshot file to write
+   * @throws IOException if there was any problem writing to this file
+   * @throws UnsupportedOperationException if the graph passed to the constructor is not a
+   *                                       BaseGraph
+   */
+  @SuppressWarnings("unchecked")
+  public void saveGraphSnapshot(String filename) throws IOException {
+    if (!(loadableGraph instanceof BaseGraph)) {
+      throw new UnsupportedOperationException("only a BaseGraph can be saved as a snapshot");
+    }
+    GraphSnapshot.write((BaseGraph<String, ?>) loadableGraph, filename);
+  }
+
+  /**
+   * Retrieves the graph that queries are answered from: the graph passed to the constructor, or
+   * the snapshot that was loaded last, if it was loaded after any dot file.
+   *
+   * @return the graph in use
+   */
+  public GraphADT<String, Double> getGraph() {
+    return graph;
   }
 
   @Override
@@ -122,30 +163,86 @@ public class Backend implements BackendInterface {
       throw new NoSuchElementException("Cannot find " + startLocation);
     }
 
-    // find farthest node
-    String farthestNode = null;
-    Double longestTime = 0.0;
-    for (String node : graph.getAllNodes()) {
-      if (!node.equals(startLocation)) {
+    // a DijkstraGraph looks this up in its eccentricity table when it has prepared one
+    if (graph instanceof DijkstraGraph) {
+      return ((DijkstraGraph<String, Double>) graph).getFurthestFrom(startLocation);
+    }
+
+    // a single search from startLocation finds the cost of reaching every node,
+    // and throws NoSuchElementException if no other node can be reached
+    return graph.shortestPathTree(startLocation).getFurthest();
+  }
+
+  @Override
+  public List<PathResult> findShortestPaths(List<String> startLocations,
+      List<String> endLocations) {
+    return findShortestPaths(startLocations, endLocations, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Answers a batch of shortest path queries, like findShortestPaths, with the searches for
+   * different start locations spread across the workers of a ForkJoinPool. The distinct end
+   * locations of each start location are answered from one shortest path tree, so the number of
+   * searches is the number of distinct start locations, however many queries there are. A start
+   * location with a single distinct end location is answered by a point-to-point query instead,
+   * which settles fewer nodes, and can use the graph's landmarks or contraction hierarchy.
+   *
+   * @param startLocations the start location of each path
+   * @param endLocations   the end location of each path
+   * @param pool           the pool to run the searches on
+   * @return the result of each query, in the same order as the queries
+   * @throws IllegalArgumentException if the two lists differ in size
+   */
+  public List<PathResult> findShortestPaths(List<String> startLocations,
+      List<String> endLocations, ForkJoinPool pool) {
+    if (startLocations.size() != endLocations.size()) {
+      throw new IllegalArgumentException("there must be one end location for each start location");
+    }
+    // the distinct end locations of each distinct start location, mapped to their results
+    HashMap<String, HashMap<String, PathResult>> groups = new HashMap<>();
+    for (int i = 0; i < startLocations.size(); i++) {
+      groups.computeIfAbsent(startLocations.get(i), start -> new HashMap<>())
+          .put(endLocations.get(i), null);
+    }
+    // each group is only written by the task that answers it, and only read after all are done
+    GraphADT<String, Double> graph = this.graph;
+    List<Map.Entry<String, HashMap<String, PathResult>>> list = new ArrayList<>(groups.entrySet());
+    pool.submit(() -> list.parallelStream()
+        .forEach(group -> findShortestPaths(graph, group.getKey(), group.getValue()))).join();
+    List<PathResult> results = new ArrayList<>(startLocations.size());
+    for (int i = 0; i < startLocations.size(); i++) {
+      results.add(groups.get(startLocations.get(i)).get(endLocations.get(i)));
+    }
+    return results;
+  }
+
+  // answers the queries from one start location to each of the keys of targets
+  private static void findShortestPaths(GraphADT<String, Double> graph, String start,
+      HashMap<String, PathResult> targets) {
+    PathResult none = new PathResult(Collections.emptyList(), Collections.emptyList());
+    if (!graph.containsNode(start)) {
+      targets.replaceAll((end, result) -> none);
+    } else if (targets.size() == 1) {
+      targets.replaceAll((end, result) -> {
         try {
-          Double time = graph.shortestPathCost(startLocation, node);
-          if (time > longestTime) {
-            farthestNode = node;
-            longestTime = time;
-          }
+          return toPathResult(graph, graph.shortestPathData(start, end));
         } catch (NoSuchElementException e) {
-        // ignore, move to next node
+          return none;
         }
-      }
+      });
+    } else {
+      ShortestPathTree<String> tree = graph.shortestPathTree(start);
+      targets.replaceAll((end, result) -> tree.isReachable(end)
+          ? toPathResult(graph, tree.getPath(end)) : none);
     }
+  }
 
-    // if no paths exist, throw NoSuchElementException
-    if (farthestNode == null) {
-      throw new NoSuchElementException("Cannot find paths starting at " + startLocation);
-
-      // otherwise, return farthest node
-    } else {
-      return farthestNode;
+  // looks up the walking time along each edge of a path
+  private static PathResult toPathResult(GraphADT<String, Double> graph, List<String> nodes) {
+    List<Double> times = new ArrayList<>(nodes.size() - 1);
+    for (int i = 0; i < nodes.size() - 1; i++) {
+      times.add(graph.getEdge(nodes.get(i), nodes.get(i + 1)));
     }
+    return new PathResult(nodes, times);
   }
 }
@@ -9,6 +9,21 @@ import java.util.NoSuchElementException;
  */
 public interface BackendInterface {
 
+  /**
+   * The answer to one query of a batch: the locations along a shortest path,
+   * and the walking times between each two of them. Both lists are empty when
+   * no such path exists.
+   */
+  public static class PathResult {
+    public final List<String> locations;
+    public final List<Double> times;
+
+    public PathResult(List<String> locations, List<Double> times) {
+      this.locations = locations;
+      this.times = times;
+    }
+  }
+
   /*
    * Implementing classes should support the constructor below.
    * @param graph object to store the backend's graph data
@@ -64,4 +79,18 @@ public interface BackendInterface {
    */
   public String getFurthestDestinationFrom(String startLocation) throws NoSuchElementException;
 
+  /**
+   * Answers a batch of shortest path queries, each from startLocations.get(i)
+   * to endLocations.get(i). This returns the same locations as
+   * findLocationsOnShortestPath and the same times as findTimesOnShortestPath
+   * for each query, but repeated queries are only answered once, and all
+   * queries from the same start location share a single search.
+   * @param startLocations the start location of each path
+   * @param endLocations the end location of each path
+   * @return the result of each query, in the same order as the queries
+   * @throws IllegalArgumentException if the two lists differ in size
+   */
+  public List<PathResult> findShortestPaths(List<String> startLocations,
+      List<String> endLocations);
+
 }
@@ -17,7 +17,10 @@
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Assertions;
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.NoSuchElementException;
 
@@ -153,4 +156,101 @@ public class BackendTests {
       Assertions.fail(e + "getFurthestDestinationFrom() throws exception when given valid node");
     }
   }
+
+
+  /**
+   * BackendTest4: tests saveGraphSnapshot() and loadGraphSnapshot() methods
+   */
+  @Test
+  public void BackendTest4() throws IOException {
+    // set-up: a campus graph, saved as a plain snapshot, then with landmarks and a hierarchy
+    DijkstraGraph<String, Double> graph = new DijkstraGraph<>();
+    Backend original = new Backend(graph);
+    original.loadGraphData("campus.dot");
+    List<String> locations = original.getListOfAllLocations();
+    File file = File.createTempFile("campus", ".snapshot");
+    file.deleteOnExit();
+
+    for (int variant = 0; variant < 3; variant++) {
+      if (variant == 1) {
+        graph.prepareLandmarks(4, LandmarkHeuristic.Selection.AVOID);
+      } else if (variant == 2) {
+        graph.prepareContractionHierarchy();
+      }
+      original.saveGraphSnapshot(file.getPath());
+      Backend loaded = new Backend(new DijkstraGraph<>());
+      loaded.loadGraphSnapshot(file.getPath());
+
+      // the snapshot has the same locations, and gives the same answers
+      Assertions.assertEquals(new HashSet<>(locations),
+          new HashSet<>(loaded.getListOfAllLocations()));
+      for (int i = 0; i < locations.size(); i += 7) {
+        String start = locations.get(i);
+        Assertions.assertEquals(original.getFurthestDestinationFrom(start),
+            loaded.getFurthestDestinationFrom(start));
+        for (int j = 0; j < locations.size(); j += 11) {
+          String end = locations.get(j);
+          if (original.findLocationsOnShortestPath(start, end).isEmpty()) {
+            Assertions.assertTrue(loaded.findLocationsOnShortestPath(start, end).isEmpty());
+            continue;
+          }
+          List<Double> expected = original.findTimesOnShortestPath(start, end);
+          List<Double> actual = loaded.findTimesOnShortestPath(start, end);
+          double expectedTotal = expected.stream().mapToDouble(Double::doubleValue).sum();
+          double actualTotal = actual.stream().mapToDouble(Double::doubleValue).sum();
+          Assertions.assertEquals(expectedTotal, actualTotal, 1e-9);
+          Assertions.assertEquals(actual.size() + 1,
+              loaded.findLocationsOnShortestPath(start, end).size());
+        }
+      }
+      Assertions.assertTrue(loaded.findLocationsOnShortestPath("nowhere", locations.get(0))
+          .isEmpty());
+      Assertions.assertThrows(NoSuchElementException.class,
+          () -> loaded.getFurthestDestinationFrom("nowhere"));
+
+      // loading a dot file afterwards goes back to the graph passed to the constructor
+      loaded.loadGraphData("campus.dot");
+      Assertions.assertEquals(locations.size(), loaded.getListOfAllLocations().size());
+    }
+
+    // a file that is not a snapshot cannot be loaded, and leaves the loaded graph in place
+    Assertions.assertThrows(IOException.class, () -> original.loadGraphSnapshot("campus.dot"));
+    Assertions.assertEquals(locations, original.getListOfAllLocations());
+  }
+
+  /**
+   * BackendTest5: tests findShortestPaths() method
+   */
+  @Test
+  public void BackendTest5() throws IOException {
+    // set-up: a batch of queries with repeated pairs, shared starts and unknown locations
+    Backend backend = new Backend(new DijkstraGraph<>());
+    backend.loadGraphData("campus.dot");
+    List<String> locations = backend.getListOfAllLocations();
+    List<String> starts = new ArrayList<>();
+    List<String> ends = new ArrayList<>();
+    for (int i = 0; i < 400; i++) {
+      starts.add(locations.get(i * 7 % 20));
+      ends.add(locations.get(i * 13 % locations.size()));
+    }
+    starts.add("nowhere");
+    ends.add(locations.get(0));
+    starts.add(locations.get(0));
+    ends.add("nowhere");
+    starts.add(locations.get(30));
+    ends.add(locations.get(31)); // the only query from this start
+
+    // each result matches the answer to the same query on its own, in input order
+    List<BackendInterface.PathResult> results = backend.findShortestPaths(starts, ends);
+    Assertions.assertEquals(starts.size(), results.size());
+    for (int i = 0; i < starts.size(); i++) {
+      List<String> expected = backend.findLocationsOnShortestPath(starts.get(i), ends.get(i));
+      Assertions.assertEquals(expected, results.get(i).locations);
+      Assertions.assertEquals(expected.isEmpty() ? List.of()
+          : backend.findTimesOnShortestPath(starts.get(i), ends.get(i)), results.get(i).times);
+    }
+    Assertions.assertTrue(backend.findShortestPaths(List.of(), List.of()).isEmpty());
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> backend.findShortestPaths(starts, List.of()));
+  }
 }
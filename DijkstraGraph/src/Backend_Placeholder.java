@@ -46,4 +46,15 @@ public class Backend_Placeholder implements BackendInterface {
     return all.get(all.size()-1);
   }
 
+  // answers each query separately, with the placeholder methods above
+  public List<PathResult> findShortestPaths(List<String> startLocations,
+      List<String> endLocations) {
+    List<PathResult> results = new ArrayList<>();
+    for(int i=0;i<startLocations.size();i++)
+      results.add(new PathResult(
+          findLocationsOnShortestPath(startLocations.get(i),endLocations.get(i)),
+          findTimesOnShortestPath(startLocations.get(i),endLocations.get(i))));
+    return results;
+  }
+
 }
@@ -1,27 +1,40 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.LinkedList;
 import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.IntFunction;
 
 /**
  * This BaseGraph class contains stores a set of nodes, along with a set of
  * directed and weighted edges connecting those nodes.
+ *
+ * A graph is not safe for concurrent writers: insertions and removals update
+ * the id dictionary and the list of nodes by id without locking, so they must
+ * all happen on one thread (or under one lock), and must not overlap with
+ * reads. Searches that run concurrently should share a snapshot from freeze(),
+ * which is immutable once built.
  */
-public class BaseGraph<NodeType, EdgeType extends Number> {
+public class BaseGraph<NodeType, EdgeType extends Number> implements IndexedGraph {
 
-    // Each node contains unique data along with two lists of directed edges
+    // Each node contains unique data along with two lists of directed edges,
+    // and a dense integer id that search algorithms can index arrays by
     protected class Node {
         public NodeType data;
-        public List<Edge> edgesLeaving = new LinkedList<>();
-        public List<Edge> edgesEntering = new LinkedList<>();
+        public int id;
+        public List<Edge> edgesLeaving = new ArrayList<>();
+        public List<Edge> edgesEntering = new ArrayList<>();
+        // The leaving edges by the id of their successor, which is only built
+        // once this node has more than SUCCESSOR_INDEX_THRESHOLD of them
+        public HashMap<Integer, Edge> successorIndex = null;
 
         public Node(NodeType data) {
             this.data = data;
         }
     }
 
-    // Nodes can be retrieved from this map by their unique data
-    protected MapADT<NodeType, Node> nodes = null;
-
     // Each edge contains data/weight, and two nodes that it connects
     protected class Edge {
         public EdgeType data; // the weight or cost of this edge
@@ -38,14 +51,35 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
     protected int edgeCount = 0;
     // Edges can be retrieved through the edge lists in either connected node
 
+    // Nodes with at most this many leaving edges find an edge by scanning them,
+    // which is faster than hashing for such short lists
+    protected static final int SUCCESSOR_INDEX_THRESHOLD = 16;
+
+    // Every node's data is interned to a dense int id by this dictionary, and
+    // the node can be retrieved by its id, which is its index in the list.
+    // The dictionary's map is the only index of nodes by their data, so each
+    // lookup hashes the data once.
+    // Ids of removed nodes leave a null slot and are reused by later
+    // insertions, so ids stay dense (between 0 and nodesById.size()-1).
+    protected NodeDictionary<NodeType> dictionary;
+    protected ArrayList<Node> nodesById = new ArrayList<>();
+
+    // Read-optimized copy of this graph created by freeze(), which is dropped
+    // whenever the graph is modified
+    protected CsrGraph<NodeType> snapshot = null;
+
+    // Counts modifications of this graph, so that results computed from it
+    // (such as cached shortest paths) can tell when they have become stale
+    protected long version = 0;
+
     /**
      * Constructor for BaseGraph that provides the map the graph uses.
      * 
-     * @param map the map the graph uses to map a data object to the node object
-     *        it is stored in
+     * @param map the empty map the graph uses to map a data object to the id
+     *        of the node it is stored in
      */
-    public BaseGraph(MapADT<NodeType, Node> map) {
-        this.nodes = map;
+    public BaseGraph(MapADT<NodeType, Integer> map) {
+        this.dictionary = new NodeDictionary<>(map);
     }
 
     /**
@@ -57,9 +91,18 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
      * @throws NullPointerException if data is null
      */
     public boolean insertNode(NodeType data) {
-        if (nodes.containsKey(data))
-            return false; // throws NPE when data's null
-        nodes.put(data, new Node(data));
+        int size = dictionary.getSize();
+        int id = dictionary.intern(data); // throws NPE when data's null
+        if (dictionary.getSize() == size)
+            return false; // data was already interned
+        Node newNode = new Node(data);
+        newNode.id = id;
+        if (id == nodesById.size())
+            nodesById.add(newNode);
+        else
+            nodesById.set(id, newNode);
+        snapshot = null;
+        version++;
         return true;
     }
 
@@ -74,15 +117,20 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
      */
     public boolean removeNode(NodeType data) {
         // remove this node from nodes collection
-        if (!nodes.containsKey(data))
-            return false; // throws NPE when data==null
-        Node oldNode = nodes.remove(data);
+        if (data == null)
+            throw new NullPointerException("data must not be null");
+        int id = dictionary.remove(data);
+        if (id == -1)
+            return false;
+        Node oldNode = nodesById.set(id, null);
+        snapshot = null;
+        version++;
         // remove all edges entering neighboring nodes from this one
         for (Edge edge : oldNode.edgesLeaving)
             edge.successor.edgesEntering.remove(edge);
         // remove all edges leaving neighboring nodes toward this one
         for (Edge edge : oldNode.edgesEntering)
-            edge.predecessor.edgesLeaving.remove(edge);
+            removeLeaving(edge.predecessor, edge);
         return true;
     }
 
@@ -94,7 +142,7 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
      *         false otherwise
      */
     public boolean containsNode(NodeType data) {
-        return nodes.containsKey(data);
+        return dictionary.getId(data) != -1;
     }
 
     /**
@@ -103,7 +151,11 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
      * @return list of all node data
      */
     public List<NodeType> getAllNodes(){
-        return nodes.getKeys();
+        List<NodeType> keys = new ArrayList<>(dictionary.getSize());
+        for (Node node : nodesById)
+            if (node != null)
+                keys.add(node.data);
+        return keys;
     }
 
     /**
@@ -112,7 +164,7 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
      * @return the number of nodes in the graph
      */
     public int getNodeCount() {
-        return nodes.getSize();
+        return dictionary.getSize();
     }
 
     /**
@@ -128,25 +180,121 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
      */
     public boolean insertEdge(NodeType pred, NodeType succ, EdgeType weight) {
         // find nodes associated with node data, and return false when not found
-        Node predNode = nodes.get(pred);
-        Node succNode = nodes.get(succ);
-        if (predNode == null || succNode == null)
+        int predId = dictionary.getId(pred);
+        int succId = dictionary.getId(succ);
+        if (predId == -1 || succId == -1)
             return false;
-        try {
+        Node predNode = nodesById.get(predId);
+        Node succNode = nodesById.get(succId);
+        snapshot = null;
+        version++;
+        Edge existingEdge = findEdge(predNode, succId);
+        if (existingEdge != null) {
             // when an edge alread exists within the graph, update its weight
-            Edge existingEdge = getEdgeHelper(pred, succ);
             existingEdge.data = weight;
-        } catch (NoSuchElementException e) {
+        } else {
             // otherwise create a new edges
             Edge newEdge = new Edge(weight, predNode, succNode);
             this.edgeCount++;
             // and insert it into each of its adjacent nodes' respective lists
-            predNode.edgesLeaving.add(newEdge);
+            addLeaving(predNode, newEdge);
             succNode.edgesEntering.add(newEdge);
         }
         return true;
     }
 
+    /**
+     * Replace every node and edge of this graph in one pass. This gives the
+     * same graph as removing every node, and then inserting each node and then
+     * each edge in order, but finds the nodes of each edge by index rather than
+     * by their data, and finds repeated edges by grouping them by predecessor
+     * rather than by searching edge lists.
+     * 
+     * @param nodes   the data items of the nodes, which edges refer to by index
+     * @param sources the index in nodes of each edge's predecessor
+     * @param targets the index in nodes of each edge's successor
+     * @param weights the data/weight of each edge, given its index
+     * @throws NullPointerException      if any data item in nodes is null
+     * @throws IllegalArgumentException  if sources and targets differ in length
+     * @throws IndexOutOfBoundsException if an edge refers to no node, in which
+     *                                   case this graph is left unchanged
+     */
+    public void load(NodeType[] nodes, int[] sources, int[] targets,
+            IntFunction<EdgeType> weights) {
+        if (sources.length != targets.length)
+            throw new IllegalArgumentException("sources and targets differ in length");
+        for (NodeType data : nodes)
+            if (data == null)
+                throw new NullPointerException("node data must not be null");
+        for (int i = 0; i < sources.length; i++) {
+            Objects.checkIndex(sources[i], nodes.length);
+            Objects.checkIndex(targets[i], nodes.length);
+        }
+        dictionary.clear();
+        nodesById = new ArrayList<>(nodes.length);
+        edgeCount = 0;
+        snapshot = null;
+        version++;
+
+        // intern the nodes, where repeated data items are the same node
+        int[] ids = new int[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            int size = dictionary.getSize();
+            ids[i] = dictionary.intern(nodes[i]);
+            if (dictionary.getSize() > size) {
+                Node newNode = new Node(nodes[i]);
+                newNode.id = ids[i];
+                nodesById.add(newNode);
+            }
+        }
+
+        // group the edges by the id of their predecessor, keeping their order
+        int nodeCount = nodesById.size();
+        int[] offsets = new int[nodeCount + 1];
+        for (int source : sources)
+            offsets[ids[source] + 1]++;
+        for (int id = 0; id < nodeCount; id++)
+            offsets[id + 1] += offsets[id];
+        int[] bySource = new int[sources.length];
+        int[] next = Arrays.copyOf(offsets, nodeCount);
+        for (int i = 0; i < sources.length; i++)
+            bySource[next[ids[sources[i]]]++] = i;
+
+        // create each node's leaving edges, where a repeated edge only updates
+        // the weight of the edge that was created for its first occurrence
+        // (as lists, since arrays of a generic class's inner class can't be created)
+        List<Edge> created = new ArrayList<>(Collections.nCopies(sources.length, null));
+        List<Edge> latest = new ArrayList<>(Collections.nCopies(nodeCount, null));
+        int[] latestPred = new int[nodeCount]; // by successor id, the pred id + 1 of its latest edge
+        for (int predId = 0; predId < nodeCount; predId++) {
+            Node predNode = nodesById.get(predId);
+            predNode.edgesLeaving = new ArrayList<>(offsets[predId + 1] - offsets[predId]);
+            for (int j = offsets[predId]; j < offsets[predId + 1]; j++) {
+                int i = bySource[j];
+                int succId = ids[targets[i]];
+                if (latestPred[succId] == predId + 1) {
+                    latest.get(succId).data = weights.apply(i);
+                    continue;
+                }
+                Edge newEdge = new Edge(weights.apply(i), predNode, nodesById.get(succId));
+                predNode.edgesLeaving.add(newEdge);
+                latest.set(succId, newEdge);
+                latestPred[succId] = predId + 1;
+                created.set(i, newEdge);
+            }
+            if (predNode.edgesLeaving.size() > SUCCESSOR_INDEX_THRESHOLD)
+                indexSuccessors(predNode);
+        }
+        // then add each edge to its successor's entering edges in file order, as
+        // inserting the edges one at a time would
+        for (Edge edge : created) {
+            if (edge != null) {
+                edge.successor.edgesEntering.add(edge);
+                edgeCount++;
+            }
+        }
+    }
+
     /**
      * Remove an edge from the graph.
      * 
@@ -156,19 +304,18 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
      *         false if such an edge is not found in the graph
      */
     public boolean removeEdge(NodeType pred, NodeType succ) {
-        try {
-            // when an edge exists
-            Edge oldEdge = getEdgeHelper(pred, succ);
-            // remove it from the edge lists of each adjacent node
-            oldEdge.predecessor.edgesLeaving.remove(oldEdge);
-            oldEdge.successor.edgesEntering.remove(oldEdge);
-            // and decrement the edge count before removing
-            this.edgeCount--;
-            return true;
-        } catch (NoSuchElementException e) {
-            // when no such edge exists, return false instead
+        Edge oldEdge = findEdge(pred, succ);
+        // when no such edge exists, return false instead
+        if (oldEdge == null)
             return false;
-        }
+        // remove it from the edge lists of each adjacent node
+        removeLeaving(oldEdge.predecessor, oldEdge);
+        oldEdge.successor.edgesEntering.remove(oldEdge);
+        // and decrement the edge count before removing
+        this.edgeCount--;
+        snapshot = null;
+        version++;
+        return true;
     }
 
     /**
@@ -179,12 +326,7 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
      * @return true if the edge is found in the graph, or false other
      */
     public boolean containsEdge(NodeType pred, NodeType succ) {
-        try {
-            getEdgeHelper(pred, succ);
-            return true;
-        } catch (NoSuchElementException e) {
-            return false;
-        }
+        return findEdge(pred, succ) != null;
     }
 
     /**
@@ -201,15 +343,72 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
     }
 
     protected Edge getEdgeHelper(NodeType pred, NodeType succ) {
-        Node predNode = nodes.get(pred);
-        // search for edge through the predecessor's list of leaving edges
+        Edge edge = findEdge(pred, succ);
+        // when no such edge can be found, throw NSE
+        if (edge == null)
+            throw new NoSuchElementException("No edge from " + pred.toString() +
+                    " to " + succ.toString());
+        return edge;
+    }
+
+    /**
+     * Finds the edge between two nodes without throwing when it is missing.
+     * 
+     * @param pred the data item contained in the source node for the edge
+     * @param succ the data item contained in the target node for the edge
+     * @return the edge between those nodes, or null if either node or the edge
+     *         between them are not found within this graph
+     */
+    protected Edge findEdge(NodeType pred, NodeType succ) {
+        int predId = dictionary.getId(pred);
+        int succId = dictionary.getId(succ);
+        if (predId == -1 || succId == -1)
+            return null;
+        return findEdge(nodesById.get(predId), succId);
+    }
+
+    /**
+     * Finds the edge leaving a node toward the node with an id, through the
+     * node's successor index when it has one, and otherwise by scanning its
+     * leaving edges.
+     * 
+     * @param predNode the source node for the edge
+     * @param succId   the id of the target node for the edge
+     * @return the edge between those nodes, or null if there is no such edge
+     */
+    protected Edge findEdge(Node predNode, int succId) {
+        if (predNode.successorIndex != null)
+            return predNode.successorIndex.get(succId);
         for (Edge edge : predNode.edgesLeaving)
-            // compare succ to the data in each leaving edge's successor
-            if (edge.successor.data.equals(succ))
+            // compare succ's id to the id of each leaving edge's successor
+            if (edge.successor.id == succId)
                 return edge;
-        // when no such edge can be found, throw NSE
-        throw new NoSuchElementException("No edge from " + pred.toString() + " to " +
-                succ.toString());
+        return null;
+    }
+
+    // adds an edge to its predecessor's leaving edges, and indexes them all by
+    // successor once there are too many to scan
+    private void addLeaving(Node predNode, Edge edge) {
+        predNode.edgesLeaving.add(edge);
+        if (predNode.successorIndex != null) {
+            predNode.successorIndex.put(edge.successor.id, edge);
+        } else if (predNode.edgesLeaving.size() > SUCCESSOR_INDEX_THRESHOLD) {
+            indexSuccessors(predNode);
+        }
+    }
+
+    // indexes all of a node's leaving edges by the id of their successor
+    private void indexSuccessors(Node predNode) {
+        predNode.successorIndex = new HashMap<>();
+        for (Edge leaving : predNode.edgesLeaving)
+            predNode.successorIndex.put(leaving.successor.id, leaving);
+    }
+
+    // removes an edge from its predecessor's leaving edges and their index
+    private void removeLeaving(Node predNode, Edge edge) {
+        predNode.edgesLeaving.remove(edge);
+        if (predNode.successorIndex != null)
+            predNode.successorIndex.remove(edge.successor.id);
     }
 
     /**
@@ -221,5 +420,103 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
         return this.edgeCount;
     }
 
-}
+    /**
+     * Return the dense int id that the data item of a node is interned to.
+     * Searches work on these ids alone, so node data only needs to be hashed
+     * and compared when translating to and from them.
+     * 
+     * @param data the data item contained in a node
+     * @return the id of that node, or -1 if data is not found in any node
+     */
+    public int getNodeId(NodeType data) {
+        return dictionary.getId(data);
+    }
 
+    /**
+     * Return the data item of the node with an id.
+     * 
+     * @param id the id of a node
+     * @return the data item in that node, or null when no node has that id
+     */
+    public NodeType getNodeData(int id) {
+        return dictionary.getData(id);
+    }
+
+    /**
+     * Return the version of this graph, which changes whenever a node or edge
+     * is inserted, removed, or has its weight updated.
+     * 
+     * @return the number of modifications made to this graph so far
+     */
+    public long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Creates an immutable, compressed sparse row snapshot of this graph, which
+     * shortest path searches can scan much faster than the linked edge lists.
+     * The snapshot is kept until this graph is next modified, so calling this
+     * method again before then returns the same snapshot.
+     *
+     * @return a CsrGraph with the same node ids, data, and edges as this graph
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized CsrGraph<NodeType> freeze() {
+        if (snapshot != null)
+            return snapshot;
+        int idBound = nodesById.size();
+        NodeType[] data = (NodeType[]) new Object[idBound];
+        int[] offsets = new int[idBound + 1];
+        for (int id = 0; id < idBound; id++) {
+            Node node = nodesById.get(id);
+            int degree = 0;
+            if (node != null) {
+                data[id] = node.data;
+                degree = node.edgesLeaving.size();
+            }
+            offsets[id + 1] = offsets[id] + degree;
+        }
+        int[] targets = new int[offsets[idBound]];
+        double[] weights = new double[offsets[idBound]];
+        for (int id = 0; id < idBound; id++) {
+            Node node = nodesById.get(id);
+            if (node == null)
+                continue;
+            int i = offsets[id];
+            for (Edge edge : node.edgesLeaving) {
+                targets[i] = edge.successor.id;
+                weights[i] = edge.data.doubleValue();
+                i++;
+            }
+        }
+        snapshot = new CsrGraph<>(data, offsets, targets, weights);
+        return snapshot;
+    }
+
+    @Override
+    public int getIdBound() {
+        return nodesById.size();
+    }
+
+    @Override
+    public double getWeight(int predecessor, int successor) {
+        Edge edge = findEdge(nodesById.get(predecessor), successor);
+        if (edge != null)
+            return edge.data.doubleValue();
+        throw new NoSuchElementException("No edge from " + predecessor + " to " +
+                successor);
+    }
+
+    @Override
+    public void relaxLeaving(int id, SearchState search) {
+        for (Edge edge : nodesById.get(id).edgesLeaving)
+            search.relax(id, edge.successor.id, edge.data.doubleValue());
+    }
+
+    @Override
+    public void relaxEntering(int id, SearchState search) {
+        for (Edge edge : nodesById.get(id).edgesEntering)
+            search.relax(id, edge.predecessor.id, edge.data.doubleValue());
+    }
+
+}
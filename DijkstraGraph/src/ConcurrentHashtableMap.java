@@ -0,0 +1,261 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Implements MapADT for use by many threads at once. Keys are divided between a fixed number of
+ * stripes by the high bits of their hash, and each stripe is a small hashtable of its own with a
+ * lock that only its writers take.
+ *
+ * Reads never lock or block. The entries of each bucket form an immutable linked list: a writer
+ * never changes an entry that readers may be walking, but instead publishes a new list head (or,
+ * for removal, new copies of the entries in front of the removed one). A stripe that grows too
+ * full is resized by the writer that filled it, which builds the larger table on the side and
+ * publishes it in one step, while readers keep using the old table until then. Since each stripe
+ * resizes on its own, growing the whole map happens a stripe at a time, and never holds up
+ * writers to the other stripes.
+ *
+ * getSize, getCapacity and getKeys are weakly consistent: while other threads write, they reflect
+ * each stripe as it was at some point during the call, rather than the whole map at one instant.
+ *
+ * A graph can index its nodes by this map, by passing it to the BaseGraph constructor, which
+ * backs the graph's NodeDictionary with it. That does not make the graph safe to modify from
+ * several threads, though: the dictionary's array of data by id, and the graph's list of nodes by
+ * id, still have a single writer.
+ */
+public class ConcurrentHashtableMap<KeyType, ValueType> implements MapADT<KeyType, ValueType> {
+
+  // the number of stripes, which must be a power of two
+  private static final int STRIPES = 32;
+  private static final int STRIPE_SHIFT = 32 - Integer.numberOfTrailingZeros(STRIPES);
+  // a stripe grows once it holds more than three keys for every four buckets
+  private static final double LOAD_FACTOR = 0.75;
+
+  // an entry of a bucket's immutable linked list
+  protected static class Entry {
+    public final Object key;
+    public final Object value;
+    public final int hash;
+    public final Entry next;
+
+    public Entry(Object key, Object value, int hash, Entry next) {
+      this.key = key;
+      this.value = value;
+      this.hash = hash;
+      this.next = next;
+    }
+  }
+
+  // one stripe of this map, whose monitor is held by its writers
+  protected static class Stripe {
+    public volatile AtomicReferenceArray<Entry> table;
+    public volatile int size = 0;
+
+    public Stripe(int capacity) {
+      table = new AtomicReferenceArray<>(capacity);
+    }
+  }
+
+  protected final Stripe[] stripes = new Stripe[STRIPES];
+
+  public ConcurrentHashtableMap(int capacity) {
+    int perStripe = Math.max(2, Integer.highestOneBit(Math.max(1, capacity / STRIPES) * 2 - 1));
+    for (int i = 0; i < STRIPES; i++)
+      stripes[i] = new Stripe(perStripe);
+  }
+
+  public ConcurrentHashtableMap() {
+    // with default capacity = 64
+    this(64);
+  }
+
+  /**
+   * Adds a new key,value pair/mapping to this collection. It is ok that the value is null.
+   *
+   * @param key   the key of the key,value pair
+   * @param value the value that key maps to
+   * @throws IllegalArgumentException if key already maps to a value
+   * @throws NullPointerException     if key is null
+   */
+  @Override
+  public void put(KeyType key, ValueType value) throws IllegalArgumentException {
+    if (key == null)
+      throw new NullPointerException("null keys not allowed");
+    int hash = Hashing.mix(key);
+    Stripe stripe = stripes[hash >>> STRIPE_SHIFT];
+    synchronized (stripe) {
+      AtomicReferenceArray<Entry> table = stripe.table;
+      int index = hash & (table.length() - 1);
+      Entry head = table.get(index);
+      for (Entry entry = head; entry != null; entry = entry.next)
+        if (entry.hash == hash && entry.key.equals(key))
+          throw new IllegalArgumentException("key " + key.toString() + " already present in map");
+      table.set(index, new Entry(key, value, hash, head));
+      stripe.size++;
+      if (stripe.size > table.length() * LOAD_FACTOR)
+        resize(stripe);
+    }
+  }
+
+  /**
+   * Checks whether a key maps to a value in this collection.
+   *
+   * @param key the key to check
+   * @return true if the key maps to a value, and false is the key doesn't map to a value
+   */
+  @Override
+  public boolean containsKey(KeyType key) {
+    return find(key) != null;
+  }
+
+  /**
+   * Retrieves the specific value that a key maps to.
+   *
+   * @param key the key to look up
+   * @return the value that key maps to
+   * @throws NoSuchElementException when key is not stored in this collection
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public ValueType get(KeyType key) throws NoSuchElementException {
+    Entry entry = find(key);
+    if (entry == null)
+      throw new NoSuchElementException("key " + key + " not present in map");
+    return (ValueType) entry.value;
+  }
+
+  /**
+   * Retrieves the value that a key maps to, or a default value, without locking. Unlike a
+   * containsKey followed by a get, this cannot throw when a concurrent writer removes the key
+   * between the two.
+   *
+   * @param key          the key to look up
+   * @param defaultValue the value to return when key is not stored
+   * @return the value that key maps to, or defaultValue
+   * @throws NullPointerException if key is null
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public ValueType getOrDefault(KeyType key, ValueType defaultValue) {
+    Entry entry = find(key);
+    return entry == null ? defaultValue : (ValueType) entry.value;
+  }
+
+  /**
+   * Remove the mapping for a key from this collection.
+   *
+   * @param key the key whose mapping to remove
+   * @return the value that the removed key mapped to
+   * @throws NoSuchElementException when key is not stored in this collection
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public ValueType remove(KeyType key) throws NoSuchElementException {
+    if (key == null)
+      throw new NullPointerException("null keys not allowed");
+    int hash = Hashing.mix(key);
+    Stripe stripe = stripes[hash >>> STRIPE_SHIFT];
+    synchronized (stripe) {
+      AtomicReferenceArray<Entry> table = stripe.table;
+      int index = hash & (table.length() - 1);
+      Entry head = table.get(index);
+      for (Entry removed = head; removed != null; removed = removed.next) {
+        if (removed.hash == hash && removed.key.equals(key)) {
+          // copy the entries in front of the removed one onto the entries behind it
+          Entry rest = removed.next;
+          for (Entry entry = head; entry != removed; entry = entry.next)
+            rest = new Entry(entry.key, entry.value, entry.hash, rest);
+          table.set(index, rest);
+          stripe.size--;
+          return (ValueType) removed.value;
+        }
+      }
+    }
+    throw new NoSuchElementException("key " + key + " not present in map");
+  }
+
+  /**
+   * Removes all key,value pairs from this collection.
+   */
+  @Override
+  public void clear() {
+    for (Stripe stripe : stripes) {
+      synchronized (stripe) {
+        stripe.table = new AtomicReferenceArray<>(stripe.table.length());
+        stripe.size = 0;
+      }
+    }
+  }
+
+  /**
+   * Retrieves the number of keys stored in this collection.
+   *
+   * @return the number of keys stored in this collection
+   */
+  @Override
+  public int getSize() {
+    int size = 0;
+    for (Stripe stripe : stripes)
+      size += stripe.size;
+    return size;
+  }
+
+  /**
+   * Retrieves this collection's capacity.
+   *
+   * @return the total number of buckets in all stripes of this collection
+   */
+  @Override
+  public int getCapacity() {
+    int capacity = 0;
+    for (Stripe stripe : stripes)
+      capacity += stripe.table.length();
+    return capacity;
+  }
+
+  /**
+   * Retrieves this collection's keys, without blocking any writers.
+   *
+   * @return a list of the keys in this collection
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public List<KeyType> getKeys() {
+    ArrayList<KeyType> keys = new ArrayList<>();
+    for (Stripe stripe : stripes) {
+      AtomicReferenceArray<Entry> table = stripe.table;
+      for (int i = 0; i < table.length(); i++)
+        for (Entry entry = table.get(i); entry != null; entry = entry.next)
+          keys.add((KeyType) entry.key);
+    }
+    return keys;
+  }
+
+  // finds the entry for key without locking, or returns null when key is not in this map
+  private Entry find(KeyType key) {
+    if (key == null)
+      throw new NullPointerException("null keys not allowed");
+    int hash = Hashing.mix(key);
+    AtomicReferenceArray<Entry> table = stripes[hash >>> STRIPE_SHIFT].table;
+    for (Entry entry = table.get(hash & (table.length() - 1)); entry != null; entry = entry.next)
+      if (entry.hash == hash && entry.key.equals(key))
+        return entry;
+    return null;
+  }
+
+  // doubles the table of a stripe whose lock is held. The old entries may still be walked by
+  // readers, so they are copied into the new table rather than relinked
+  private static void resize(Stripe stripe) {
+    AtomicReferenceArray<Entry> oldTable = stripe.table;
+    AtomicReferenceArray<Entry> newTable = new AtomicReferenceArray<>(oldTable.length() * 2);
+    int mask = newTable.length() - 1;
+    for (int i = 0; i < oldTable.length(); i++) {
+      for (Entry entry = oldTable.get(i); entry != null; entry = entry.next) {
+        int index = entry.hash & mask;
+        newTable.set(index, new Entry(entry.key, entry.value, entry.hash, newTable.get(index)));
+      }
+    }
+    stripe.table = newTable;
+  }
+}
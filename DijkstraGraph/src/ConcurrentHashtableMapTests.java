@@ -0,0 +1,77 @@
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ConcurrentHashtableMapTests {
+
+  /**
+   * tests put, get, remove, clear and their errors on a single thread
+   */
+  @Test
+  public void test1() {
+    ConcurrentHashtableMap<Integer, String> map = new ConcurrentHashtableMap<>();
+    for (int key = 0; key < 1000; key++)
+      map.put(key, "v" + key);
+    Assertions.assertEquals(1000, map.getSize());
+    Assertions.assertTrue(map.getCapacity() >= 1000);
+    Assertions.assertThrows(IllegalArgumentException.class, () -> map.put(5, "again"));
+    Assertions.assertThrows(NullPointerException.class, () -> map.put(null, "null"));
+    for (int key = 0; key < 1000; key += 2)
+      Assertions.assertEquals("v" + key, map.remove(key));
+    Assertions.assertThrows(NoSuchElementException.class, () -> map.remove(0));
+    Assertions.assertThrows(NoSuchElementException.class, () -> map.get(0));
+    Assertions.assertEquals("v1", map.getOrDefault(1, "none"));
+    Assertions.assertEquals("none", map.getOrDefault(0, "none"));
+    for (int key = 0; key < 1000; key++)
+      Assertions.assertEquals(key % 2 == 1, map.containsKey(key));
+    Assertions.assertEquals(500, new HashSet<>(map.getKeys()).size());
+    map.clear();
+    Assertions.assertEquals(0, map.getSize());
+    Assertions.assertTrue(map.getKeys().isEmpty());
+  }
+
+  /**
+   * tests that readers always find keys that were present before they started, while writers
+   * insert and remove other keys concurrently and make every stripe resize many times
+   */
+  @Test
+  public void test2() throws InterruptedException {
+    ConcurrentHashtableMap<Integer, Integer> map = new ConcurrentHashtableMap<>(2);
+    for (int key = 0; key < 1000; key++)
+      map.put(-key - 1, key);
+    AtomicBoolean writing = new AtomicBoolean(true);
+    AtomicInteger misses = new AtomicInteger();
+    Thread[] threads = new Thread[8];
+    for (int t = 0; t < threads.length; t++) {
+      final int first = t;
+      threads[t] = new Thread(() -> {
+        if (first % 2 == 0) {
+          // writers insert and then remove half of their own keys
+          for (int key = first; key < 40000; key += threads.length)
+            map.put(key, key);
+          for (int key = first; key < 40000; key += 2 * threads.length)
+            map.remove(key);
+        } else {
+          while (writing.get())
+            for (int key = 0; key < 1000; key++)
+              if (!map.containsKey(-key - 1) || map.get(-key - 1) != key)
+                misses.incrementAndGet();
+        }
+      });
+      threads[t].start();
+    }
+    for (int t = 0; t < threads.length; t += 2)
+      threads[t].join();
+    writing.set(false);
+    for (int t = 1; t < threads.length; t += 2)
+      threads[t].join();
+    Assertions.assertEquals(0, misses.get());
+    // every even key was inserted, and those whose key % 16 is below 8 were removed again
+    Assertions.assertEquals(1000 + 10000, map.getSize());
+    for (int key = 0; key < 40000; key++)
+      Assertions.assertEquals(key % 2 == 0 && key % 16 >= 8, map.containsKey(key));
+  }
+}
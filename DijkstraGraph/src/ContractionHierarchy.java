@@ -0,0 +1,610 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.IntStream;
+
+/**
+ * This class is a contraction hierarchy (CH) over a CsrGraph: a preprocessed index that answers
+ * point-to-point shortest path queries while settling only a tiny fraction of the graph.
+ *
+ * Preprocessing contracts nodes from least to most important. Contracting a node v removes it
+ * from the remaining graph, and adds a shortcut edge u -> x for each pair of remaining neighbors
+ * u -> v -> x whose only shortest path runs through v. A node's importance is based on its edge
+ * difference: the number of shortcuts its contraction would add, minus the number of edges it would
+ * remove. This is doubled, and the number of its neighbors that were already contracted is added,
+ * to spread contractions evenly. Nodes are contracted in rounds: each round picks the nodes among
+ * the least important tenth whose importance is lower than that of all their remaining neighbors.
+ * These form an independent set that can be contracted in parallel.
+ *
+ * Queries run a forward search from the start and a backward search from the end, where each
+ * search only follows edges towards more important nodes. Shortcuts remember the node they were
+ * created for, so that the path found can be unpacked back into the original graph's nodes.
+ *
+ * As an IndexedGraph, relaxLeaving scans the upward edges leaving a node, and relaxEntering scans
+ * the edges entering a node from more important nodes.
+ */
+public class ContractionHierarchy implements IndexedGraph {
+
+  // witness searches give up after settling this many nodes, and keep the shortcut instead
+  private static final int WITNESS_SETTLE_LIMIT = 100;
+
+  private final CsrGraph<?> graph;
+  private final int idBound;
+  private final int[] rank; // contraction order of each node, or -1 for unused ids
+  private final int shortcutCount;
+  private final long preprocessingMillis;
+
+  // edges from each node to more important nodes, and the node each shortcut skips (or -1)
+  private final int[] upOffsets;
+  private final int[] upTargets;
+  private final double[] upWeights;
+  private final int[] upMiddles;
+  // edges into each node from more important nodes, stored the same way
+  private final int[] downOffsets;
+  private final int[] downSources;
+  private final double[] downWeights;
+  private final int[] downMiddles;
+
+  // the graph that remains while contracting, as growable edge lists per node
+  private int[][] outTargets;
+  private double[][] outWeights;
+  private int[][] outMiddles;
+  private int[] outCounts;
+  private int[][] inSources;
+  private double[][] inWeights;
+  private int[][] inMiddles;
+  private int[] inCounts;
+  private boolean[] contracted;
+  private int[] contractedNeighbors;
+
+  /**
+   * Contracts every node of a graph, and builds the search graph of upward and downward edges.
+   *
+   * @param graph the graph to build a hierarchy for
+   */
+  public ContractionHierarchy(CsrGraph<?> graph) {
+    long startTime = System.nanoTime();
+    this.graph = graph;
+    this.idBound = graph.getIdBound();
+    this.rank = new int[idBound];
+    Arrays.fill(rank, -1);
+    initializeRemainingGraph();
+
+    // edges that become part of the search graph as their lower endpoint is contracted
+    int[][] upEdges = new int[idBound][];
+    double[][] upEdgeWeights = new double[idBound][];
+    int[][] upEdgeMiddles = new int[idBound][];
+    int[][] downEdges = new int[idBound][];
+    double[][] downEdgeWeights = new double[idBound][];
+    int[][] downEdgeMiddles = new int[idBound][];
+
+    int[] remaining = IntStream.range(0, idBound).filter(id -> graph.getData(id) != null).toArray();
+    double[] priority = new double[idBound];
+    boolean[] dirty = new boolean[idBound];
+    Arrays.fill(dirty, true);
+    int nextRank = 0;
+    int shortcuts = 0;
+    // each witness search borrows a state that no other running search is using, and returns it
+    // when done, so there are no more states than concurrent searches, and none outlive this
+    // constructor
+    ConcurrentLinkedQueue<SearchState> idleSearches = new ConcurrentLinkedQueue<>();
+    while (remaining.length > 0) {
+      // update the importance of every node whose neighborhood changed, in parallel
+      int[] candidates = remaining;
+      IntStream.range(0, candidates.length).parallel().forEach(i -> {
+        int id = candidates[i];
+        if (dirty[id])
+          priority[id] = importance(id, idleSearches);
+      });
+      // contract every node that is less important than all of its remaining neighbors, where
+      // witness searches avoid all of these nodes, since none of them remain afterwards
+      double[] sorted = IntStream.of(remaining).mapToDouble(id -> priority[id]).sorted().toArray();
+      double threshold = sorted[sorted.length / 10]; // only contract the least important nodes
+      int[] independent = IntStream.of(remaining).parallel()
+          .filter(id -> priority[id] <= threshold && isLocalMinimum(id, priority)).toArray();
+      for (int id : independent)
+        contracted[id] = true;
+      List<List<double[]>> found = IntStream.of(independent).parallel()
+          .mapToObj(id -> findShortcuts(id, idleSearches)).toList();
+      Arrays.fill(dirty, false);
+      for (int i = 0; i < independent.length; i++) {
+        int id = independent[i];
+        rank[id] = nextRank++;
+        // the edges that remain at this node all lead to or from more important nodes
+        upEdges[id] = new int[outCounts[id]];
+        upEdgeWeights[id] = new double[outCounts[id]];
+        upEdgeMiddles[id] = new int[outCounts[id]];
+        int ups = 0;
+        for (int j = 0; j < outCounts[id]; j++) {
+          int target = outTargets[id][j];
+          if (contracted[target])
+            continue;
+          upEdges[id][ups] = target;
+          upEdgeWeights[id][ups] = outWeights[id][j];
+          upEdgeMiddles[id][ups] = outMiddles[id][j];
+          ups++;
+          dirty[target] = true;
+          contractedNeighbors[target]++;
+        }
+        upEdges[id] = Arrays.copyOf(upEdges[id], ups);
+        upEdgeWeights[id] = Arrays.copyOf(upEdgeWeights[id], ups);
+        upEdgeMiddles[id] = Arrays.copyOf(upEdgeMiddles[id], ups);
+        downEdges[id] = new int[inCounts[id]];
+        downEdgeWeights[id] = new double[inCounts[id]];
+        downEdgeMiddles[id] = new int[inCounts[id]];
+        int downs = 0;
+        for (int j = 0; j < inCounts[id]; j++) {
+          int source = inSources[id][j];
+          if (contracted[source])
+            continue;
+          downEdges[id][downs] = source;
+          downEdgeWeights[id][downs] = inWeights[id][j];
+          downEdgeMiddles[id][downs] = inMiddles[id][j];
+          downs++;
+          dirty[source] = true;
+          contractedNeighbors[source]++;
+        }
+        downEdges[id] = Arrays.copyOf(downEdges[id], downs);
+        downEdgeWeights[id] = Arrays.copyOf(downEdgeWeights[id], downs);
+        downEdgeMiddles[id] = Arrays.copyOf(downEdgeMiddles[id], downs);
+        for (double[] shortcut : found.get(i)) {
+          if (addEdge((int) shortcut[0], (int) shortcut[1], shortcut[2], id))
+            shortcuts++;
+        }
+      }
+      remaining = IntStream.of(remaining).filter(id -> !contracted[id]).toArray();
+      for (int id : remaining)
+        if (dirty[id])
+          removeContractedEdges(id);
+    }
+    this.shortcutCount = shortcuts;
+
+    // pack the search graph into compressed sparse rows
+    upOffsets = new int[idBound + 1];
+    downOffsets = new int[idBound + 1];
+    for (int id = 0; id < idBound; id++) {
+      upOffsets[id + 1] = upOffsets[id] + (upEdges[id] == null ? 0 : upEdges[id].length);
+      downOffsets[id + 1] = downOffsets[id] + (downEdges[id] == null ? 0 : downEdges[id].length);
+    }
+    upTargets = new int[upOffsets[idBound]];
+    upWeights = new double[upOffsets[idBound]];
+    upMiddles = new int[upOffsets[idBound]];
+    downSources = new int[downOffsets[idBound]];
+    downWeights = new double[downOffsets[idBound]];
+    downMiddles = new int[downOffsets[idBound]];
+    for (int id = 0; id < idBound; id++) {
+      if (upEdges[id] != null) {
+        System.arraycopy(upEdges[id], 0, upTargets, upOffsets[id], upEdges[id].length);
+        System.arraycopy(upEdgeWeights[id], 0, upWeights, upOffsets[id], upEdges[id].length);
+        System.arraycopy(upEdgeMiddles[id], 0, upMiddles, upOffsets[id], upEdges[id].length);
+      }
+      if (downEdges[id] != null) {
+        System.arraycopy(downEdges[id], 0, downSources, downOffsets[id], downEdges[id].length);
+        System.arraycopy(downEdgeWeights[id], 0, downWeights, downOffsets[id],
+            downEdges[id].length);
+        System.arraycopy(downEdgeMiddles[id], 0, downMiddles, downOffsets[id],
+            downEdges[id].length);
+      }
+    }
+
+    // the remaining graph is only needed while contracting
+    outTargets = null;
+    outWeights = null;
+    outMiddles = null;
+    inSources = null;
+    inWeights = null;
+    inMiddles = null;
+    this.preprocessingMillis = (System.nanoTime() - startTime) / 1_000_000;
+  }
+
+  /**
+   * Return the number of shortcut edges that preprocessing added.
+   *
+   * @return the number of shortcuts in this hierarchy
+   */
+  public int getShortcutCount() {
+    return shortcutCount;
+  }
+
+  /**
+   * Return how long preprocessing took.
+   *
+   * @return the time spent building this hierarchy, in milliseconds
+   */
+  public long getPreprocessingMillis() {
+    return preprocessingMillis;
+  }
+
+  /**
+   * Retrieves the position of a node in the contraction order.
+   *
+   * @param id the id of a node
+   * @return its rank, where more important nodes have higher ranks, or -1 for unused ids
+   */
+  public int getRank(int id) {
+    return rank[id];
+  }
+
+  /**
+   * Checks whether this hierarchy was built for a graph.
+   *
+   * @param graph the graph that is about to be searched
+   * @return true if this hierarchy was built from that graph, false otherwise
+   */
+  public boolean isValidFor(IndexedGraph graph) {
+    return graph == this.graph;
+  }
+
+  /**
+   * Computes the shortest path between two nodes with a bidirectional search that only follows
+   * edges towards more important nodes. Each search stops once its frontier is no closer than the
+   * shortest path found so far, and the two meet at the most important node on that path.
+   *
+   * @param source   the id of the node the path starts at
+   * @param target   the id of the node the path ends at
+   * @param forward  reusable state for the search from source
+   * @param backward reusable state for the search from target
+   * @return the ids of the nodes along the shortest path in the original graph, starting with
+   *         source and ending with target, or null when there is no such path
+   */
+  public int[] shortestPath(int source, int target, SearchState forward, SearchState backward) {
+    forward.reset(idBound);
+    backward.reset(idBound);
+    forward.start(source);
+    backward.start(target);
+    double best = Double.POSITIVE_INFINITY;
+    int meeting = -1;
+    while (true) {
+      boolean forwardDone = forward.isFrontierEmpty() || forward.peekFrontierKey() >= best;
+      boolean backwardDone = backward.isFrontierEmpty() || backward.peekFrontierKey() >= best;
+      if (forwardDone && backwardDone)
+        break;
+      boolean stepForward =
+          backwardDone || (!forwardDone && forward.peekFrontierKey() <= backward.peekFrontierKey());
+      SearchState search = stepForward ? forward : backward;
+      SearchState other = stepForward ? backward : forward;
+      int id = search.settleNext();
+      if (other.isReached(id) && search.getDistance(id) + other.getDistance(id) < best) {
+        best = search.getDistance(id) + other.getDistance(id);
+        meeting = id;
+      }
+      if (stepForward)
+        relaxLeaving(id, search);
+      else
+        relaxEntering(id, search);
+    }
+    if (meeting == -1)
+      return null;
+
+    // unpack the upward path from source and the downward path to target into original edges
+    ArrayList<Integer> upward = new ArrayList<>();
+    for (int id = meeting; id != -1; id = forward.getPredecessor(id))
+      upward.add(id);
+    ArrayList<Integer> path = new ArrayList<>();
+    path.add(source);
+    for (int i = upward.size() - 1; i > 0; i--)
+      unpack(upward.get(i), upward.get(i - 1), upwardMiddle(upward.get(i), upward.get(i - 1)),
+          path);
+    for (int id = meeting, next = backward.getPredecessor(id); next != -1;
+        id = next, next = backward.getPredecessor(next))
+      unpack(id, next, downwardMiddle(id, next), path);
+    return path.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  /**
+   * Summarizes how large this hierarchy is and how long it took to build.
+   *
+   * @return a one line summary of this hierarchy
+   */
+  public String getStatistics() {
+    return "nodes=" + graph.getNodeCount() + " edges=" + graph.getEdgeCount() + " shortcuts="
+        + shortcutCount + " preprocessingMillis=" + preprocessingMillis;
+  }
+
+  /**
+   * Adds the search graph of this hierarchy to a graph snapshot that is being written: the rank of
+   * each node, then the upward and the downward edges, each as offsets, neighbors, weights and the
+   * node skipped by each shortcut.
+   *
+   * @param writer the writer of the snapshot
+   */
+  public void writeTo(GraphSnapshot.Writer writer) {
+    writer.addInts(rank);
+    writer.addInts(upOffsets);
+    writer.addInts(upTargets);
+    writer.addDoubles(upWeights);
+    writer.addInts(upMiddles);
+    writer.addInts(downOffsets);
+    writer.addInts(downSources);
+    writer.addDoubles(downWeights);
+    writer.addInts(downMiddles);
+  }
+
+  @Override
+  public int getIdBound() {
+    return idBound;
+  }
+
+  @Override
+  public void relaxLeaving(int id, SearchState search) {
+    int end = upOffsets[id + 1];
+    for (int i = upOffsets[id]; i < end; i++)
+      search.relax(id, upTargets[i], upWeights[i]);
+  }
+
+  @Override
+  public void relaxEntering(int id, SearchState search) {
+    int end = downOffsets[id + 1];
+    for (int i = downOffsets[id]; i < end; i++)
+      search.relax(id, downSources[i], downWeights[i]);
+  }
+
+  @Override
+  public double getWeight(int predecessor, int successor) {
+    if (rank[predecessor] < rank[successor]) {
+      for (int i = upOffsets[predecessor]; i < upOffsets[predecessor + 1]; i++)
+        if (upTargets[i] == successor)
+          return upWeights[i];
+    } else {
+      for (int i = downOffsets[successor]; i < downOffsets[successor + 1]; i++)
+        if (downSources[i] == predecessor)
+          return downWeights[i];
+    }
+    throw new NoSuchElementException("No edge from " + predecessor + " to " + successor);
+  }
+
+  // finds the node skipped by the upward edge from -> to, where from is less important
+  private int upwardMiddle(int from, int to) {
+    for (int i = upOffsets[from]; i < upOffsets[from + 1]; i++)
+      if (upTargets[i] == to)
+        return upMiddles[i];
+    throw new NoSuchElementException("No edge from " + from + " to " + to);
+  }
+
+  // finds the node skipped by the downward edge from -> to, where to is less important
+  private int downwardMiddle(int from, int to) {
+    for (int i = downOffsets[to]; i < downOffsets[to + 1]; i++)
+      if (downSources[i] == from)
+        return downMiddles[i];
+    throw new NoSuchElementException("No edge from " + from + " to " + to);
+  }
+
+  // appends the original nodes after from, up to and including to, along the edge from -> to
+  private void unpack(int from, int to, int middle, List<Integer> path) {
+    if (middle == -1) {
+      path.add(to);
+      return;
+    }
+    // the skipped node is less important than both ends of the shortcut
+    unpack(from, middle, downwardMiddle(from, middle), path);
+    unpack(middle, to, upwardMiddle(middle, to), path);
+  }
+
+  // copies the graph's edges into the growable edge lists of the remaining graph
+  private void initializeRemainingGraph() {
+    outTargets = new int[idBound][];
+    outWeights = new double[idBound][];
+    outMiddles = new int[idBound][];
+    outCounts = new int[idBound];
+    inSources = new int[idBound][];
+    inWeights = new double[idBound][];
+    inMiddles = new int[idBound][];
+    inCounts = new int[idBound];
+    contracted = new boolean[idBound];
+    contractedNeighbors = new int[idBound];
+    for (int id = 0; id < idBound; id++) {
+      int degree = graph.getOutDegree(id);
+      outTargets[id] = new int[Math.max(degree, 2)];
+      outWeights[id] = new double[Math.max(degree, 2)];
+      outMiddles[id] = new int[Math.max(degree, 2)];
+      inSources[id] = new int[2];
+      inWeights[id] = new double[2];
+      inMiddles[id] = new int[2];
+    }
+    for (int id = 0; id < idBound; id++) {
+      for (int i = graph.getLeavingOffset(id); i < graph.getLeavingOffset(id + 1); i++) {
+        if (graph.getLeavingTarget(i) != id)
+          addEdge(id, graph.getLeavingTarget(i), graph.getLeavingWeight(i), -1);
+      }
+    }
+  }
+
+  // adds the edge from -> to to the remaining graph, or lowers the weight of an existing one,
+  // and returns true when a new edge was added
+  private boolean addEdge(int from, int to, double weight, int middle) {
+    for (int i = 0; i < outCounts[from]; i++) {
+      if (outTargets[from][i] == to) {
+        if (weight < outWeights[from][i]) {
+          outWeights[from][i] = weight;
+          outMiddles[from][i] = middle;
+          for (int j = 0; j < inCounts[to]; j++) {
+            if (inSources[to][j] == from) {
+              inWeights[to][j] = weight;
+              inMiddles[to][j] = middle;
+            }
+          }
+        }
+        return false;
+      }
+    }
+    if (outCounts[from] == outTargets[from].length) {
+      int length = outTargets[from].length * 2;
+      outTargets[from] = Arrays.copyOf(outTargets[from], length);
+      outWeights[from] = Arrays.copyOf(outWeights[from], length);
+      outMiddles[from] = Arrays.copyOf(outMiddles[from], length);
+    }
+    outTargets[from][outCounts[from]] = to;
+    outWeights[from][outCounts[from]] = weight;
+    outMiddles[from][outCounts[from]] = middle;
+    outCounts[from]++;
+    if (inCounts[to] == inSources[to].length) {
+      int length = inSources[to].length * 2;
+      inSources[to] = Arrays.copyOf(inSources[to], length);
+      inWeights[to] = Arrays.copyOf(inWeights[to], length);
+      inMiddles[to] = Arrays.copyOf(inMiddles[to], length);
+    }
+    inSources[to][inCounts[to]] = from;
+    inWeights[to][inCounts[to]] = weight;
+    inMiddles[to][inCounts[to]] = middle;
+    inCounts[to]++;
+    return true;
+  }
+
+  // drops the edges between a node and its contracted neighbors from the remaining graph
+  private void removeContractedEdges(int id) {
+    int kept = 0;
+    for (int i = 0; i < outCounts[id]; i++) {
+      if (!contracted[outTargets[id][i]]) {
+        outTargets[id][kept] = outTargets[id][i];
+        outWeights[id][kept] = outWeights[id][i];
+        outMiddles[id][kept] = outMiddles[id][i];
+        kept++;
+      }
+    }
+    outCounts[id] = kept;
+    kept = 0;
+    for (int i = 0; i < inCounts[id]; i++) {
+      if (!contracted[inSources[id][i]]) {
+        inSources[id][kept] = inSources[id][i];
+        inWeights[id][kept] = inWeights[id][i];
+        inMiddles[id][kept] = inMiddles[id][i];
+        kept++;
+      }
+    }
+    inCounts[id] = kept;
+  }
+
+  // twice the edge difference of contracting a node now, plus its number of contracted neighbors
+  private double importance(int id, ConcurrentLinkedQueue<SearchState> idleSearches) {
+    int removed = 0;
+    for (int i = 0; i < outCounts[id]; i++)
+      if (!contracted[outTargets[id][i]])
+        removed++;
+    for (int i = 0; i < inCounts[id]; i++)
+      if (!contracted[inSources[id][i]])
+        removed++;
+    return 2 * (findShortcuts(id, idleSearches).size() - removed) + contractedNeighbors[id];
+  }
+
+  // checks whether a node is less important than each of its remaining neighbors, where ties are
+  // broken by id, so that no two neighbors are ever both local minimums
+  private boolean isLocalMinimum(int id, double[] priority) {
+    for (int i = 0; i < outCounts[id]; i++) {
+      int other = outTargets[id][i];
+      if (!contracted[other] && isMoreImportant(id, other, priority))
+        return false;
+    }
+    for (int i = 0; i < inCounts[id]; i++) {
+      int other = inSources[id][i];
+      if (!contracted[other] && isMoreImportant(id, other, priority))
+        return false;
+    }
+    return true;
+  }
+
+  private static boolean isMoreImportant(int id, int other, double[] priority) {
+    return priority[id] > priority[other] || (priority[id] == priority[other] && id > other);
+  }
+
+  // finds the shortcuts {from, to, weight} needed to contract a node: one for each pair of
+  // remaining neighbors from -> id -> to, unless a witness search finds a path between them that
+  // avoids id and is no longer, with a search state borrowed from idleSearches
+  private List<double[]> findShortcuts(int id, ConcurrentLinkedQueue<SearchState> idleSearches) {
+    SearchState search = idleSearches.poll();
+    if (search == null)
+      search = new SearchState();
+    try {
+      return findShortcuts(id, search);
+    } finally {
+      idleSearches.offer(search);
+    }
+  }
+
+  // finds the shortcuts needed to contract a node, with the provided witness search state
+  private List<double[]> findShortcuts(int id, SearchState search) {
+    List<double[]> shortcuts = new ArrayList<>();
+    for (int i = 0; i < inCounts[id]; i++) {
+      int from = inSources[id][i];
+      if (contracted[from])
+        continue;
+      double inWeight = inWeights[id][i];
+      double limit = 0;
+      for (int j = 0; j < outCounts[id]; j++)
+        if (!contracted[outTargets[id][j]] && outTargets[id][j] != from)
+          limit = Math.max(limit, inWeight + outWeights[id][j]);
+      if (limit == 0)
+        continue;
+
+      // search from this neighbor, around id, until every path through id is beaten or too long
+      search.reset(idBound);
+      search.start(from);
+      int settled = 0;
+      while (!search.isFrontierEmpty() && search.peekFrontierKey() <= limit
+          && settled < WITNESS_SETTLE_LIMIT) {
+        int node = search.settleNext();
+        settled++;
+        for (int j = 0; j < outCounts[node]; j++) {
+          int next = outTargets[node][j];
+          if (next != id && !contracted[next])
+            search.relax(node, next, outWeights[node][j]);
+        }
+      }
+      for (int j = 0; j < outCounts[id]; j++) {
+        int to = outTargets[id][j];
+        if (contracted[to] || to == from)
+          continue;
+        double viaWeight = inWeight + outWeights[id][j];
+        if (search.getDistance(to) > viaWeight)
+          shortcuts.add(new double[] {from, to, viaWeight});
+      }
+    }
+    return shortcuts;
+  }
+
+  /**
+   * Builds a hierarchy for a dot file, and reports its size, how long preprocessing took, and how
+   * much faster random queries are than with a plain Dijkstra search.
+   *
+   * @param args the dot file to load (campus.dot by default), and the number of random queries
+   * @throws IOException if the dot file cannot be read
+   */
+  public static void main(String[] args) throws IOException {
+    String filename = args.length > 0 ? args[0] : "campus.dot";
+    int queries = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+    DijkstraGraph<String, Double> graph = new DijkstraGraph<>();
+    new Backend(graph).loadGraphData(filename);
+    ContractionHierarchy hierarchy = graph.prepareContractionHierarchy();
+    System.out.println(hierarchy.getStatistics());
+
+    List<String> nodes = graph.getAllNodes();
+    Random random = new Random(400);
+    String[][] pairs = new String[queries][];
+    for (int i = 0; i < queries; i++)
+      pairs[i] = new String[] {nodes.get(random.nextInt(nodes.size())),
+          nodes.get(random.nextInt(nodes.size()))};
+    long[] nanos = new long[2];
+    double[] total = new double[2];
+    DijkstraGraph.SearchMode[] modes =
+        {DijkstraGraph.SearchMode.DIJKSTRA, DijkstraGraph.SearchMode.CONTRACTION_HIERARCHY};
+    for (int mode = 0; mode < modes.length; mode++) {
+      graph.setSearchMode(modes[mode]);
+      long start = System.nanoTime();
+      for (String[] pair : pairs) {
+        try {
+          total[mode] += graph.shortestPathCost(pair[0], pair[1]);
+        } catch (NoSuchElementException e) {
+          // unreachable pairs cost the same search effort in both modes
+        }
+      }
+      nanos[mode] = System.nanoTime() - start;
+    }
+    System.out.println("queries=" + queries + " dijkstraMicros=" + nanos[0] / 1000 / queries
+        + " hierarchyMicros=" + nanos[1] / 1000 / queries + " speedup="
+        + (double) nanos[0] / Math.max(nanos[1], 1) + " costsMatch="
+        + (Math.abs(total[0] - total[1]) <= 1e-6 * total[0]));
+  }
+}
@@ -0,0 +1,196 @@
+import java.util.NoSuchElementException;
+
+/**
+ * This class is an immutable, read-optimized snapshot of a graph in compressed sparse row (CSR)
+ * form. The edges leaving node id are stored contiguously in leavingTargets and leavingWeights,
+ * between indexes leavingOffsets[id] (inclusive) and leavingOffsets[id+1] (exclusive). Edges
+ * entering each node are stored the same way in a second, reversed set of arrays. Weights are kept
+ * as primitive doubles, so scanning a node's edges touches a few contiguous arrays rather than a
+ * linked list of edge objects and boxed weights.
+ *
+ * Node ids are the same ids used by the graph that the snapshot was taken from. Ids that were not
+ * in use at that time have no data and no edges.
+ */
+public class CsrGraph<NodeType> implements IndexedGraph {
+
+  private final NodeType[] data; // node data by id, or null for unused ids
+  private final int nodeCount;
+
+  private final int[] leavingOffsets;
+  private final int[] leavingTargets;
+  private final double[] leavingWeights;
+
+  private final int[] enteringOffsets;
+  private final int[] enteringSources;
+  private final double[] enteringWeights;
+
+  /**
+   * Creates a snapshot from the leaving edges of every node, and derives the entering edges from
+   * them. The arrays passed in become part of this snapshot and must not be modified afterwards.
+   *
+   * @param data           node data indexed by id, with null for unused ids
+   * @param leavingOffsets start index of each node's leaving edges, with data.length+1 entries
+   * @param leavingTargets successor id of each edge
+   * @param leavingWeights weight of each edge
+   */
+  public CsrGraph(NodeType[] data, int[] leavingOffsets, int[] leavingTargets,
+      double[] leavingWeights) {
+    this.data = data;
+    this.leavingOffsets = leavingOffsets;
+    this.leavingTargets = leavingTargets;
+    this.leavingWeights = leavingWeights;
+    int count = 0;
+    for (NodeType item : data)
+      if (item != null)
+        count++;
+    this.nodeCount = count;
+
+    // transpose the leaving edges into entering edges with a counting sort on successor id
+    int idBound = data.length;
+    int edgeCount = leavingTargets.length;
+    enteringOffsets = new int[idBound + 1];
+    enteringSources = new int[edgeCount];
+    enteringWeights = new double[edgeCount];
+    for (int i = 0; i < edgeCount; i++)
+      enteringOffsets[leavingTargets[i] + 1]++;
+    for (int id = 0; id < idBound; id++)
+      enteringOffsets[id + 1] += enteringOffsets[id];
+    int[] next = new int[idBound];
+    System.arraycopy(enteringOffsets, 0, next, 0, idBound);
+    for (int id = 0; id < idBound; id++) {
+      for (int i = leavingOffsets[id]; i < leavingOffsets[id + 1]; i++) {
+        int slot = next[leavingTargets[i]]++;
+        enteringSources[slot] = id;
+        enteringWeights[slot] = leavingWeights[i];
+      }
+    }
+  }
+
+  @Override
+  public int getIdBound() {
+    return data.length;
+  }
+
+  /**
+   * Return the number of nodes in this snapshot.
+   *
+   * @return the number of nodes in this snapshot
+   */
+  public int getNodeCount() {
+    return nodeCount;
+  }
+
+  /**
+   * Return the number of edges in this snapshot.
+   *
+   * @return the number of edges in this snapshot
+   */
+  public int getEdgeCount() {
+    return leavingTargets.length;
+  }
+
+  /**
+   * Retrieves the data stored at a node.
+   *
+   * @param id the id of the node
+   * @return the data of that node, or null when no node has this id
+   */
+  public NodeType getData(int id) {
+    return data[id];
+  }
+
+  /**
+   * Return the number of edges leaving a node.
+   *
+   * @param id the id of the node
+   * @return the number of edges leaving that node
+   */
+  public int getOutDegree(int id) {
+    return leavingOffsets[id + 1] - leavingOffsets[id];
+  }
+
+  /**
+   * Retrieves where the edges leaving a node start within this snapshot's edge arrays. The edges
+   * leaving node id are at indexes getLeavingOffset(id) up to getLeavingOffset(id + 1).
+   *
+   * @param id the id of a node, or getIdBound() for the end of the last node's edges
+   * @return the index of the first edge leaving that node
+   */
+  public int getLeavingOffset(int id) {
+    return leavingOffsets[id];
+  }
+
+  /**
+   * Retrieves the successor of an edge by its index within this snapshot's edge arrays.
+   *
+   * @param index the index of an edge
+   * @return the id of the node that edge leads to
+   */
+  public int getLeavingTarget(int index) {
+    return leavingTargets[index];
+  }
+
+  /**
+   * Retrieves the weight of an edge by its index within this snapshot's edge arrays.
+   *
+   * @param index the index of an edge
+   * @return the weight of that edge
+   */
+  public double getLeavingWeight(int index) {
+    return leavingWeights[index];
+  }
+
+  /**
+   * Retrieves where the edges entering a node start within this snapshot's reversed edge arrays.
+   * The edges entering node id are at indexes getEnteringOffset(id) up to getEnteringOffset(id + 1).
+   *
+   * @param id the id of a node, or getIdBound() for the end of the last node's edges
+   * @return the index of the first edge entering that node
+   */
+  public int getEnteringOffset(int id) {
+    return enteringOffsets[id];
+  }
+
+  /**
+   * Retrieves the predecessor of an edge by its index within this snapshot's reversed edge arrays.
+   *
+   * @param index the index of an entering edge
+   * @return the id of the node that edge comes from
+   */
+  public int getEnteringSource(int index) {
+    return enteringSources[index];
+  }
+
+  /**
+   * Retrieves the weight of an edge by its index within this snapshot's reversed edge arrays.
+   *
+   * @param index the index of an entering edge
+   * @return the weight of that edge
+   */
+  public double getEnteringWeight(int index) {
+    return enteringWeights[index];
+  }
+
+  @Override
+  public double getWeight(int predecessor, int successor) {
+    int end = leavingOffsets[predecessor + 1];
+    for (int i = leavingOffsets[predecessor]; i < end; i++)
+      if (leavingTargets[i] == successor)
+        return leavingWeights[i];
+    throw new NoSuchElementException("No edge from " + predecessor + " to " + successor);
+  }
+
+  @Override
+  public void relaxLeaving(int id, SearchState search) {
+    int end = leavingOffsets[id + 1];
+    for (int i = leavingOffsets[id]; i < end; i++)
+      search.relax(id, leavingTargets[i], leavingWeights[i]);
+  }
+
+  @Override
+  public void relaxEntering(int id, SearchState search) {
+    int end = enteringOffsets[id + 1];
+    for (int i = enteringOffsets[id]; i < end; i++)
+      search.relax(id, enteringSources[i], enteringWeights[i]);
+  }
+}
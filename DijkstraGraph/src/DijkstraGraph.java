@@ -7,9 +7,16 @@
 // Notes to Grader: <optional extra notes>
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.NoSuchElementException;
-import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntFunction;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -17,6 +24,9 @@ import org.junit.jupiter.api.Test;
  * This class extends the BaseGraph data structure with additional methods for computing the total
  * cost and list of node data along the shortest path connecting a provided starting to ending
  * nodes. This class makes use of Dijkstra's shortest path algorithm.
+ *
+ * Any number of threads can query the same graph at once, as long as no thread modifies it at the
+ * same time: each search works in its own SearchState, and the graph itself is only read.
  */
 public class DijkstraGraph<NodeType, EdgeType extends Number> extends BaseGraph<NodeType, EdgeType>
     implements GraphADT<NodeType, EdgeType> {
@@ -28,8 +38,8 @@ public class DijkstraGraph<NodeType, EdgeType extends Number> extends BaseGraph<
    * predecessor SearchNode within this path is referened by the predecessor field (this field is
    * null within the SearchNode containing the starting node in its node field).
    *
-   * SearchNodes are Comparable and are sorted by cost so that the lowest cost SearchNode has the
-   * highest priority within a java.util.PriorityQueue.
+   * SearchNodes are Comparable and are sorted by cost so that the lowest cost SearchNode comes
+   * first.
    */
   protected class SearchNode implements Comparable<SearchNode> {
     public Node node;
@@ -52,10 +62,421 @@ public class DijkstraGraph<NodeType, EdgeType extends Number> extends BaseGraph<
   }
 
   /**
-   * Constructor that sets the map that the graph uses.
+   * The algorithms that computeShortestPath can use to answer point-to-point queries. Every mode
+   * finds a path of the same (shortest) cost, but when several paths tie for shortest, different
+   * modes may return different ones.
+   */
+  public enum SearchMode {
+    // a single search from the start node over leaving edges
+    DIJKSTRA,
+    // alternating searches from the start node over leaving edges and from the end node over
+    // entering edges, which stop once their frontiers meet
+    BIDIRECTIONAL,
+    // a single search from the start node that is guided towards the end node by the heuristic
+    // set through setHeuristic or prepareLandmarks (this falls back to DIJKSTRA when there is no
+    // heuristic, or when the graph was modified after the heuristic was precomputed)
+    A_STAR,
+    // a bidirectional search over the upward edges of the hierarchy built by
+    // prepareContractionHierarchy (this falls back to DIJKSTRA when there is no hierarchy, or when
+    // the graph was modified after it was built)
+    CONTRACTION_HIERARCHY
+  }
+
+  protected SearchMode searchMode = SearchMode.DIJKSTRA;
+  protected SearchHeuristic heuristic = null;
+  protected ContractionHierarchy hierarchy = null;
+  // caches the results of shortestPathData and shortestPathCost, or null for no caching
+  protected ShortestPathCache<NodeType> cache = null;
+  // collects the work done by each point-to-point query, or null to collect nothing
+  protected SearchMetrics metrics = null;
+  // maintains the shortest path trees of registered sources as edges change, or null when no
+  // source has ever been registered
+  protected DynamicShortestPaths<NodeType, EdgeType> dynamicPaths = null;
+  // the furthest destination from each node, built by prepareEccentricities, which answers
+  // getFurthestFrom while it is valid for the current snapshot, or null when none has been built
+  protected volatile EccentricityTable eccentricities = null;
+  // the last background rebuild of a stale eccentricity table, which is still running until it is
+  // done, or null when none has been started
+  protected final AtomicReference<ForkJoinTask<EccentricityTable>> eccentricityRebuild =
+      new AtomicReference<>();
+  // fixed seed for landmark selection, so that the same graph always gets the same landmarks
+  protected static final long LANDMARK_SEED = 400;
+
+  // reusable arrays and heaps for the searches run by this graph. Each search takes a state from
+  // this pool (or creates one when it is empty) and returns it when done, so concurrent searches
+  // never share a state, and no state is tied to a thread that may only run a single query
+  protected ConcurrentLinkedQueue<SearchState> idleStates = new ConcurrentLinkedQueue<>();
+
+  /**
+   * A RecursiveAction that fills a range of rows within a distance matrix by splitting that range
+   * in half until each task computes a single row with one search from that row's source.
+   */
+  protected class DistanceMatrixTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final IndexedGraph graph;
+    private final int[] sources;
+    private final int[] targets;
+    private final boolean[] isTarget; // by node id, whether that node is one of the targets
+    private final int distinctTargets;
+    private final double[][] matrix;
+    private final int from; // first row to fill
+    private final int to; // one past the last row to fill
+
+    public DistanceMatrixTask(IndexedGraph graph, int[] sources, int[] targets,
+        boolean[] isTarget, int distinctTargets, double[][] matrix, int from, int to) {
+      this.graph = graph;
+      this.sources = sources;
+      this.targets = targets;
+      this.isTarget = isTarget;
+      this.distinctTargets = distinctTargets;
+      this.matrix = matrix;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from > 1) {
+        int middle = (from + to) / 2;
+        invokeAll(
+            new DistanceMatrixTask(graph, sources, targets, isTarget, distinctTargets, matrix,
+                from, middle),
+            new DistanceMatrixTask(graph, sources, targets, isTarget, distinctTargets, matrix,
+                middle, to));
+        return;
+      }
+      // search from this row's source until every target is settled, or nothing else is reachable
+      SearchState search = acquireSearchState();
+      double[] row = new double[targets.length];
+      try {
+        search.reset(graph.getIdBound());
+        search.start(sources[from]);
+        int settledTargets = 0;
+        while (!search.isFrontierEmpty() && settledTargets < distinctTargets) {
+          int id = search.settleNext();
+          if (isTarget[id])
+            settledTargets++;
+          graph.relaxLeaving(id, search);
+        }
+        for (int j = 0; j < targets.length; j++)
+          row[j] = search.getDistance(targets[j]);
+      } finally {
+        releaseSearchState(search);
+      }
+      matrix[from] = row;
+    }
+  }
+
+  /**
+   * Constructor that sets the map that the graph uses. An OpenAddressingMap is used rather than a
+   * HashtableMap, since node lookups are on the path of every query and every load.
    */
   public DijkstraGraph() {
-    super(new HashtableMap<>());
+    super(new OpenAddressingMap<>());
+  }
+
+  /**
+   * Selects the algorithm used by shortestPathData and shortestPathCost.
+   *
+   * @param mode the search mode to use for later point-to-point queries
+   */
+  public void setSearchMode(SearchMode mode) {
+    if (mode == null)
+      throw new NullPointerException("mode");
+    this.searchMode = mode;
+  }
+
+  /**
+   * Retrieves the algorithm used by shortestPathData and shortestPathCost.
+   *
+   * @return the current search mode
+   */
+  public SearchMode getSearchMode() {
+    return searchMode;
+  }
+
+  /**
+   * Sets the heuristic that guides searches in the A_STAR search mode.
+   *
+   * @param heuristic a consistent heuristic for this graph, or null for none
+   */
+  public void setHeuristic(SearchHeuristic heuristic) {
+    this.heuristic = heuristic;
+  }
+
+  /**
+   * Retrieves the heuristic that guides searches in the A_STAR search mode.
+   *
+   * @return the heuristic in use, or null for none
+   */
+  public SearchHeuristic getHeuristic() {
+    return heuristic;
+  }
+
+  /**
+   * Sets the cache that shortestPathData and shortestPathCost store their results in, and look
+   * them up from. Cached results are dropped whenever this graph is modified.
+   *
+   * @param cache the cache to use, or null to turn caching off
+   */
+  public void setCache(ShortestPathCache<NodeType> cache) {
+    this.cache = cache;
+  }
+
+  /**
+   * Retrieves the cache of shortest path results, which reports its hit, miss and eviction counts.
+   *
+   * @return the cache in use, or null when caching is off
+   */
+  public ShortestPathCache<NodeType> getCache() {
+    return cache;
+  }
+
+  /**
+   * Sets the metrics that every point-to-point query computed by this graph (rather than answered
+   * from its cache) records the work it did in.
+   *
+   * @param metrics the metrics to record in, or null to record nothing
+   */
+  public void setMetrics(SearchMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * Retrieves the metrics that point-to-point queries record their work in.
+   *
+   * @return the metrics in use, or null when nothing is recorded
+   */
+  public SearchMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Freezes this graph, and precomputes an ALT heuristic for it with the provided number of
+   * landmarks, which guides searches in the A_STAR search mode until this graph is next modified.
+   *
+   * @param count     the number of landmarks to choose
+   * @param selection the strategy used to choose landmarks
+   * @return the precomputed heuristic
+   */
+  public LandmarkHeuristic prepareLandmarks(int count, LandmarkHeuristic.Selection selection) {
+    LandmarkHeuristic landmarks = new LandmarkHeuristic(freeze(), count, selection, LANDMARK_SEED);
+    this.heuristic = landmarks;
+    return landmarks;
+  }
+
+  /**
+   * Freezes this graph, and builds a contraction hierarchy for it, which answers queries in the
+   * CONTRACTION_HIERARCHY search mode until this graph is next modified.
+   *
+   * @return the hierarchy that was built, which reports its preprocessing time and shortcut count
+   */
+  public ContractionHierarchy prepareContractionHierarchy() {
+    this.hierarchy = new ContractionHierarchy(freeze());
+    return hierarchy;
+  }
+
+  /**
+   * Freezes this graph, and searches from every node in parallel on the common ForkJoinPool, to
+   * build a table of the furthest destination from each node. This table answers getFurthestFrom
+   * without searching until this graph is next modified. After that, the next call to
+   * getFurthestFrom starts rebuilding it in the background, and searches until it is done.
+   *
+   * @return the table that was built, which reports its build time
+   */
+  public EccentricityTable prepareEccentricities() {
+    this.eccentricities = new EccentricityTable(freeze(), ForkJoinPool.commonPool());
+    return eccentricities;
+  }
+
+  /**
+   * Retrieves the table of furthest destinations that answers getFurthestFrom.
+   *
+   * @return the last table built, which may be stale, or null when none has been built
+   */
+  public EccentricityTable getEccentricities() {
+    return eccentricities;
+  }
+
+  /**
+   * Retrieves the background rebuild of the table of furthest destinations that getFurthestFrom
+   * last started, so that its caller can wait for it.
+   *
+   * @return that rebuild, whose join returns the table it built, or null when none has been
+   *         started
+   */
+  public ForkJoinTask<EccentricityTable> getEccentricityRebuild() {
+    return eccentricityRebuild.get();
+  }
+
+  /**
+   * Finds the furthest destination from a start node: the node with the greatest positive
+   * shortest path cost from it, as returned by ShortestPathTree.getFurthest. This is a lookup in
+   * the table built by prepareEccentricities while it is valid, and a full search otherwise.
+   *
+   * @param start the data item in the starting node
+   * @return the data item in the furthest node reachable from start
+   * @throws NoSuchElementException if the start node cannot be found in the graph, or if no other
+   *                                node can be reached from it
+   */
+  public NodeType getFurthestFrom(NodeType start) {
+    int source = dictionary.getId(start);
+    if (source == -1) {
+      throw new NoSuchElementException("start node not present");
+    }
+    EccentricityTable table = eccentricities;
+    CsrGraph<NodeType> frozen = snapshot;
+    if (table != null && frozen != null && table.isValidFor(frozen)) {
+      int furthest = table.getFurthest(source);
+      if (furthest == -1) {
+        throw new NoSuchElementException("Cannot find paths starting at " + start);
+      }
+      return frozen.getData(furthest);
+    }
+    if (table != null) {
+      rebuildEccentricities();
+    }
+    return shortestPathTree(start).getFurthest();
+  }
+
+  // rebuilds the eccentricity table on the common ForkJoinPool, unless a rebuild is already
+  // running. This graph is frozen on the calling thread, so that the rebuild only reads an
+  // immutable snapshot, however this graph changes while it runs. A table that is already stale
+  // when it is done is rebuilt again by the next call to getFurthestFrom.
+  private void rebuildEccentricities() {
+    ForkJoinTask<EccentricityTable> running = eccentricityRebuild.get();
+    if (running != null && !running.isDone()) {
+      return;
+    }
+    CsrGraph<NodeType> frozen = freeze();
+    ForkJoinTask<EccentricityTable> rebuild = ForkJoinTask.adapt(() -> {
+      EccentricityTable table = new EccentricityTable(frozen, ForkJoinPool.commonPool());
+      eccentricities = table;
+      return table;
+    });
+    if (eccentricityRebuild.compareAndSet(running, rebuild)) {
+      ForkJoinPool.commonPool().execute(rebuild);
+    }
+  }
+
+  /**
+   * Retrieves the contraction hierarchy that answers queries in the CONTRACTION_HIERARCHY mode.
+   *
+   * @return the last hierarchy built, or null when none has been built
+   */
+  public ContractionHierarchy getHierarchy() {
+    return hierarchy;
+  }
+
+  /**
+   * Starts maintaining the shortest path tree of a start node, so that shortestPathData,
+   * shortestPathCost and shortestPathTree answer queries from it without searching, and so that
+   * each later change to an edge only repairs the part of that tree whose paths it affects. The
+   * tree is dropped when its start node is removed.
+   *
+   * @param start the data item in the node to maintain shortest paths from
+   * @throws NoSuchElementException if the start node cannot be found in the graph
+   */
+  public void maintainShortestPathsFrom(NodeType start) {
+    int source = dictionary.getId(start);
+    if (source == -1) {
+      throw new NoSuchElementException("start node not present");
+    }
+    if (dynamicPaths == null) {
+      dynamicPaths = new DynamicShortestPaths<>(this);
+    }
+    dynamicPaths.addSource(source);
+  }
+
+  /**
+   * Stops maintaining the shortest path tree of a start node.
+   *
+   * @param start the data item in the node that shortest paths were maintained from
+   * @return true if they were maintained, false otherwise
+   */
+  public boolean stopMaintainingShortestPathsFrom(NodeType start) {
+    int source = dictionary.getId(start);
+    return source != -1 && dynamicPaths != null && dynamicPaths.removeSource(source);
+  }
+
+  /**
+   * Retrieves the maintained shortest path trees, which report how many nodes their updates have
+   * repaired.
+   *
+   * @return the maintained trees, or null when no start node was ever registered
+   */
+  public DynamicShortestPaths<NodeType, EdgeType> getDynamicShortestPaths() {
+    return dynamicPaths;
+  }
+
+  /**
+   * Inserts a new edge, or updates the weight of an existing one, and repairs the maintained
+   * shortest path trees.
+   */
+  @Override
+  public boolean insertEdge(NodeType pred, NodeType succ, EdgeType weight) {
+    if (!isMaintainingShortestPaths()) {
+      return super.insertEdge(pred, succ, weight);
+    }
+    // an existing edge is updated in place, so its old weight is read before the update
+    Edge oldEdge = findEdge(pred, succ);
+    double oldWeight = oldEdge != null ? oldEdge.data.doubleValue() : Double.POSITIVE_INFINITY;
+    if (!super.insertEdge(pred, succ, weight)) {
+      return false;
+    }
+    dynamicPaths.edgeChanged(dictionary.getId(pred), dictionary.getId(succ), oldWeight,
+        weight.doubleValue());
+    return true;
+  }
+
+  /**
+   * Removes an edge, and repairs the maintained shortest path trees.
+   */
+  @Override
+  public boolean removeEdge(NodeType pred, NodeType succ) {
+    if (!isMaintainingShortestPaths()) {
+      return super.removeEdge(pred, succ);
+    }
+    Edge oldEdge = findEdge(pred, succ);
+    if (!super.removeEdge(pred, succ)) {
+      return false;
+    }
+    dynamicPaths.edgeChanged(oldEdge.predecessor.id, oldEdge.successor.id,
+        oldEdge.data.doubleValue(), Double.POSITIVE_INFINITY);
+    return true;
+  }
+
+  /**
+   * Removes a node with all of its edges, and repairs the maintained shortest path trees.
+   */
+  @Override
+  public boolean removeNode(NodeType data) {
+    int id = dictionary.getId(data);
+    if (id == -1 || !isMaintainingShortestPaths()) {
+      return super.removeNode(data);
+    }
+    // the subtree below this node is found through its edges, so it is cut off before they go
+    dynamicPaths.nodeRemoving(id);
+    boolean removed = super.removeNode(data);
+    dynamicPaths.nodeRemoved();
+    return removed;
+  }
+
+  /**
+   * Replaces every node and edge of this graph in one pass. Since every node is replaced, so is
+   * every start node whose shortest path tree was maintained.
+   */
+  @Override
+  public void load(NodeType[] nodes, int[] sources, int[] targets,
+      IntFunction<EdgeType> weights) {
+    super.load(nodes, sources, targets, weights);
+    dynamicPaths = null;
+  }
+
+  // whether any change to this graph needs to be reported to dynamicPaths
+  private boolean isMaintainingShortestPaths() {
+    return dynamicPaths != null && dynamicPaths.getSourceCount() > 0;
   }
 
   /**
@@ -65,6 +486,12 @@ public class DijkstraGraph<NodeType, EdgeType extends Number> extends BaseGraph<
    * path, and the nodes linked together through predecessor references represent all of the nodes
    * along that shortest path (ordered from end to start).
    *
+   * The search itself runs over node ids: distances, predecessors and settled flags are kept in
+   * the arrays of a SearchState, and the frontier is an IndexedMinHeap that lowers the key of a
+   * node in place when a shorter path to it is found. SearchNodes are only created for the nodes
+   * along the path that is returned. When this graph has been frozen (and not modified since), the
+   * search scans the edges of the CsrGraph snapshot instead of the linked edge lists.
+   *
    * @param start the data item in the starting node for the path
    * @param end   the data item in the destination node for the path
    * @return SearchNode for the final end node within the shortest path
@@ -72,31 +499,384 @@ public class DijkstraGraph<NodeType, EdgeType extends Number> extends BaseGraph<
    *                                end data do not correspond to a graph node
    */
   protected SearchNode computeShortestPath(NodeType start, NodeType end) {
-    if (!nodes.containsKey(start) || !nodes.containsKey(end)) {
+    int source = dictionary.getId(start);
+    int target = dictionary.getId(end);
+    if (source == -1 || target == -1) {
       throw new NoSuchElementException("start/end node not present");
     }
-    ArrayList<Node> visited = new ArrayList<>();
-    PriorityQueue<SearchNode> pq = new PriorityQueue<SearchNode>();
-    pq.add(new SearchNode(nodes.get(start), 0, null));
-    while (!pq.isEmpty()) {
-      SearchNode search = pq.remove();
-      if (!visited.contains(search.node)) {
-        if (search.node.data.equals(end)) {
-          return search;
+    if (dynamicPaths != null && dynamicPaths.isSource(source)) {
+      SearchNode result = null;
+      try {
+        result = toSearchNode(source, target);
+        return result;
+      } finally {
+        if (metrics != null) {
+          metrics.recordQuery(countNodes(result));
+        }
+      }
+    }
+    IndexedGraph graph = searchGraph();
+    if (searchMode == SearchMode.BIDIRECTIONAL) {
+      return computeBidirectionalShortestPath(graph, source, target);
+    }
+    if (searchMode == SearchMode.CONTRACTION_HIERARCHY && hierarchy != null
+        && hierarchy.isValidFor(graph)) {
+      SearchState forward = acquireSearchState();
+      SearchState backward = acquireSearchState();
+      int[] path = null;
+      try {
+        path = hierarchy.shortestPath(source, target, forward, backward);
+      } finally {
+        if (metrics != null) {
+          metrics.recordQuery(forward, backward, path == null ? 0 : path.length);
+        }
+        releaseSearchState(forward);
+        releaseSearchState(backward);
+      }
+      if (path == null) {
+        throw new NoSuchElementException("path not found");
+      }
+      return toSearchNode(graph, path);
+    }
+    SearchState search = acquireSearchState();
+    SearchNode result = null;
+    try {
+      search.reset(graph.getIdBound());
+      if (searchMode == SearchMode.A_STAR && heuristic != null && heuristic.isValidFor(graph)) {
+        search.setHeuristic(heuristic, target);
+      }
+      search.start(source);
+      while (!search.isFrontierEmpty()) {
+        int id = search.settleNext();
+        if (id == target) {
+          result = toSearchNode(graph, search, id, null);
+          return result;
+        }
+        graph.relaxLeaving(id, search);
+      }
+      throw new NoSuchElementException("path not found");
+    } finally {
+      if (metrics != null) {
+        metrics.recordQuery(search, null, countNodes(result));
+      }
+      releaseSearchState(search);
+    }
+  }
+
+  /**
+   * Computes the shortest path between two nodes with a forward search from the source over
+   * leaving edges, and a backward search from the target over entering edges. Each step settles
+   * one node from whichever frontier is closer to its own search's origin. Whenever a node that
+   * the other search has already reached is settled, the path through it becomes a candidate. The
+   * searches stop once the two frontier distances add up to no less than the best candidate, since
+   * no path found after that could be any shorter.
+   *
+   * @param graph  the graph to search
+   * @param source the id of the node the path starts at
+   * @param target the id of the node the path ends at
+   * @return SearchNode for the target node within the shortest path
+   * @throws NoSuchElementException when no path from source to target is found
+   */
+  protected SearchNode computeBidirectionalShortestPath(IndexedGraph graph, int source,
+      int target) {
+    SearchState forward = acquireSearchState();
+    SearchState backward = acquireSearchState();
+    SearchNode result = null;
+    try {
+      result = computeBidirectionalShortestPath(graph, source, target, forward, backward);
+      return result;
+    } finally {
+      if (metrics != null) {
+        metrics.recordQuery(forward, backward, countNodes(result));
+      }
+      releaseSearchState(forward);
+      releaseSearchState(backward);
+    }
+  }
+
+  // runs a bidirectional search with the provided forward and backward states
+  private SearchNode computeBidirectionalShortestPath(IndexedGraph graph, int source, int target,
+      SearchState forward, SearchState backward) {
+    forward.reset(graph.getIdBound());
+    backward.reset(graph.getIdBound());
+    forward.start(source);
+    backward.start(target);
+    double best = Double.POSITIVE_INFINITY;
+    int meeting = -1;
+    while (!forward.isFrontierEmpty() && !backward.isFrontierEmpty()
+        && forward.peekFrontierKey() + backward.peekFrontierKey() < best) {
+      if (forward.peekFrontierKey() <= backward.peekFrontierKey()) {
+        int id = forward.settleNext();
+        if (backward.isReached(id) && forward.getDistance(id) + backward.getDistance(id) < best) {
+          best = forward.getDistance(id) + backward.getDistance(id);
+          meeting = id;
         }
-        visited.add(search.node);
-        int edges = search.node.edgesLeaving.size();
-        for (int i = 0; i < edges; i++) {
-          pq.add(new SearchNode(search.node.edgesLeaving.get(i).successor,
-              search.cost + search.node.edgesLeaving.get(i).data.doubleValue(),
-              new SearchNode(search.node, search.cost, search.predecessor)));
+        graph.relaxLeaving(id, forward);
+      } else {
+        int id = backward.settleNext();
+        if (forward.isReached(id) && forward.getDistance(id) + backward.getDistance(id) < best) {
+          best = forward.getDistance(id) + backward.getDistance(id);
+          meeting = id;
         }
+        graph.relaxEntering(id, backward);
+      }
+    }
+    if (meeting == -1) {
+      throw new NoSuchElementException("path not found");
+    }
+    return toSearchNode(graph, forward, meeting, backward);
+  }
+
+  /**
+   * Computes the shortest paths from one start node to every node that it can reach, with a single
+   * search that runs until the whole reachable part of the graph is settled.
+   *
+   * @param start the data item in the starting node for all paths
+   * @return the tree of shortest paths rooted at start
+   * @throws NoSuchElementException if the start node cannot be found in the graph
+   */
+  public ShortestPathTree<NodeType> shortestPathTree(NodeType start) {
+    int source = dictionary.getId(start);
+    if (source == -1) {
+      throw new NoSuchElementException("start node not present");
+    }
+    if (dynamicPaths != null && dynamicPaths.isSource(source)) {
+      return toShortestPathTree(source);
+    }
+    IndexedGraph graph = searchGraph();
+    SearchState search = acquireSearchState();
+    try {
+      search.reset(graph.getIdBound());
+      search.start(source);
+      while (!search.isFrontierEmpty()) {
+        graph.relaxLeaving(search.settleNext(), search);
+      }
+      return toShortestPathTree(search, source);
+    } finally {
+      releaseSearchState(search);
+    }
+  }
+
+  /**
+   * Computes the cost of the shortest path from every source to every target, on the common
+   * ForkJoinPool.
+   *
+   * @param sources the data items in the starting nodes, one for each row
+   * @param targets the data items in the destination nodes, one for each column
+   * @return matrix where matrix[i][j] is the cost of the shortest path from sources.get(i) to
+   *         targets.get(j), or positive infinity when there is no such path
+   * @throws NoSuchElementException if any source or target cannot be found in the graph
+   */
+  public double[][] distanceMatrix(List<NodeType> sources, List<NodeType> targets) {
+    return distanceMatrix(sources, targets, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Computes the cost of the shortest path from every source to every target. This runs one
+   * search per source, which stops once all targets are settled, and spreads these searches across
+   * the workers of a ForkJoinPool. The graph must not be modified while this method runs.
+   *
+   * @param sources the data items in the starting nodes, one for each row
+   * @param targets the data items in the destination nodes, one for each column
+   * @param pool    the pool to run the searches on
+   * @return matrix where matrix[i][j] is the cost of the shortest path from sources.get(i) to
+   *         targets.get(j), or positive infinity when there is no such path
+   * @throws NoSuchElementException if any source or target cannot be found in the graph
+   */
+  public double[][] distanceMatrix(List<NodeType> sources, List<NodeType> targets,
+      ForkJoinPool pool) {
+    int[] sourceIds = toIds(sources);
+    int[] targetIds = toIds(targets);
+    IndexedGraph graph = searchGraph();
+    boolean[] isTarget = new boolean[graph.getIdBound()];
+    int distinctTargets = 0;
+    for (int id : targetIds) {
+      if (!isTarget[id]) {
+        isTarget[id] = true;
+        distinctTargets++;
+      }
+    }
+    double[][] matrix = new double[sourceIds.length][];
+    if (sourceIds.length > 0) {
+      pool.invoke(new DistanceMatrixTask(graph, sourceIds, targetIds, isTarget, distinctTargets,
+          matrix, 0, sourceIds.length));
+    }
+    return matrix;
+  }
+
+  /**
+   * Takes a search state that no other search is using, from the pool of idle states if there is
+   * one, so that its arrays do not need to be allocated again.
+   *
+   * @return a search state for the calling thread to use until it is released
+   */
+  protected SearchState acquireSearchState() {
+    SearchState search = idleStates.poll();
+    return search != null ? search : new SearchState();
+  }
+
+  /**
+   * Returns a search state to the pool of idle states, once nothing refers to its results.
+   *
+   * @param search a state taken by acquireSearchState
+   */
+  protected void releaseSearchState(SearchState search) {
+    idleStates.offer(search);
+  }
+
+  /**
+   * Looks up the ids of a list of nodes.
+   *
+   * @param data the data items of the nodes
+   * @return the id of each node, in the same order
+   * @throws NoSuchElementException if any of these nodes cannot be found in the graph
+   */
+  protected int[] toIds(List<NodeType> data) {
+    int[] ids = new int[data.size()];
+    int i = 0;
+    for (NodeType item : data) {
+      ids[i] = dictionary.getId(item);
+      if (ids[i++] == -1) {
+        throw new NoSuchElementException("node not present: " + item);
+      }
+    }
+    return ids;
+  }
+
+  /**
+   * Copies the distances and predecessors of a finished search into a ShortestPathTree.
+   *
+   * @param search the search to copy from
+   * @param source the id of the node that the search started from
+   * @return a tree that no longer depends on the search's reusable arrays
+   */
+  @SuppressWarnings("unchecked")
+  protected ShortestPathTree<NodeType> toShortestPathTree(SearchState search, int source) {
+    int idBound = dictionary.getIdBound();
+    NodeType[] data = (NodeType[]) new Object[idBound];
+    double[] distance = new double[idBound];
+    int[] predecessor = new int[idBound];
+    for (int id = 0; id < idBound; id++) {
+      data[id] = dictionary.getData(id);
+      distance[id] = search.getDistance(id);
+      predecessor[id] = search.isReached(id) ? search.getPredecessor(id) : -1;
+    }
+    return new ShortestPathTree<>(source, data, distance, predecessor, dictionary::getId);
+  }
+
+  /**
+   * Copies the maintained shortest path tree of a registered start node into a ShortestPathTree.
+   *
+   * @param source the id of a start node registered with dynamicPaths
+   * @return a tree that no longer depends on the maintained arrays
+   */
+  @SuppressWarnings("unchecked")
+  protected ShortestPathTree<NodeType> toShortestPathTree(int source) {
+    int idBound = dictionary.getIdBound();
+    NodeType[] data = (NodeType[]) new Object[idBound];
+    double[] distance = new double[idBound];
+    int[] predecessor = new int[idBound];
+    for (int id = 0; id < idBound; id++) {
+      data[id] = dictionary.getData(id);
+      distance[id] = dynamicPaths.getDistance(source, id);
+      predecessor[id] = dynamicPaths.getPredecessor(source, id);
+    }
+    return new ShortestPathTree<>(source, data, distance, predecessor, dictionary::getId);
+  }
+
+  /**
+   * Retrieves the fastest representation of this graph to search: the frozen snapshot when one is
+   * up to date, or otherwise this graph itself.
+   *
+   * @return the graph that searches should scan edges from
+   */
+  protected IndexedGraph searchGraph() {
+    return snapshot != null ? snapshot : this;
+  }
+
+  /**
+   * Converts the path to a reached node within a finished search into a chain of SearchNodes.
+   * When a backward search is provided, the path continues from that node to the backward search's
+   * origin, and the cost of each node along that part is summed edge by edge in forward order, so
+   * that costs match those of a single forward search along the same path.
+   *
+   * @param graph    the graph that was searched
+   * @param forward  the search that reached this node from the start node
+   * @param id       the id of the node at the end of the forward part of the path
+   * @param backward the search that reached this node from the end node, or null
+   * @return SearchNode for the end node, linked through predecessors back to the start node
+   */
+  protected SearchNode toSearchNode(IndexedGraph graph, SearchState forward, int id,
+      SearchState backward) {
+    SearchNode head = new SearchNode(nodesById.get(id), forward.getDistance(id), null);
+    if (backward != null) {
+      for (int next = backward.getPredecessor(id); next != -1;
+          next = backward.getPredecessor(next)) {
+        double cost = head.cost + graph.getWeight(head.node.id, next);
+        head = new SearchNode(nodesById.get(next), cost, head);
       }
     }
-    throw new NoSuchElementException("path not found");
+    // link the forward part of the path onto the end of the chain, from id back to the start
+    SearchNode tail = head;
+    while (tail.node.id != id) {
+      tail = tail.predecessor;
+    }
+    for (int pred = forward.getPredecessor(id); pred != -1; pred = forward.getPredecessor(pred)) {
+      tail.predecessor = new SearchNode(nodesById.get(pred), forward.getDistance(pred), null);
+      tail = tail.predecessor;
+    }
+    return head;
+  }
 
+  /**
+   * Converts the path to a node within the maintained shortest path tree of a registered start
+   * node into a chain of SearchNodes.
+   *
+   * @param source the id of a start node registered with dynamicPaths
+   * @param target the id of the node at the end of the path
+   * @return SearchNode for the target node, linked through predecessors back to the start node
+   * @throws NoSuchElementException when target cannot be reached from source
+   */
+  protected SearchNode toSearchNode(int source, int target) {
+    if (dynamicPaths.getDistance(source, target) == Double.POSITIVE_INFINITY) {
+      throw new NoSuchElementException("path not found");
+    }
+    SearchNode head = new SearchNode(nodesById.get(target),
+        dynamicPaths.getDistance(source, target), null);
+    SearchNode tail = head;
+    for (int pred = dynamicPaths.getPredecessor(source, target); pred != -1;
+        pred = dynamicPaths.getPredecessor(source, pred)) {
+      tail.predecessor = new SearchNode(nodesById.get(pred),
+          dynamicPaths.getDistance(source, pred), null);
+      tail = tail.predecessor;
+    }
+    return head;
+  }
 
+  // counts the nodes along the chain of SearchNodes that ends with result, which may be null
+  private int countNodes(SearchNode result) {
+    int count = 0;
+    for (SearchNode node = result; node != null; node = node.predecessor) {
+      count++;
+    }
+    return count;
+  }
 
+  /**
+   * Converts a path of node ids into a chain of SearchNodes, where the cost of each node is summed
+   * edge by edge along the path in forward order.
+   *
+   * @param graph the graph that contains the edges along this path
+   * @param path  the ids of the nodes along the path, from start to end
+   * @return SearchNode for the end node, linked through predecessors back to the start node
+   */
+  protected SearchNode toSearchNode(IndexedGraph graph, int[] path) {
+    SearchNode head = new SearchNode(nodesById.get(path[0]), 0, null);
+    for (int i = 1; i < path.length; i++) {
+      double cost = head.cost + graph.getWeight(path[i - 1], path[i]);
+      head = new SearchNode(nodesById.get(path[i]), cost, head);
+    }
+    return head;
   }
 
   /**
@@ -112,6 +892,9 @@ public class DijkstraGraph<NodeType, EdgeType extends Number> extends BaseGraph<
    */
   public List<NodeType> shortestPathData(NodeType start, NodeType end) {
     // implement in step 5.4
+    if (cache != null) {
+      return new ArrayList<>(cachedShortestPath(start, end).path);
+    }
     ArrayList<NodeType> list = new ArrayList<>();
     SearchNode search = computeShortestPath(start, end);
     while (search.predecessor != null) {
@@ -133,9 +916,58 @@ public class DijkstraGraph<NodeType, EdgeType extends Number> extends BaseGraph<
    */
   public double shortestPathCost(NodeType start, NodeType end) {
     // implement in step 5.4
+    if (cache != null) {
+      return cachedShortestPath(start, end).cost;
+    }
     return computeShortestPath(start, end).cost;
   }
 
+  /**
+   * Looks up the shortest path between two nodes in the cache, and computes and caches it on a
+   * miss. When the start node has become a hot source for the cache, its whole shortest path tree
+   * is computed and cached instead. Paths that do not exist are cached too, so that repeated
+   * queries for them also hit.
+   *
+   * @param start the data item in the starting node for the path
+   * @param end   the data item in the destination node for the path
+   * @return the cached path and its cost
+   * @throws NoSuchElementException when no path from start to end is found or when either start or
+   *                                end data do not correspond to a graph node
+   */
+  protected ShortestPathCache.CachedPath<NodeType> cachedShortestPath(NodeType start,
+      NodeType end) {
+    if (dictionary.getId(start) == -1 || dictionary.getId(end) == -1) {
+      throw new NoSuchElementException("start/end node not present");
+    }
+    cache.invalidateIfStale(version);
+    ShortestPathCache.CachedPath<NodeType> result = cache.get(start, end);
+    if (result == null) {
+      if (cache.isHotSource(start)) {
+        ShortestPathTree<NodeType> tree = shortestPathTree(start);
+        cache.putTree(start, tree);
+        result = tree.isReachable(end)
+            ? new ShortestPathCache.CachedPath<>(tree.getPath(end), tree.getCost(end))
+            : new ShortestPathCache.CachedPath<>(null, Double.POSITIVE_INFINITY);
+      } else {
+        try {
+          SearchNode search = computeShortestPath(start, end);
+          ArrayList<NodeType> list = new ArrayList<>();
+          for (SearchNode node = search; node != null; node = node.predecessor)
+            list.add(node.node.data);
+          Collections.reverse(list);
+          result = new ShortestPathCache.CachedPath<>(list, search.cost);
+        } catch (NoSuchElementException e) {
+          result = new ShortestPathCache.CachedPath<>(null, Double.POSITIVE_INFINITY);
+        }
+        cache.put(start, end, result);
+      }
+    }
+    if (result.path == null) {
+      throw new NoSuchElementException("path not found");
+    }
+    return result;
+  }
+
   // TODO: implement 3+ tests in step 4.1
   @Test
   public void test1() {
@@ -234,4 +1066,567 @@ public class DijkstraGraph<NodeType, EdgeType extends Number> extends BaseGraph<
       Assertions.assertTrue(true);
     }
   }
+
+  @Test
+  public void test4() {
+    // removed nodes free their ids for reuse, and repeated searches reuse one SearchState
+    DijkstraGraph<String, Integer> graph = new DijkstraGraph<>();
+    graph.insertNode("A");
+    graph.insertNode("B");
+    graph.insertNode("C");
+    graph.insertNode("D");
+    graph.insertEdge("A", "B", 1);
+    graph.insertEdge("B", "D", 1);
+    graph.insertEdge("A", "C", 5);
+    graph.insertEdge("C", "D", 5);
+    Assertions.assertEquals(2, graph.shortestPathCost("A", "D"));
+    graph.removeNode("B");
+    Assertions.assertEquals(10, graph.shortestPathCost("A", "D"));
+    graph.insertNode("E");
+    graph.insertEdge("A", "E", 2);
+    graph.insertEdge("E", "D", 2);
+    Assertions.assertEquals(4, graph.shortestPathCost("A", "D"));
+    Assertions.assertEquals(List.of("A", "E", "D"), graph.shortestPathData("A", "D"));
+    Assertions.assertEquals(0, graph.shortestPathCost("C", "C"));
+    Assertions.assertThrows(NoSuchElementException.class, () -> graph.shortestPathCost("D", "A"));
+  }
+
+  @Test
+  public void test5() {
+    // a frozen snapshot gives the same answers, and is dropped once the graph is modified
+    DijkstraGraph<String, Double> graph = new DijkstraGraph<>();
+    for (String node : new String[] {"A", "B", "C", "D"})
+      graph.insertNode(node);
+    graph.insertEdge("A", "B", 1.0);
+    graph.insertEdge("B", "C", 1.5);
+    graph.insertEdge("A", "C", 3.0);
+    graph.insertEdge("C", "D", 1.0);
+    CsrGraph<String> frozen = graph.freeze();
+    Assertions.assertSame(frozen, graph.freeze());
+    Assertions.assertEquals(4, frozen.getNodeCount());
+    Assertions.assertEquals(4, frozen.getEdgeCount());
+    Assertions.assertEquals(3.5, graph.shortestPathCost("A", "D"));
+    Assertions.assertEquals(List.of("A", "B", "C", "D"), graph.shortestPathData("A", "D"));
+    graph.insertEdge("A", "C", 2.0);
+    Assertions.assertNotSame(frozen, graph.freeze());
+    Assertions.assertEquals(3.0, graph.shortestPathCost("A", "D"));
+    Assertions.assertEquals(List.of("A", "C", "D"), graph.shortestPathData("A", "D"));
+  }
+
+  @Test
+  public void test6() {
+    // one search from a start node answers path and cost queries for every destination
+    DijkstraGraph<Character, Integer> graph = new DijkstraGraph<>();
+    for (char node = 'A'; node <= 'H'; node++)
+      graph.insertNode(node);
+    graph.insertEdge('A', 'B', 4);
+    graph.insertEdge('A', 'C', 2);
+    graph.insertEdge('A', 'E', 15);
+    graph.insertEdge('B', 'D', 1);
+    graph.insertEdge('B', 'E', 10);
+    graph.insertEdge('C', 'D', 5);
+    graph.insertEdge('D', 'E', 3);
+    graph.insertEdge('D', 'F', 0);
+    graph.insertEdge('F', 'D', 2);
+    graph.insertEdge('F', 'H', 4);
+    graph.insertEdge('G', 'H', 4);
+    ShortestPathTree<Character> tree = graph.shortestPathTree('A');
+    Assertions.assertEquals('A', tree.getSource());
+    for (char node = 'A'; node <= 'F'; node++)
+      Assertions.assertEquals(graph.shortestPathCost('A', node), tree.getCost(node));
+    Assertions.assertEquals(List.of('A', 'B', 'D', 'E'), tree.getPath('E'));
+    Assertions.assertEquals(List.of('A'), tree.getPath('A'));
+    Assertions.assertFalse(tree.isReachable('G'));
+    Assertions.assertFalse(tree.isReachable('Z'));
+    Assertions.assertThrows(NoSuchElementException.class, () -> tree.getCost('G'));
+    Assertions.assertEquals('H', tree.getFurthest());
+    Assertions.assertThrows(NoSuchElementException.class, () -> graph.shortestPathTree('Z'));
+    Assertions.assertThrows(NoSuchElementException.class,
+        () -> graph.shortestPathTree('H').getFurthest());
+  }
+
+  @Test
+  public void test7() {
+    // bidirectional searches find the same costs and (unique) paths as forward searches
+    DijkstraGraph<Integer, Double> graph = new DijkstraGraph<>();
+    // a 6x6 grid weighted by square roots, so that no two paths have the same cost
+    for (int node = 0; node < 36; node++)
+      graph.insertNode(node);
+    for (int node = 0; node < 36; node++) {
+      if (node % 6 != 5)
+        graph.insertEdge(node, node + 1, 1.0 + Math.sqrt(3 * node + 2));
+      if (node < 30)
+        graph.insertEdge(node, node + 6, 1.0 + Math.sqrt(3 * node + 3));
+      if (node % 6 != 0)
+        graph.insertEdge(node, node - 1, 1.0 + Math.sqrt(3 * node + 5));
+    }
+    for (int pass = 0; pass < 2; pass++) {
+      for (int start = 0; start < 36; start += 5) {
+        for (int end = start / 6 * 6; end < 36; end += 7) {
+          // every node in the same or a lower row is reachable
+          graph.setSearchMode(SearchMode.DIJKSTRA);
+          List<Integer> path = graph.shortestPathData(start, end);
+          double cost = graph.shortestPathCost(start, end);
+          graph.setSearchMode(SearchMode.BIDIRECTIONAL);
+          Assertions.assertEquals(path, graph.shortestPathData(start, end));
+          Assertions.assertEquals(cost, graph.shortestPathCost(start, end));
+        }
+      }
+      graph.freeze();
+    }
+    Assertions.assertThrows(NoSuchElementException.class, () -> graph.shortestPathData(35, 0));
+  }
+
+  @Test
+  public void test8() {
+    // A* searches guided by landmarks find the same costs as plain searches
+    DijkstraGraph<Integer, Double> graph = new DijkstraGraph<>();
+    for (int node = 0; node < 64; node++)
+      graph.insertNode(node);
+    for (int node = 0; node < 64; node++) {
+      if (node % 8 != 7)
+        graph.insertEdge(node, node + 1, 1.0 + node % 3);
+      if (node < 56)
+        graph.insertEdge(node, node + 8, 2.0 + node % 5);
+      if (node % 8 != 0)
+        graph.insertEdge(node, node - 1, 1.5);
+      if (node >= 8 && node % 3 == 0)
+        graph.insertEdge(node, node - 8, 4.0);
+    }
+    double[][] expected = new double[64][64];
+    for (int start = 0; start < 64; start++)
+      for (int end = 0; end < 64; end++)
+        expected[start][end] = graph.shortestPathCost(start, end);
+    graph.setSearchMode(SearchMode.A_STAR);
+    for (LandmarkHeuristic.Selection selection : LandmarkHeuristic.Selection.values()) {
+      LandmarkHeuristic landmarks = graph.prepareLandmarks(4, selection);
+      Assertions.assertEquals(4, landmarks.getLandmarks().length);
+      for (int start = 0; start < 64; start++) {
+        for (int end = 0; end < 64; end++) {
+          Assertions.assertTrue(landmarks.estimate(start, end) <= expected[start][end]);
+          Assertions.assertEquals(expected[start][end], graph.shortestPathCost(start, end));
+        }
+      }
+    }
+    // after the graph is modified, the stale landmarks are no longer used
+    graph.insertEdge(0, 63, 1.0);
+    Assertions.assertEquals(1.0, graph.shortestPathCost(0, 63));
+  }
+
+  @Test
+  public void test9() {
+    // queries on a contraction hierarchy find shortest paths made of the graph's original edges
+    DijkstraGraph<Integer, Integer> graph = new DijkstraGraph<>();
+    Random random = new Random(9);
+    for (int node = 0; node < 100; node++)
+      graph.insertNode(node);
+    for (int edge = 0; edge < 400; edge++) {
+      int pred = random.nextInt(100);
+      int succ = random.nextInt(100);
+      if (pred != succ)
+        graph.insertEdge(pred, succ, 1 + random.nextInt(20));
+    }
+    double[][] expected = new double[100][100];
+    for (int start = 0; start < 100; start++)
+      for (int end = 0; end < 100; end++)
+        expected[start][end] = graph.shortestPathTree(start).isReachable(end)
+            ? graph.shortestPathCost(start, end) : -1;
+    // this graph has paths that only run through nodes contracted before both of their ends
+    Assertions.assertTrue(graph.prepareContractionHierarchy().getShortcutCount() > 0);
+    graph.setSearchMode(SearchMode.CONTRACTION_HIERARCHY);
+    for (int start = 0; start < 100; start++) {
+      for (int end = 0; end < 100; end++) {
+        if (expected[start][end] == -1) {
+          final int from = start;
+          final int to = end;
+          Assertions.assertThrows(NoSuchElementException.class,
+              () -> graph.shortestPathData(from, to));
+          continue;
+        }
+        Assertions.assertEquals(expected[start][end], graph.shortestPathCost(start, end));
+        List<Integer> path = graph.shortestPathData(start, end);
+        int sum = 0;
+        for (int i = 1; i < path.size(); i++)
+          sum += graph.getEdge(path.get(i - 1), path.get(i));
+        Assertions.assertEquals(expected[start][end], sum);
+        Assertions.assertEquals(start, path.get(0));
+        Assertions.assertEquals(end, path.get(path.size() - 1));
+      }
+    }
+    // in a complete graph with equal weights, every path through a node has a direct witness
+    DijkstraGraph<Integer, Integer> complete = new DijkstraGraph<>();
+    for (int node = 0; node < 10; node++)
+      complete.insertNode(node);
+    for (int pred = 0; pred < 10; pred++)
+      for (int succ = 0; succ < 10; succ++)
+        if (pred != succ)
+          complete.insertEdge(pred, succ, 1);
+    Assertions.assertEquals(0, complete.prepareContractionHierarchy().getShortcutCount());
+  }
+
+  @Test
+  public void test10() {
+    // every entry of a distance matrix matches the cost of a single query
+    DijkstraGraph<Integer, Integer> graph = new DijkstraGraph<>();
+    Random random = new Random(10);
+    for (int node = 0; node < 50; node++)
+      graph.insertNode(node);
+    for (int edge = 0; edge < 150; edge++)
+      graph.insertEdge(random.nextInt(50), random.nextInt(50), 1 + random.nextInt(9));
+    List<Integer> sources = List.of(0, 7, 7, 49, 13);
+    List<Integer> targets = List.of(3, 0, 49, 21, 3, 8);
+    ForkJoinPool pool = new ForkJoinPool(3);
+    double[][] matrix;
+    try {
+      matrix = graph.distanceMatrix(sources, targets, pool);
+    } finally {
+      pool.shutdown();
+    }
+    Assertions.assertEquals(sources.size(), matrix.length);
+    for (int i = 0; i < sources.size(); i++) {
+      Assertions.assertEquals(targets.size(), matrix[i].length);
+      for (int j = 0; j < targets.size(); j++) {
+        ShortestPathTree<Integer> tree = graph.shortestPathTree(sources.get(i));
+        double expected = tree.isReachable(targets.get(j)) ? tree.getCost(targets.get(j))
+            : Double.POSITIVE_INFINITY;
+        Assertions.assertEquals(expected, matrix[i][j]);
+      }
+    }
+    Assertions.assertThrows(NoSuchElementException.class,
+        () -> graph.distanceMatrix(List.of(0), List.of(99)));
+  }
+
+  @Test
+  public void test11() {
+    // cached results match uncached ones, and are evicted and invalidated as configured
+    DijkstraGraph<Integer, Integer> graph = new DijkstraGraph<>();
+    DijkstraGraph<Integer, Integer> uncached = new DijkstraGraph<>();
+    Random random = new Random(11);
+    for (int node = 0; node < 30; node++) {
+      graph.insertNode(node);
+      uncached.insertNode(node);
+    }
+    for (int edge = 0; edge < 90; edge++) {
+      int pred = random.nextInt(30);
+      int succ = random.nextInt(30);
+      int weight = 1 + random.nextInt(9);
+      graph.insertEdge(pred, succ, weight);
+      uncached.insertEdge(pred, succ, weight);
+    }
+    ShortestPathCache<Integer> lru = new ShortestPathCache<>(2, ShortestPathCache.Eviction.LRU);
+    graph.setCache(lru);
+    Assertions.assertEquals(uncached.shortestPathCost(0, 5), graph.shortestPathCost(0, 5));
+    Assertions.assertEquals(uncached.shortestPathData(0, 5), graph.shortestPathData(0, 5));
+    graph.shortestPathCost(1, 5);
+    graph.shortestPathCost(0, 5); // (1, 5) is now the least recently used
+    graph.shortestPathCost(2, 5);
+    Assertions.assertEquals(2, lru.getHits());
+    Assertions.assertEquals(1, lru.getEvictions());
+    graph.shortestPathCost(0, 5);
+    graph.shortestPathCost(1, 5);
+    Assertions.assertEquals(3, lru.getHits());
+    Assertions.assertEquals(4, lru.getMisses());
+
+    ShortestPathCache<Integer> lfu = new ShortestPathCache<>(2, ShortestPathCache.Eviction.LFU);
+    graph.setCache(lfu);
+    graph.shortestPathCost(0, 5);
+    graph.shortestPathCost(0, 5);
+    graph.shortestPathCost(1, 5);
+    graph.shortestPathCost(2, 5); // evicts (1, 5), which was used less often than (0, 5)
+    graph.shortestPathCost(0, 5);
+    graph.shortestPathCost(1, 5);
+    Assertions.assertEquals(2, lfu.getHits());
+    Assertions.assertEquals(2, lfu.getEvictions());
+
+    // a hot source has its whole tree cached, so every destination from it hits
+    ShortestPathCache<Integer> trees =
+        new ShortestPathCache<>(4, ShortestPathCache.Eviction.LRU, 1, 2);
+    graph.setCache(trees);
+    graph.shortestPathCost(3, 4);
+    graph.shortestPathCost(3, 6);
+    Assertions.assertEquals(1, trees.getTreeCount());
+    ShortestPathTree<Integer> expected = uncached.shortestPathTree(3);
+    for (int end = 0; end < 30; end++) {
+      final int target = end;
+      if (expected.isReachable(end))
+        Assertions.assertEquals(expected.getCost(end), graph.shortestPathCost(3, end));
+      else
+        Assertions.assertThrows(NoSuchElementException.class,
+            () -> graph.shortestPathCost(3, target));
+    }
+    Assertions.assertEquals(30, trees.getHits());
+
+    // modifying the graph drops every cached result
+    graph.insertEdge(3, 4, 100);
+    uncached.insertEdge(3, 4, 100);
+    Assertions.assertEquals(uncached.shortestPathCost(3, 4), graph.shortestPathCost(3, 4));
+    Assertions.assertEquals(1, trees.getInvalidations());
+    Assertions.assertEquals(0, trees.getTreeCount());
+  }
+
+  @Test
+  public void test12() {
+    // node data is interned to dense ids, which are reused after removal and stay consistent
+    // with the paths that searches over those ids return
+    DijkstraGraph<String, Integer> graph = new DijkstraGraph<>();
+    for (int node = 0; node < 100; node++)
+      graph.insertNode("node" + node);
+    for (int node = 0; node < 100; node++) {
+      Assertions.assertEquals(node, graph.getNodeId("node" + node));
+      Assertions.assertEquals("node" + node, graph.getNodeData(node));
+    }
+    Assertions.assertEquals(-1, graph.getNodeId("missing"));
+    Assertions.assertNull(graph.getNodeData(100));
+    graph.removeNode("node40");
+    Assertions.assertEquals(-1, graph.getNodeId("node40"));
+    Assertions.assertNull(graph.getNodeData(40));
+    graph.insertNode("new");
+    Assertions.assertEquals(40, graph.getNodeId("new"));
+    Assertions.assertEquals(99, graph.getNodeId("node99"));
+    for (int node = 1; node < 100; node++)
+      graph.insertEdge(node == 41 ? "new" : "node" + (node - 1), node == 40 ? "new" : "node" + node,
+          node);
+    Assertions.assertFalse(graph.insertEdge("node1", "missing", 1));
+    Assertions.assertEquals(List.of("node39", "new", "node41"),
+        graph.shortestPathData("node39", "node41").subList(0, 3));
+    Assertions.assertThrows(NoSuchElementException.class, () -> graph.getEdge("node39", "node40"));
+  }
+
+  @Test
+  public void test13() {
+    // edges of a hub node are found through its successor index, which stays in step with
+    // inserted, updated and removed edges and nodes
+    DijkstraGraph<Integer, Integer> graph = new DijkstraGraph<>();
+    for (int node = 0; node < 100; node++)
+      graph.insertNode(node);
+    for (int node = 1; node < 100; node++)
+      graph.insertEdge(0, node, node);
+    Assertions.assertEquals(99, graph.getEdgeCount());
+    Assertions.assertTrue(graph.insertEdge(0, 50, 7)); // updates the existing edge
+    Assertions.assertEquals(99, graph.getEdgeCount());
+    Assertions.assertEquals(7, graph.getEdge(0, 50));
+    Assertions.assertTrue(graph.removeEdge(0, 60));
+    Assertions.assertFalse(graph.removeEdge(0, 60));
+    Assertions.assertFalse(graph.containsEdge(0, 60));
+    Assertions.assertThrows(NoSuchElementException.class, () -> graph.getEdge(0, 60));
+    graph.removeNode(70);
+    graph.insertNode(1000); // reuses the id of node 70
+    Assertions.assertFalse(graph.containsEdge(0, 1000));
+    Assertions.assertFalse(graph.containsEdge(0, 70));
+    for (int node = 1; node < 100; node++)
+      if (node != 60 && node != 70)
+        Assertions.assertEquals(node == 50 ? 7 : node, graph.getEdge(0, node));
+    Assertions.assertEquals(7.0, graph.shortestPathCost(0, 50));
+  }
+
+  @Test
+  public void test14() {
+    // the maintained shortest path trees of registered sources stay equal to those of fresh
+    // searches through random edge and node changes, and each change only repairs the nodes
+    // whose paths it affects
+    DijkstraGraph<Integer, Double> graph = new DijkstraGraph<>();
+    DijkstraGraph<Integer, Double> expected = new DijkstraGraph<>();
+    Random random = new Random(18);
+    for (int node = 0; node < 60; node++) {
+      graph.insertNode(node);
+      expected.insertNode(node);
+    }
+    for (int source = 0; source < 3; source++)
+      graph.maintainShortestPathsFrom(source);
+    for (int step = 0; step < 3000; step++) {
+      int a = random.nextInt(62);
+      int b = random.nextInt(62);
+      int operation = random.nextInt(100);
+      if (operation < 60) {
+        double weight = random.nextInt(100);
+        Assertions.assertEquals(expected.insertEdge(a, b, weight), graph.insertEdge(a, b, weight));
+      } else if (operation < 95) {
+        Assertions.assertEquals(expected.removeEdge(a, b), graph.removeEdge(a, b));
+      } else if (operation < 98) {
+        Assertions.assertEquals(expected.removeNode(a + 3), graph.removeNode(a + 3));
+      } else {
+        Assertions.assertEquals(expected.insertNode(a), graph.insertNode(a));
+      }
+      if (step % 100 == 99) {
+        for (int source = 0; source < 3; source++) {
+          ShortestPathTree<Integer> tree = graph.shortestPathTree(source);
+          ShortestPathTree<Integer> fresh = expected.shortestPathTree(source);
+          for (int node = 0; node < 62; node++) {
+            Assertions.assertEquals(fresh.isReachable(node), tree.isReachable(node));
+            if (fresh.isReachable(node)) {
+              Assertions.assertEquals(fresh.getCost(node), tree.getCost(node), 1e-9);
+              Assertions.assertEquals(fresh.getCost(node), graph.shortestPathCost(source, node),
+                  1e-9);
+              Assertions.assertEquals(node, graph.shortestPathData(source, node)
+                  .get(graph.shortestPathData(source, node).size() - 1));
+            }
+          }
+        }
+      }
+    }
+    // along a chain, changing one of the last edges repairs just the nodes after it
+    DijkstraGraph<Integer, Double> chain = new DijkstraGraph<>();
+    for (int node = 0; node < 1000; node++)
+      chain.insertNode(node);
+    for (int node = 1; node < 1000; node++)
+      chain.insertEdge(node - 1, node, 1.0);
+    chain.maintainShortestPathsFrom(0);
+    chain.insertEdge(995, 996, 5.0);
+    chain.insertEdge(997, 998, 0.5);
+    chain.removeEdge(998, 999);
+    Assertions.assertEquals(3, chain.getDynamicShortestPaths().getUpdateCount());
+    Assertions.assertEquals(4 + 2 + 0, chain.getDynamicShortestPaths().getRepairedCount());
+    Assertions.assertEquals(1001.5, chain.shortestPathCost(0, 998));
+    Assertions.assertThrows(NoSuchElementException.class, () -> chain.shortestPathCost(0, 999));
+    Assertions.assertTrue(chain.stopMaintainingShortestPathsFrom(0));
+    Assertions.assertFalse(chain.stopMaintainingShortestPathsFrom(0));
+  }
+
+  @Test
+  public void test15() {
+    // metrics count the work of each query: one key decrease when a cheaper path to a reached
+    // node is found, and a query without a path counts as unreachable
+    DijkstraGraph<Integer, Double> graph = new DijkstraGraph<>();
+    for (int node = 0; node < 5; node++)
+      graph.insertNode(node);
+    graph.insertEdge(0, 1, 10.0);
+    graph.insertEdge(0, 2, 1.0);
+    graph.insertEdge(2, 1, 1.0);
+    graph.insertEdge(1, 3, 1.0);
+    SearchMetrics metrics = new SearchMetrics();
+    graph.setMetrics(metrics);
+    Assertions.assertEquals(3.0, graph.shortestPathCost(0, 3));
+    Assertions.assertEquals(1, metrics.getQueryCount());
+    Assertions.assertEquals(0, metrics.getUnreachableCount());
+    Assertions.assertEquals(4, metrics.getPathNodeCount());
+    Assertions.assertEquals(4, metrics.getSettledCount());
+    Assertions.assertEquals(4, metrics.getPushCount());
+    Assertions.assertEquals(1, metrics.getDecreaseCount());
+    Assertions.assertThrows(NoSuchElementException.class, () -> graph.shortestPathCost(0, 4));
+    Assertions.assertEquals(2, metrics.getQueryCount());
+    Assertions.assertEquals(1, metrics.getUnreachableCount());
+    graph.setMetrics(null);
+    graph.shortestPathCost(0, 3);
+    Assertions.assertEquals(2, metrics.getQueryCount());
+  }
+
+  @Test
+  public void test16() {
+    // the eccentricity table finds the same furthest destinations as searches from each node, and
+    // is rebuilt in the background once the graph changes
+    DijkstraGraph<Integer, Double> graph = new DijkstraGraph<>();
+    Random random = new Random(25);
+    for (int node = 0; node < 200; node++)
+      graph.insertNode(node);
+    for (int edge = 0; edge < 500; edge++)
+      graph.insertEdge(random.nextInt(200), random.nextInt(200), (double) random.nextInt(20));
+    EccentricityTable table = graph.prepareEccentricities();
+    for (int node = 0; node < 200; node++) {
+      int start = node;
+      ShortestPathTree<Integer> tree = graph.shortestPathTree(start);
+      try {
+        Integer furthest = tree.getFurthest();
+        Assertions.assertEquals(furthest, graph.getFurthestFrom(start));
+        Assertions.assertEquals(tree.getCost(furthest), table.getDistance(graph.getNodeId(start)));
+      } catch (NoSuchElementException e) {
+        Assertions.assertThrows(NoSuchElementException.class, () -> graph.getFurthestFrom(start));
+        Assertions.assertEquals(-1, table.getFurthest(graph.getNodeId(start)));
+      }
+    }
+    Assertions.assertThrows(NoSuchElementException.class, () -> graph.getFurthestFrom(1000));
+    // a stale table is not used, and the first lookup after a change starts a rebuild
+    graph.insertNode(200);
+    graph.insertEdge(0, 200, 1000.0);
+    Assertions.assertFalse(table.isValidFor(graph.searchGraph()));
+    Assertions.assertNull(graph.getEccentricityRebuild());
+    Assertions.assertEquals(200, graph.getFurthestFrom(0));
+    EccentricityTable rebuilt = graph.getEccentricityRebuild().join();
+    Assertions.assertSame(rebuilt, graph.getEccentricities());
+    Assertions.assertNotSame(table, rebuilt);
+    Assertions.assertTrue(graph.getEccentricities().isValidFor(graph.freeze()));
+    Assertions.assertEquals(200, graph.getFurthestFrom(0));
+  }
+
+  @Test
+  public void test17() {
+    // graphs built on each MapADT give their nodes the same ids, and hold the same edges, through
+    // random insertions and removals of nodes
+    List<BaseGraph<Integer, Integer>> graphs = List.of(new DijkstraGraph<>(),
+        new BaseGraph<>(new ConcurrentHashtableMap<>()), new BaseGraph<>(new HashtableMap<>()));
+    Random random = new Random(17);
+    for (int step = 0; step < 2000; step++) {
+      int node = random.nextInt(60);
+      int other = random.nextInt(60);
+      int weight = 1 + random.nextInt(20);
+      boolean remove = random.nextInt(10) == 0;
+      for (BaseGraph<Integer, Integer> graph : graphs) {
+        if (remove) {
+          graph.removeNode(node);
+        } else {
+          graph.insertNode(node);
+          graph.insertNode(other);
+          graph.insertEdge(node, other, weight);
+        }
+      }
+    }
+    BaseGraph<Integer, Integer> expected = graphs.get(0);
+    for (BaseGraph<Integer, Integer> graph : graphs) {
+      Assertions.assertEquals(expected.getNodeCount(), graph.getNodeCount());
+      Assertions.assertEquals(expected.getEdgeCount(), graph.getEdgeCount());
+      for (int node = 0; node < 60; node++) {
+        Assertions.assertEquals(expected.getNodeId(node), graph.getNodeId(node));
+        for (int other = 0; other < 60; other++) {
+          Assertions.assertEquals(expected.containsEdge(node, other),
+              graph.containsEdge(node, other));
+          if (expected.containsEdge(node, other))
+            Assertions.assertEquals(expected.getEdge(node, other), graph.getEdge(node, other));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void test18() {
+    // loading arrays of nodes and edges in one pass gives the same graph as inserting them one at a
+    // time, including repeated nodes and edges, self loops and nodes with many successors
+    Random random = new Random(18);
+    Integer[] nodes = new Integer[300];
+    for (int i = 0; i < nodes.length; i++)
+      nodes[i] = random.nextInt(250);
+    int[] sources = new int[3000];
+    int[] targets = new int[3000];
+    double[] weights = new double[3000];
+    for (int i = 0; i < sources.length; i++) {
+      sources[i] = random.nextInt(10) == 0 ? 0 : random.nextInt(nodes.length);
+      targets[i] = random.nextInt(nodes.length);
+      weights[i] = random.nextInt(100);
+    }
+    DijkstraGraph<Integer, Double> inserted = new DijkstraGraph<>();
+    for (Integer node : nodes)
+      inserted.insertNode(node);
+    for (int i = 0; i < sources.length; i++)
+      inserted.insertEdge(nodes[sources[i]], nodes[targets[i]], weights[i]);
+    DijkstraGraph<Integer, Double> loaded = new DijkstraGraph<>();
+    loaded.insertNode(-1);
+    loaded.insertEdge(-1, -1, 5.0);
+    loaded.load(nodes, sources, targets, i -> weights[i]);
+    Assertions.assertEquals(inserted.getNodeCount(), loaded.getNodeCount());
+    Assertions.assertEquals(inserted.getEdgeCount(), loaded.getEdgeCount());
+    Assertions.assertEquals(inserted.getAllNodes(), loaded.getAllNodes());
+    Assertions.assertFalse(loaded.containsNode(-1));
+    for (Integer pred : inserted.getAllNodes()) {
+      Assertions.assertEquals(inserted.getNodeId(pred), loaded.getNodeId(pred));
+      for (Integer succ : inserted.getAllNodes()) {
+        Assertions.assertEquals(inserted.containsEdge(pred, succ), loaded.containsEdge(pred, succ));
+        if (inserted.containsEdge(pred, succ))
+          Assertions.assertEquals(inserted.getEdge(pred, succ), loaded.getEdge(pred, succ));
+      }
+      Assertions.assertEquals(inserted.shortestPathTree(pred).getFurthest(),
+          loaded.shortestPathTree(pred).getFurthest());
+    }
+    // an edge that refers to no node leaves the graph unchanged
+    Assertions.assertThrows(IndexOutOfBoundsException.class,
+        () -> loaded.load(nodes, new int[] {0}, new int[] {nodes.length}, i -> 1.0));
+    Assertions.assertEquals(inserted.getEdgeCount(), loaded.getEdgeCount());
+  }
 }
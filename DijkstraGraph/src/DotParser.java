@@ -0,0 +1,609 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * This class reads the edges of a graph from a DOT file, such as campus.dot. The file is memory
+ * mapped and split into chunks that start at line boundaries, and the chunks are parsed in
+ * parallel directly from their bytes. Each chunk decodes every distinct node name it contains only
+ * once, and parses edge weights without creating Strings, so parsing allocates little beyond the
+ * arrays of the result. The chunks are then merged in file order, so the result is the same as if
+ * the file had been read from start to end.
+ *
+ * Every edge statement must be on a single line, like:
+ *
+ * "Memorial Union" -> "Science Hall" [seconds=105.8];
+ *
+ * Names can be quoted (with \" escaping a quote) or bare identifiers, there may be any amount of
+ * whitespace between tokens, several statements may share a line when separated by semicolons,
+ * and the attribute list may hold other attributes, separated by commas or semicolons, as long as
+ * it includes the weight attribute. Statements other than edges, and lines starting with // or #,
+ * are skipped.
+ */
+public class DotParser {
+
+  /**
+   * The edges of a parsed graph. Nodes are numbered in the order that they first appear in the
+   * file, and edges are in the order of the file too.
+   */
+  public static class ParsedGraph {
+    public final String[] names; // the name of each node
+    public final int[] sources; // the node that each edge leaves
+    public final int[] targets; // the node that each edge enters
+    public final double[] weights; // the weight of each edge
+
+    public ParsedGraph(String[] names, int[] sources, int[] targets, double[] weights) {
+      this.names = names;
+      this.sources = sources;
+      this.targets = targets;
+      this.weights = weights;
+    }
+  }
+
+  // the edge attribute that holds the weight of an edge
+  public static final String WEIGHT_ATTRIBUTE = "seconds";
+  private static final byte[] WEIGHT_KEY = WEIGHT_ATTRIBUTE.getBytes(StandardCharsets.US_ASCII);
+
+  // files are split into chunks of at least this many bytes, and of at most this many unless
+  // that would leave fewer chunks than can be parsed at once
+  private static final long MIN_CHUNK_BYTES = 1 << 20;
+  private static final long MAX_CHUNK_BYTES = 1 << 26;
+  // each chunk maps this many bytes past its end, which is the longest that its last line may be
+  private static final long MAX_LINE_BYTES = 1 << 24;
+
+  /**
+   * Parses a DOT file on the common ForkJoinPool.
+   *
+   * @param filename the path of the file
+   * @return the nodes and edges in the file
+   * @throws IOException if the file cannot be read, or an edge statement cannot be parsed
+   */
+  public static ParsedGraph parse(String filename) throws IOException {
+    return parse(filename, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Parses a DOT file, with one task per chunk on the provided pool.
+   *
+   * @param filename the path of the file
+   * @param pool     the pool that parses the chunks
+   * @return the nodes and edges in the file
+   * @throws IOException if the file cannot be read, or an edge statement cannot be parsed
+   */
+  public static ParsedGraph parse(String filename, ForkJoinPool pool) throws IOException {
+    Path path = Paths.get(filename);
+    if (!Files.isRegularFile(path))
+      throw new NoSuchFileException(filename);
+    Chunk[] chunks;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      int count = (int) Math.max((size + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES,
+          Math.max(1, Math.min(size / MIN_CHUNK_BYTES, pool.getParallelism() * 8L)));
+      long chunkBytes = (size + count - 1) / count;
+      try {
+        chunks = pool.submit(() -> IntStream.range(0, count).parallel().mapToObj(i -> {
+          long begin = Math.min(size, i * chunkBytes);
+          long end = Math.min(size, begin + chunkBytes);
+          try {
+            Chunk chunk = new Chunk(channel, begin, end, size);
+            chunk.parse();
+            return chunk;
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        }).toArray(Chunk[]::new)).get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("interrupted while parsing " + filename, e);
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof UncheckedIOException)
+          throw ((UncheckedIOException) e.getCause()).getCause();
+        throw new IOException("unable to parse " + filename, e.getCause());
+      }
+    }
+    return merge(chunks);
+  }
+
+  // numbers the nodes of all chunks by their first appearance, and concatenates their edges
+  private static ParsedGraph merge(Chunk[] chunks) {
+    NodeDictionary<String> dictionary = new NodeDictionary<>();
+    int edgeCount = 0;
+    for (Chunk chunk : chunks)
+      edgeCount += chunk.edgeCount;
+    int[] sources = new int[edgeCount];
+    int[] targets = new int[edgeCount];
+    double[] weights = new double[edgeCount];
+    int edge = 0;
+    for (Chunk chunk : chunks) {
+      int[] global = new int[chunk.nameCount];
+      for (int local = 0; local < chunk.nameCount; local++)
+        global[local] = dictionary.intern(chunk.names[local]);
+      for (int i = 0; i < chunk.edgeCount; i++, edge++) {
+        sources[edge] = global[chunk.sources[i]];
+        targets[edge] = global[chunk.targets[i]];
+        weights[edge] = chunk.weights[i];
+      }
+    }
+    String[] names = new String[dictionary.getIdBound()];
+    for (int id = 0; id < names.length; id++)
+      names[id] = dictionary.getData(id);
+    return new ParsedGraph(names, sources, targets, weights);
+  }
+
+  // the nodes and edges of the lines that start within one range of a file
+  private static class Chunk {
+    private final MappedByteBuffer buffer;
+    // the mapped bytes, copied out in bulk while parsing, since reading a mapped buffer a byte at
+    // a time costs several times as much as reading an array
+    private byte[] bytes;
+    private final long offset; // the file position of index 0
+    private final int end; // lines starting before this index belong to this chunk
+    private final int limit; // the index of the end of the mapping
+    private final boolean mapsToEndOfFile;
+    private final boolean startsAfterLineStart; // whether index 0 is the byte before the chunk
+
+    // the chunk's own numbering of names, in order of first appearance, with a hash table of
+    // (local id + 1) keyed by the raw bytes of each name
+    private String[] names = new String[64];
+    private int[] nameStarts = new int[64];
+    private int[] nameLengths = new int[64];
+    private int[] nameHashes = new int[64];
+    private int nameCount = 0;
+    private int[] nameSlots = new int[128];
+
+    private int[] sources = new int[256];
+    private int[] targets = new int[256];
+    private double[] weights = new double[256];
+    private int edgeCount = 0;
+
+    // the extent of the last token read by readName
+    private int tokenStart;
+    private int tokenEnd;
+    private boolean tokenEscaped;
+    // the weight found by the last call to parseAttributes
+    private double weight;
+
+    public Chunk(FileChannel channel, long begin, long end, long size) throws IOException {
+      // map one byte before the chunk too, to tell whether it starts at the start of a line
+      long mapStart = Math.max(0, begin - 1);
+      long mapEnd = Math.min(size, Math.min(end + MAX_LINE_BYTES, mapStart + Integer.MAX_VALUE));
+      this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, mapStart, mapEnd - mapStart);
+      this.offset = mapStart;
+      this.end = (int) (end - mapStart);
+      this.limit = (int) (mapEnd - mapStart);
+      this.mapsToEndOfFile = mapEnd == size;
+      this.startsAfterLineStart = begin > 0;
+    }
+
+    public void parse() throws IOException {
+      // copy up to the end of the last line that starts in this chunk, rather than the whole
+      // mapping, which reaches far past it so that any line fits
+      int copyEnd = end;
+      while (copyEnd < limit && buffer.get(copyEnd) != '\n')
+        copyEnd++;
+      bytes = new byte[Math.min(limit, copyEnd + 1)];
+      buffer.get(0, bytes);
+      try {
+        parseLines();
+      } finally {
+        bytes = null;
+      }
+    }
+
+    private void parseLines() throws IOException {
+      int pos = 0;
+      // a chunk that starts part way through a line leaves that line to the chunk before it
+      if (startsAfterLineStart) {
+        while (pos < bytes.length && bytes[pos] != '\n')
+          pos++;
+        pos++;
+      }
+      while (pos < end) {
+        int lineEnd = pos;
+        while (lineEnd < bytes.length && bytes[lineEnd] != '\n')
+          lineEnd++;
+        if (lineEnd == limit && !mapsToEndOfFile)
+          throw error(pos, "line is longer than " + MAX_LINE_BYTES + " bytes");
+        parseLine(pos, lineEnd);
+        pos = lineEnd + 1;
+      }
+    }
+
+    // parses every statement on one line
+    private void parseLine(int pos, int lineEnd) throws IOException {
+      while (true) {
+        pos = skip(pos, lineEnd, true);
+        if (pos >= lineEnd)
+          return;
+        byte first = bytes[pos];
+        if (first == '#' || (first == '/' && pos + 1 < lineEnd && bytes[pos + 1] == '/'))
+          return;
+        int statement = pos;
+        pos = readName(pos, lineEnd);
+        if (pos == -1) {
+          pos = skipStatement(statement, lineEnd);
+          continue;
+        }
+        int sourceStart = tokenStart;
+        int sourceEnd = tokenEnd;
+        boolean sourceEscaped = tokenEscaped;
+        pos = skip(pos, lineEnd, false);
+        if (pos + 1 >= lineEnd || bytes[pos] != '-' || bytes[pos + 1] != '>') {
+          // a graph header, node statement or graph attribute
+          pos = skipStatement(pos, lineEnd);
+          continue;
+        }
+        pos = readName(skip(pos + 2, lineEnd, false), lineEnd);
+        if (pos == -1)
+          throw error(statement, "expected a node name after ->");
+        int source = intern(sourceStart, sourceEnd, sourceEscaped);
+        int target = intern(tokenStart, tokenEnd, tokenEscaped);
+        pos = skip(pos, lineEnd, false);
+        if (pos >= lineEnd || bytes[pos] != '[')
+          throw error(statement, "expected an attribute list with " + WEIGHT_ATTRIBUTE);
+        pos = parseAttributes(pos + 1, lineEnd, statement);
+        addEdge(source, target, weight);
+      }
+    }
+
+    // parses an attribute list up to and including its closing ], and sets weight
+    private int parseAttributes(int pos, int lineEnd, int statement) throws IOException {
+      boolean found = false;
+      while (true) {
+        pos = skip(pos, lineEnd, false);
+        while (pos < lineEnd && (bytes[pos] == ',' || bytes[pos] == ';'))
+          pos = skip(pos + 1, lineEnd, false);
+        if (pos >= lineEnd)
+          throw error(statement, "unterminated attribute list");
+        if (bytes[pos] == ']') {
+          if (!found)
+            throw error(statement, "edge has no " + WEIGHT_ATTRIBUTE + " attribute");
+          return pos + 1;
+        }
+        pos = readName(pos, lineEnd);
+        if (pos == -1)
+          throw error(statement, "expected an attribute name");
+        boolean isWeight = !tokenEscaped && matches(tokenStart, tokenEnd, WEIGHT_KEY);
+        pos = skip(pos, lineEnd, false);
+        if (pos >= lineEnd || bytes[pos] != '=')
+          throw error(statement, "expected = after an attribute name");
+        pos = readName(skip(pos + 1, lineEnd, false), lineEnd);
+        if (pos == -1)
+          throw error(statement, "expected an attribute value");
+        if (isWeight) {
+          weight = parseDouble(tokenStart, tokenEnd, statement);
+          found = true;
+        }
+      }
+    }
+
+    // reads a quoted string or a bare identifier or number, and returns the position after it,
+    // or -1 when there is no such token at pos
+    private int readName(int pos, int lineEnd) throws IOException {
+      if (pos >= lineEnd)
+        return -1;
+      if (bytes[pos] == '"') {
+        tokenStart = pos + 1;
+        tokenEscaped = false;
+        for (pos = tokenStart; pos < lineEnd; pos++) {
+          byte b = bytes[pos];
+          if (b == '\\') {
+            tokenEscaped = true;
+            pos++;
+          } else if (b == '"') {
+            tokenEnd = pos;
+            return pos + 1;
+          }
+        }
+        throw error(tokenStart - 1, "unterminated quoted string");
+      }
+      tokenStart = pos;
+      tokenEscaped = false;
+      // a numeral may start with a sign, and have a signed exponent
+      byte first = bytes[pos];
+      boolean numeral = (first >= '0' && first <= '9') || first == '.' || first == '-'
+          || first == '+';
+      if (first == '-' || first == '+')
+        pos++;
+      while (pos < lineEnd) {
+        byte b = bytes[pos];
+        if (isIdentifierByte(b))
+          pos++;
+        else if (numeral && (b == '-' || b == '+')
+            && (bytes[pos - 1] == 'e' || bytes[pos - 1] == 'E'))
+          pos++;
+        else
+          break;
+      }
+      tokenEnd = pos;
+      if (pos == tokenStart + 1 && !isIdentifierByte(first))
+        return -1; // a lone sign
+      return pos == tokenStart ? -1 : pos;
+    }
+
+    // skips whitespace, and also statement separators and braces when between statements
+    private int skip(int pos, int lineEnd, boolean separators) {
+      while (pos < lineEnd) {
+        byte b = bytes[pos];
+        if (b == ' ' || b == '\t' || b == '\r'
+            || (separators && (b == ';' || b == '{' || b == '}')))
+          pos++;
+        else
+          break;
+      }
+      return pos;
+    }
+
+    // skips to the end of a statement that is not an edge, without stopping inside quotes
+    private int skipStatement(int pos, int lineEnd) {
+      boolean quoted = false;
+      for (; pos < lineEnd; pos++) {
+        byte b = bytes[pos];
+        if (quoted && b == '\\')
+          pos++;
+        else if (b == '"')
+          quoted = !quoted;
+        else if (!quoted && b == ';')
+          return pos + 1;
+      }
+      return pos;
+    }
+
+    // finds the local id of the name with the raw bytes from start to end, adding it if needed
+    private int intern(int start, int end, boolean escaped) {
+      int length = end - start;
+      int hash = 0;
+      for (int pos = start; pos < end; pos++)
+        hash = hash * 31 + bytes[pos];
+      hash ^= hash >>> 16;
+      int mask = nameSlots.length - 1;
+      int slot = hash & mask;
+      for (int entry = nameSlots[slot]; entry != 0; entry = nameSlots[slot]) {
+        int id = entry - 1;
+        if (nameHashes[id] == hash && nameLengths[id] == length
+            && equalBytes(start, nameStarts[id], length))
+          return id;
+        slot = (slot + 1) & mask;
+      }
+      int id = nameCount++;
+      if (id == names.length) {
+        names = Arrays.copyOf(names, id * 2);
+        nameStarts = Arrays.copyOf(nameStarts, id * 2);
+        nameLengths = Arrays.copyOf(nameLengths, id * 2);
+        nameHashes = Arrays.copyOf(nameHashes, id * 2);
+      }
+      names[id] = decode(start, end, escaped);
+      nameStarts[id] = start;
+      nameLengths[id] = length;
+      nameHashes[id] = hash;
+      nameSlots[slot] = id + 1;
+      if (nameCount * 2 > nameSlots.length)
+        rehashNames();
+      return id;
+    }
+
+    private void rehashNames() {
+      nameSlots = new int[nameSlots.length * 2];
+      int mask = nameSlots.length - 1;
+      for (int id = 0; id < nameCount; id++) {
+        int slot = nameHashes[id] & mask;
+        while (nameSlots[slot] != 0)
+          slot = (slot + 1) & mask;
+        nameSlots[slot] = id + 1;
+      }
+    }
+
+    // decodes the UTF-8 bytes of a name, removing the backslashes of escaped quotes
+    private String decode(int start, int end, boolean escaped) {
+      if (escaped) {
+        byte[] unescaped = new byte[end - start];
+        int length = 0;
+        for (int i = start; i < end; i++) {
+          if (bytes[i] == '\\' && i + 1 < end && bytes[i + 1] == '"')
+            i++;
+          unescaped[length++] = bytes[i];
+        }
+        return new String(unescaped, 0, length, StandardCharsets.UTF_8);
+      }
+      return new String(bytes, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    private void addEdge(int source, int target, double weight) {
+      if (edgeCount == sources.length) {
+        sources = Arrays.copyOf(sources, edgeCount * 2);
+        targets = Arrays.copyOf(targets, edgeCount * 2);
+        weights = Arrays.copyOf(weights, edgeCount * 2);
+      }
+      sources[edgeCount] = source;
+      targets[edgeCount] = target;
+      weights[edgeCount] = weight;
+      edgeCount++;
+    }
+
+    private boolean equalBytes(int start, int otherStart, int length) {
+      for (int i = 0; i < length; i++)
+        if (bytes[start + i] != bytes[otherStart + i])
+          return false;
+      return true;
+    }
+
+    private boolean matches(int start, int end, byte[] expected) {
+      if (end - start != expected.length)
+        return false;
+      for (int i = 0; i < expected.length; i++)
+        if (bytes[start + i] != expected[i])
+          return false;
+      return true;
+    }
+
+    // parses a decimal number from bytes, only creating a String for numbers outside the fast
+    // paths, such as those with more than 19 significant digits
+    private double parseDouble(int start, int end, int statement) throws IOException {
+      int pos = start;
+      boolean negative = false;
+      if (pos < end && (bytes[pos] == '-' || bytes[pos] == '+'))
+        negative = bytes[pos++] == '-';
+      long mantissa = 0;
+      int digits = 0; // significant digits in mantissa
+      int exponent = 0; // decimal exponent of the last digit in mantissa
+      boolean truncated = false;
+      boolean anyDigits = false;
+      boolean fraction = false;
+      for (; pos < end; pos++) {
+        byte b = bytes[pos];
+        if (b >= '0' && b <= '9') {
+          anyDigits = true;
+          if (digits < 19) {
+            mantissa = mantissa * 10 + (b - '0');
+            if (mantissa != 0)
+              digits++;
+            if (fraction)
+              exponent--;
+          } else {
+            truncated |= b != '0';
+            if (!fraction)
+              exponent++;
+          }
+        } else if (b == '.' && !fraction) {
+          fraction = true;
+        } else {
+          break;
+        }
+      }
+      if (pos < end && (bytes[pos] == 'e' || bytes[pos] == 'E')) {
+        pos++;
+        boolean negativeExponent = false;
+        if (pos < end && (bytes[pos] == '-' || bytes[pos] == '+'))
+          negativeExponent = bytes[pos++] == '-';
+        int value = 0;
+        int exponentStart = pos;
+        for (; pos < end && bytes[pos] >= '0' && bytes[pos] <= '9'; pos++)
+          value = Math.min(value * 10 + (bytes[pos] - '0'), 100000);
+        if (pos == exponentStart)
+          anyDigits = false;
+        exponent += negativeExponent ? -value : value;
+      }
+      if (!anyDigits || pos != end) {
+        // not a plain decimal number, such as infinity, or malformed
+        try {
+          return Double.parseDouble(decode(start, end, false));
+        } catch (NumberFormatException e) {
+          throw error(statement, "invalid " + WEIGHT_ATTRIBUTE + " value");
+        }
+      }
+      double value = truncated ? Double.NaN : toDouble(mantissa, exponent);
+      if (Double.isNaN(value))
+        return Double.parseDouble(decode(start, end, false));
+      return negative ? -value : value;
+    }
+
+    private static boolean isIdentifierByte(byte b) {
+      return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9')
+          || b == '_' || b == '.' || b < 0; // b < 0 for the bytes of non-ASCII characters
+    }
+
+    private IOException error(int pos, String message) {
+      return new IOException(message + " in the statement at byte " + (offset + pos));
+    }
+  }
+
+  // the smallest and largest decimal exponents in POWERS_OF_TEN
+  private static final int MIN_POWER = -348;
+  private static final int MAX_POWER = 347;
+  // the 128 most significant bits of each power of ten, rounded down, as {high, low} pairs
+  private static final long[] POWERS_OF_TEN = new long[2 * (MAX_POWER - MIN_POWER + 1)];
+  // the powers of ten that doubles represent exactly
+  private static final double[] EXACT_POWERS_OF_TEN = new double[23];
+
+  static {
+    BigInteger ten = BigInteger.TEN;
+    for (int power = MIN_POWER; power <= MAX_POWER; power++) {
+      BigInteger bits;
+      if (power >= 0) {
+        BigInteger value = ten.pow(power);
+        int shift = value.bitLength() - 128;
+        bits = shift > 0 ? value.shiftRight(shift) : value.shiftLeft(-shift);
+      } else {
+        BigInteger divisor = ten.pow(-power);
+        bits = BigInteger.ONE.shiftLeft(divisor.bitLength() + 127).divide(divisor);
+      }
+      int index = 2 * (power - MIN_POWER);
+      POWERS_OF_TEN[index] = bits.shiftRight(64).longValue();
+      POWERS_OF_TEN[index + 1] = bits.longValue();
+    }
+    for (int power = 0; power < EXACT_POWERS_OF_TEN.length; power++)
+      EXACT_POWERS_OF_TEN[power] = Math.pow(10, power);
+  }
+
+  /**
+   * Converts mantissa * 10^exponent to the nearest double, when that can be done quickly and
+   * exactly. Small values are converted with a single exact multiplication or division, and others
+   * with the algorithm of Eisel and Lemire, which multiplies the mantissa by a 128-bit
+   * approximation of the power of ten, and gives up in the rare cases where that approximation
+   * cannot tell which way to round.
+   *
+   * @param mantissa the significant digits, as an unsigned long
+   * @param exponent the decimal exponent
+   * @return the double nearest to the value, or NaN when it must be converted some other way
+   */
+  protected static double toDouble(long mantissa, int exponent) {
+    if (mantissa == 0)
+      return 0;
+    if (mantissa > 0 && mantissa < (1L << 53) && Math.abs(exponent) < EXACT_POWERS_OF_TEN.length)
+      return exponent >= 0 ? mantissa * EXACT_POWERS_OF_TEN[exponent]
+          : mantissa / EXACT_POWERS_OF_TEN[-exponent];
+    if (exponent < MIN_POWER || exponent > MAX_POWER)
+      return Double.NaN;
+    int leadingZeros = Long.numberOfLeadingZeros(mantissa);
+    mantissa <<= leadingZeros;
+    long binaryExponent = ((217706L * exponent) >> 16) + 64 + 1023 - leadingZeros;
+    int index = 2 * (exponent - MIN_POWER);
+    long high = multiplyHigh(mantissa, POWERS_OF_TEN[index]);
+    long low = mantissa * POWERS_OF_TEN[index];
+    if ((high & 0x1FF) == 0x1FF && Long.compareUnsigned(low + mantissa, mantissa) < 0) {
+      // widen the approximation with the next 64 bits of the power of ten
+      long nextHigh = multiplyHigh(mantissa, POWERS_OF_TEN[index + 1]);
+      long nextLow = mantissa * POWERS_OF_TEN[index + 1];
+      long mergedHigh = high;
+      long mergedLow = low + nextHigh;
+      if (Long.compareUnsigned(mergedLow, low) < 0)
+        mergedHigh++;
+      if ((mergedHigh & 0x1FF) == 0x1FF && mergedLow + 1 == 0
+          && Long.compareUnsigned(nextLow + mantissa, mantissa) < 0)
+        return Double.NaN;
+      high = mergedHigh;
+      low = mergedLow;
+    }
+    long topBit = high >>> 63;
+    long bits = high >>> (topBit + 9);
+    binaryExponent -= 1 ^ topBit;
+    if (low == 0 && (high & 0x1FF) == 0 && (bits & 3) == 1)
+      return Double.NaN; // exactly half way between two doubles
+    bits += bits & 1;
+    bits >>>= 1;
+    if (bits >>> 53 > 0) {
+      bits >>>= 1;
+      binaryExponent++;
+    }
+    if (binaryExponent <= 0 || binaryExponent >= 0x7FF)
+      return Double.NaN; // subnormal or infinite
+    return Double.longBitsToDouble(binaryExponent << 52 | (bits & 0x000FFFFFFFFFFFFFL));
+  }
+
+  // the high 64 bits of the unsigned 128-bit product of two longs
+  private static long multiplyHigh(long a, long b) {
+    return Math.multiplyHigh(a, b) + ((a >> 63) & b) + ((b >> 63) & a);
+  }
+}
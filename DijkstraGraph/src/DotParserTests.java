@@ -0,0 +1,209 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class DotParserTests {
+
+  /**
+   * tests that weights written in many forms are parsed to the same doubles as by
+   * Double.parseDouble, both through a file and by toDouble directly
+   */
+  @Test
+  public void test1() throws IOException {
+    Random random = new Random(15);
+    List<String> weights = new ArrayList<>();
+    for (int i = 0; i < 20000; i++)
+      weights.add(randomWeight(random));
+    weights.addAll(List.of("0", "-0.0", "+7", ".5", "5.", "1e5", "1E-5", "2.5e+3",
+        "12345678901234567890123", "0.000000000000000000000012345678901234567890",
+        "9007199254740993", "4.9e-324", "1.7976931348623157e308", "1e400", "Infinity"));
+    StringBuilder dot = new StringBuilder("digraph weights {\n");
+    for (int i = 0; i < weights.size(); i++) {
+      String weight = i % 7 == 0 ? "\"" + weights.get(i) + "\"" : weights.get(i);
+      dot.append("  a -> b [seconds=").append(weight).append("];\n");
+    }
+    dot.append("}\n");
+    DotParser.ParsedGraph parsed = DotParser.parse(write(dot.toString()));
+    Assertions.assertEquals(weights.size(), parsed.weights.length);
+    for (int i = 0; i < weights.size(); i++)
+      Assertions.assertEquals(Double.parseDouble(weights.get(i)), parsed.weights[i],
+          weights.get(i));
+
+    // toDouble either gives up, or finds the nearest double
+    for (int i = 0; i < 200000; i++) {
+      long mantissa = random.nextLong() >>> random.nextInt(64);
+      int exponent = random.nextInt(700) - 350;
+      double value = DotParser.toDouble(mantissa, exponent);
+      if (!Double.isNaN(value))
+        Assertions.assertEquals(Double.parseDouble(Long.toUnsignedString(mantissa) + "e"
+            + exponent), value, mantissa + "e" + exponent);
+    }
+  }
+
+  // a decimal number in one of the forms that edge weights are written in
+  private static String randomWeight(Random random) {
+    switch (random.nextInt(5)) {
+      case 0:
+        return Double.toString(random.nextDouble() * Math.pow(10, random.nextInt(40) - 20));
+      case 1:
+        return random.nextInt(100000) / 10.0 + "";
+      case 2:
+        return Double.toString(Double.longBitsToDouble(random.nextLong() & Long.MAX_VALUE));
+      case 3: {
+        // up to 40 digits, around an optional decimal point
+        StringBuilder digits = new StringBuilder(random.nextBoolean() ? "-" : "");
+        for (int i = random.nextInt(20); i >= 0; i--)
+          digits.append((char) ('0' + random.nextInt(10)));
+        if (random.nextBoolean()) {
+          digits.append('.');
+          for (int i = random.nextInt(20); i >= 0; i--)
+            digits.append((char) ('0' + random.nextInt(10)));
+        }
+        return digits.toString();
+      }
+      default:
+        return (random.nextInt(2000) - 1000) + "." + random.nextInt(1000) + "e"
+            + (random.nextInt(80) - 40);
+    }
+  }
+
+  /**
+   * tests that a file of 5MB, which a pool of 4 threads splits into 5 chunks whose boundaries
+   * fall part way through lines, gives the nodes it was written with, in order of first
+   * appearance, including quoted names with escaped quotes, and its edges, in file order
+   */
+  @Test
+  public void test2() throws IOException {
+    Random random = new Random(16);
+    List<String> names = new ArrayList<>();
+    for (int i = 0; i < 5000; i++)
+      names.add(random.nextInt(10) == 0 ? "Hall \\\"" + i + "\\\" Annex" : "Place " + i);
+    StringBuilder dot = new StringBuilder("digraph chunks {\n");
+    LinkedHashSet<String> expectedNames = new LinkedHashSet<>();
+    List<String[]> expectedEdges = new ArrayList<>();
+    while (dot.length() < 5 << 20) {
+      String source = names.get(random.nextInt(names.size()));
+      String target = names.get(random.nextInt(names.size()));
+      String weight = Double.toString(random.nextInt(10000) / 10.0);
+      // vary the length of lines, so that chunk boundaries fall at every point within them
+      dot.append(" ".repeat(random.nextInt(40))).append('"').append(source).append("\" -> \"")
+          .append(target).append("\" [seconds=").append(weight).append("];\n");
+      expectedNames.add(source.replace("\\\"", "\""));
+      expectedNames.add(target.replace("\\\"", "\""));
+      expectedEdges.add(new String[] {source.replace("\\\"", "\""),
+          target.replace("\\\"", "\""), weight});
+    }
+    dot.append("}\n");
+    String file = write(dot.toString());
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      DotParser.ParsedGraph parsed = DotParser.parse(file, pool);
+      Assertions.assertEquals(new ArrayList<>(expectedNames), List.of(parsed.names));
+      Assertions.assertEquals(expectedEdges.size(), parsed.sources.length);
+      for (int i = 0; i < expectedEdges.size(); i++) {
+        Assertions.assertEquals(expectedEdges.get(i)[0], parsed.names[parsed.sources[i]]);
+        Assertions.assertEquals(expectedEdges.get(i)[1], parsed.names[parsed.targets[i]]);
+        Assertions.assertEquals(Double.parseDouble(expectedEdges.get(i)[2]), parsed.weights[i]);
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * tests that empty files and files without edges parse to empty graphs, and that other
+   * statements, comments and attributes are skipped
+   */
+  @Test
+  public void test3() throws IOException {
+    DotParser.ParsedGraph empty = DotParser.parse(write(""));
+    Assertions.assertEquals(0, empty.names.length);
+    Assertions.assertEquals(0, empty.sources.length);
+    DotParser.ParsedGraph noEdges = DotParser.parse(write("digraph g {\n\n  a;\n}\n"));
+    Assertions.assertEquals(0, noEdges.names.length);
+    DotParser.ParsedGraph mixed = DotParser.parse(write("digraph g { rankdir=LR;\n"
+        + "// \"x\" -> \"y\" [seconds=1];\n# z -> w [seconds=2];\n"
+        + "  node [shape=box]; a -> \"b c\" [color=red, seconds=2.5; label=\"x;y\"]; b -> a"
+        + " [seconds=1e1]\r\n}"));
+    Assertions.assertEquals(List.of("a", "b c", "b"), List.of(mixed.names));
+    Assertions.assertArrayEquals(new int[] {0, 2}, mixed.sources);
+    Assertions.assertArrayEquals(new int[] {1, 0}, mixed.targets);
+    Assertions.assertArrayEquals(new double[] {2.5, 10}, mixed.weights);
+  }
+
+  /**
+   * tests that malformed edge statements and files that cannot be read are reported with an
+   * IOException
+   */
+  @Test
+  public void test4() throws IOException {
+    for (String malformed : List.of("a -> b;\n", "a -> b [color=red];\n", "a -> [seconds=1];\n",
+        "\"a -> b [seconds=1];\n", "a -> b [seconds=1\n", "a -> b [seconds=abc];\n",
+        "a -> b [seconds];\n", "a -> b [seconds=];\n")) {
+      String file = write("digraph g {\n" + malformed + "}\n");
+      IOException e = Assertions.assertThrows(IOException.class, () -> DotParser.parse(file),
+          malformed);
+      Assertions.assertTrue(e.getMessage().contains("at byte 12"), e.getMessage());
+    }
+    File missing = new File(write(""));
+    missing.delete();
+    Assertions.assertThrows(IOException.class, () -> DotParser.parse(missing.getPath()));
+    File directory = Files.createTempDirectory("dot").toFile();
+    directory.deleteOnExit();
+    Assertions.assertThrows(IOException.class, () -> DotParser.parse(directory.getPath()));
+  }
+
+  /**
+   * tests that campus.dot gives the same nodes and edges as the Scanner based loader that
+   * Backend used before DotParser
+   */
+  @Test
+  public void test5() throws IOException {
+    LinkedHashSet<String> names = new LinkedHashSet<>();
+    List<String> sources = new ArrayList<>();
+    List<String> targets = new ArrayList<>();
+    List<Double> weights = new ArrayList<>();
+    try (Scanner reader = new Scanner(new File("campus.dot"))) {
+      while (reader.hasNextLine()) {
+        String line = reader.nextLine().trim();
+        int arrowInd = line.indexOf(" -> ");
+        if (arrowInd != -1) {
+          String source = line.substring(1, arrowInd - 1);
+          String target = line.substring(arrowInd + 5, line.indexOf("\" [seconds="));
+          String edgeWeight = line.substring(line.indexOf("=") + 1, line.length() - 2);
+          names.add(source);
+          names.add(target);
+          sources.add(source);
+          targets.add(target);
+          weights.add(Double.parseDouble(edgeWeight));
+        }
+      }
+    }
+    DotParser.ParsedGraph parsed = DotParser.parse("campus.dot");
+    Assertions.assertFalse(sources.isEmpty());
+    Assertions.assertEquals(new ArrayList<>(names), List.of(parsed.names));
+    Assertions.assertEquals(sources.size(), parsed.sources.length);
+    for (int i = 0; i < sources.size(); i++) {
+      Assertions.assertEquals(sources.get(i), parsed.names[parsed.sources[i]]);
+      Assertions.assertEquals(targets.get(i), parsed.names[parsed.targets[i]]);
+      Assertions.assertEquals(weights.get(i), parsed.weights[i]);
+    }
+  }
+
+  // writes text to a temporary file, and returns its path
+  private static String write(String text) throws IOException {
+    File file = File.createTempFile("parser", ".dot");
+    file.deleteOnExit();
+    Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+    return file.getPath();
+  }
+}
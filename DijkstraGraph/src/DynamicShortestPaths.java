@@ -0,0 +1,334 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.NoSuchElementException;
+
+/**
+ * This class keeps the shortest path trees of a set of source nodes up to date while the edges of
+ * a graph change, by repairing only the part of each tree that a change affects, in the style of
+ * the dynamic algorithms of Ramalingam and Reps.
+ *
+ * When an edge u -> v is inserted or becomes cheaper, only nodes whose paths get shorter through
+ * it change. These are found by a Dijkstra search that starts at v with its new distance, and
+ * that stops expanding wherever a path is not improved. When an edge u -> v on a tree becomes more
+ * expensive or is removed, only the nodes in the subtree below it can change. Their distances are
+ * dropped, each of them is given the best distance it can get directly from a node outside the
+ * subtree, and a Dijkstra search over the subtree alone settles the rest. Changes to edges that
+ * are not on a tree can never make any path longer, and are skipped. So the work of each update
+ * depends on the number of nodes whose paths change and on their edges, rather than on the size
+ * of the graph.
+ *
+ * The graph notifies this class of each change (see DijkstraGraph.insertEdge, removeEdge and
+ * removeNode), so it must not be modified in any other way while sources are registered.
+ */
+public class DynamicShortestPaths<NodeType, EdgeType extends Number> {
+
+  // the shortest path tree of one source, with arrays indexed by node id
+  protected static class Tree {
+    public final int source;
+    public double[] distance; // the cost from source, or positive infinity when unreachable
+    public int[] parent; // the node before each node on its shortest path, or -1
+    public int[] pending = null; // the nodes cut off by a node that is being removed
+    public int pendingCount = 0;
+
+    public Tree(int source) {
+      this.source = source;
+    }
+  }
+
+  private final BaseGraph<NodeType, EdgeType> graph;
+  private final HashMap<Integer, Tree> trees = new HashMap<>(); // by source id
+  private final IndexedMinHeap frontier = new IndexedMinHeap(0);
+  private int[] affectedStamp = new int[0]; // == stamp for nodes being repaired
+  private int stamp = 0;
+  private int[] affected = new int[16]; // the nodes of the subtree being repaired
+  private int affectedCount = 0;
+
+  private long updateCount = 0;
+  private long repairedCount = 0;
+
+  /**
+   * Creates an empty set of maintained trees over a graph.
+   *
+   * @param graph the graph whose changes will be reported to this object
+   */
+  public DynamicShortestPaths(BaseGraph<NodeType, EdgeType> graph) {
+    this.graph = graph;
+  }
+
+  /**
+   * Starts maintaining the shortest path tree of a source, by computing it from scratch.
+   *
+   * @param source the id of the source node
+   */
+  public void addSource(int source) {
+    if (trees.containsKey(source))
+      return;
+    Tree tree = new Tree(source);
+    int idBound = graph.getIdBound();
+    SearchState search = new SearchState();
+    search.reset(idBound);
+    search.start(source);
+    while (!search.isFrontierEmpty())
+      graph.relaxLeaving(search.settleNext(), search);
+    tree.distance = new double[idBound];
+    tree.parent = new int[idBound];
+    for (int id = 0; id < idBound; id++) {
+      tree.distance[id] = search.getDistance(id);
+      tree.parent[id] = search.isReached(id) ? search.getPredecessor(id) : -1;
+    }
+    trees.put(source, tree);
+  }
+
+  /**
+   * Stops maintaining the shortest path tree of a source.
+   *
+   * @param source the id of the source node
+   * @return true if that source was registered, false otherwise
+   */
+  public boolean removeSource(int source) {
+    return trees.remove(source) != null;
+  }
+
+  /**
+   * Checks whether the shortest path tree of a node is maintained.
+   *
+   * @param source the id of a node
+   * @return true if that node is a registered source, false otherwise
+   */
+  public boolean isSource(int source) {
+    return trees.containsKey(source);
+  }
+
+  /**
+   * Retrieves the number of registered sources.
+   *
+   * @return the number of trees maintained
+   */
+  public int getSourceCount() {
+    return trees.size();
+  }
+
+  /**
+   * Retrieves the cost of the shortest path from a source to a node.
+   *
+   * @param source the id of a registered source
+   * @param id     the id of any node
+   * @return that cost, or positive infinity when there is no such path
+   * @throws NoSuchElementException if source is not registered
+   */
+  public double getDistance(int source, int id) {
+    Tree tree = getTree(source);
+    return id < tree.distance.length ? tree.distance[id] : Double.POSITIVE_INFINITY;
+  }
+
+  /**
+   * Retrieves the node before another on the shortest path from a source.
+   *
+   * @param source the id of a registered source
+   * @param id     the id of any node
+   * @return the id of its predecessor, or -1 for the source and for unreachable nodes
+   * @throws NoSuchElementException if source is not registered
+   */
+  public int getPredecessor(int source, int id) {
+    Tree tree = getTree(source);
+    return id < tree.parent.length ? tree.parent[id] : -1;
+  }
+
+  /**
+   * Retrieves the number of changes that have been applied to the maintained trees.
+   *
+   * @return the number of edge and node changes reported so far
+   */
+  public long getUpdateCount() {
+    return updateCount;
+  }
+
+  /**
+   * Retrieves the total number of nodes whose distance had to be recomputed by all updates so far,
+   * summed over all trees, which measures how much work the updates took.
+   *
+   * @return the number of nodes repaired
+   */
+  public long getRepairedCount() {
+    return repairedCount;
+  }
+
+  /**
+   * Repairs every tree after the weight of an edge changed, or after it was inserted or removed.
+   * This must be called after the graph has been changed.
+   *
+   * @param pred      the id of the node the edge leaves
+   * @param succ      the id of the node the edge enters
+   * @param oldWeight the previous weight, or positive infinity when the edge was inserted
+   * @param newWeight the new weight, or positive infinity when the edge was removed
+   */
+  public void edgeChanged(int pred, int succ, double oldWeight, double newWeight) {
+    updateCount++;
+    ensureCapacity();
+    for (Tree tree : trees.values()) {
+      if (newWeight < oldWeight) {
+        decrease(tree, pred, succ, newWeight);
+      } else if (newWeight > oldWeight && tree.parent[succ] == pred) {
+        affectedCount = 0;
+        collectSubtree(tree, succ, true);
+        repair(tree);
+      }
+    }
+  }
+
+  /**
+   * Prepares every tree for the removal of a node, by cutting off the subtree below it. This must
+   * be called before the graph removes the node, and nodeRemoved must be called afterwards. When
+   * the node is a source, its tree is dropped.
+   *
+   * @param id the id of the node that is about to be removed
+   */
+  public void nodeRemoving(int id) {
+    updateCount++;
+    ensureCapacity();
+    trees.remove(id);
+    for (Tree tree : trees.values()) {
+      tree.pendingCount = 0;
+      if (tree.distance[id] == Double.POSITIVE_INFINITY)
+        continue;
+      affectedCount = 0;
+      collectSubtree(tree, id, false);
+      tree.pending = Arrays.copyOf(affected, affectedCount);
+      tree.pendingCount = affectedCount;
+      tree.distance[id] = Double.POSITIVE_INFINITY;
+      tree.parent[id] = -1;
+    }
+  }
+
+  /**
+   * Repairs every tree after a node was removed, reconnecting the nodes that were below it.
+   */
+  public void nodeRemoved() {
+    for (Tree tree : trees.values()) {
+      if (tree.pendingCount == 0)
+        continue;
+      System.arraycopy(tree.pending, 0, affected, 0, tree.pendingCount);
+      affectedCount = tree.pendingCount;
+      tree.pending = null;
+      tree.pendingCount = 0;
+      repair(tree);
+    }
+  }
+
+  private Tree getTree(int source) {
+    Tree tree = trees.get(source);
+    if (tree == null)
+      throw new NoSuchElementException("source " + source + " is not registered");
+    return tree;
+  }
+
+  // propagates a cheaper edge pred -> succ through the nodes whose paths it shortens
+  private void decrease(Tree tree, int pred, int succ, double weight) {
+    double candidate = tree.distance[pred] + weight;
+    if (!(candidate < tree.distance[succ]))
+      return;
+    tree.distance[succ] = candidate;
+    tree.parent[succ] = pred;
+    frontier.clear();
+    frontier.insertOrDecrease(succ, candidate);
+    while (!frontier.isEmpty()) {
+      int id = frontier.pollMin();
+      repairedCount++;
+      for (BaseGraph<NodeType, EdgeType>.Edge edge : graph.nodesById.get(id).edgesLeaving) {
+        int next = edge.successor.id;
+        double cost = tree.distance[id] + edge.data.doubleValue();
+        if (cost < tree.distance[next]) {
+          tree.distance[next] = cost;
+          tree.parent[next] = id;
+          frontier.insertOrDecrease(next, cost);
+        }
+      }
+    }
+  }
+
+  // adds the nodes of the subtree below root to the affected list, and root too when asked
+  private void collectSubtree(Tree tree, int root, boolean includeRoot) {
+    int first = affectedCount;
+    add(root);
+    // the affected list doubles as the stack of nodes whose children are still to be added
+    for (int i = first; i < affectedCount; i++) {
+      int id = affected[i];
+      for (BaseGraph<NodeType, EdgeType>.Edge edge : graph.nodesById.get(id).edgesLeaving)
+        if (tree.parent[edge.successor.id] == id)
+          add(edge.successor.id);
+    }
+    if (!includeRoot) {
+      affected[first] = affected[--affectedCount];
+    }
+  }
+
+  private void add(int id) {
+    if (affectedCount == affected.length)
+      affected = Arrays.copyOf(affected, affectedCount * 2);
+    affected[affectedCount++] = id;
+  }
+
+  // recomputes the distances of the affected nodes, which may only reach each other through paths
+  // that enter them from unaffected nodes
+  private void repair(Tree tree) {
+    if (++stamp == Integer.MAX_VALUE) {
+      Arrays.fill(affectedStamp, 0);
+      stamp = 1;
+    }
+    for (int i = 0; i < affectedCount; i++) {
+      int id = affected[i];
+      affectedStamp[id] = stamp;
+      tree.distance[id] = Double.POSITIVE_INFINITY;
+      tree.parent[id] = -1;
+    }
+    frontier.clear();
+    for (int i = 0; i < affectedCount; i++) {
+      int id = affected[i];
+      for (BaseGraph<NodeType, EdgeType>.Edge edge : graph.nodesById.get(id).edgesEntering) {
+        int previous = edge.predecessor.id;
+        if (affectedStamp[previous] == stamp)
+          continue;
+        double cost = tree.distance[previous] + edge.data.doubleValue();
+        if (cost < tree.distance[id]) {
+          tree.distance[id] = cost;
+          tree.parent[id] = previous;
+        }
+      }
+      if (tree.distance[id] < Double.POSITIVE_INFINITY)
+        frontier.insertOrDecrease(id, tree.distance[id]);
+    }
+    while (!frontier.isEmpty()) {
+      int id = frontier.pollMin();
+      repairedCount++;
+      for (BaseGraph<NodeType, EdgeType>.Edge edge : graph.nodesById.get(id).edgesLeaving) {
+        int next = edge.successor.id;
+        if (affectedStamp[next] != stamp)
+          continue;
+        double cost = tree.distance[id] + edge.data.doubleValue();
+        if (cost < tree.distance[next]) {
+          tree.distance[next] = cost;
+          tree.parent[next] = id;
+          frontier.insertOrDecrease(next, cost);
+        }
+      }
+    }
+  }
+
+  // grows every array to cover ids of nodes inserted since the last change
+  private void ensureCapacity() {
+    int idBound = graph.getIdBound();
+    if (affectedStamp.length < idBound) {
+      affectedStamp = Arrays.copyOf(affectedStamp, Math.max(idBound, affectedStamp.length * 2));
+      frontier.ensureCapacity(affectedStamp.length);
+    }
+    for (Tree tree : trees.values()) {
+      int length = tree.distance.length;
+      if (length < idBound) {
+        tree.distance = Arrays.copyOf(tree.distance, affectedStamp.length);
+        tree.parent = Arrays.copyOf(tree.parent, affectedStamp.length);
+        Arrays.fill(tree.distance, length, tree.distance.length, Double.POSITIVE_INFINITY);
+        Arrays.fill(tree.parent, length, tree.parent.length, -1);
+      }
+    }
+  }
+}
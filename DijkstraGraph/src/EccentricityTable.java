@@ -0,0 +1,119 @@
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * This class is a table of the furthest destination from every node of a CsrGraph, along with the
+ * cost of the shortest path to it (the node's eccentricity), so that furthest destination queries
+ * are answered by two array reads. The table is built by a full Dijkstra search from every node,
+ * spread across the workers of a ForkJoinPool, so building it takes time proportional to the
+ * number of nodes times that of one search: a fraction of a second for a campus map, but far too
+ * long for maps with hundreds of thousands of locations.
+ *
+ * Like ShortestPathTree.getFurthest, the furthest destination of a node is the reachable node
+ * with the greatest positive cost, where ties are broken by the smallest id, and a node that
+ * reaches no other node at a positive cost has none.
+ */
+public class EccentricityTable {
+
+  private final CsrGraph<?> graph;
+  private final int[] furthest; // the id of the furthest destination of each node, or -1
+  private final double[] distance; // the cost of reaching it, or 0 when there is none
+  private final long computeMillis;
+
+  /**
+   * Searches from every node of a graph, on the workers of a pool.
+   *
+   * @param graph the graph to build a table for
+   * @param pool  the pool whose workers run the searches
+   */
+  public EccentricityTable(CsrGraph<?> graph, ForkJoinPool pool) {
+    long startTime = System.nanoTime();
+    this.graph = graph;
+    int idBound = graph.getIdBound();
+    this.furthest = new int[idBound];
+    this.distance = new double[idBound];
+    Arrays.fill(furthest, -1);
+    // each search borrows a state that no other running search is using, and returns it when done,
+    // so there are no more states than concurrent searches, and none outlive this constructor
+    ConcurrentLinkedQueue<SearchState> idleStates = new ConcurrentLinkedQueue<>();
+    pool.submit(() -> IntStream.range(0, idBound).parallel()
+        .forEach(source -> search(source, idleStates))).join();
+    this.computeMillis = (System.nanoTime() - startTime) / 1000000;
+  }
+
+  // fills in the row of one node, by settling every node that it reaches
+  private void search(int source, ConcurrentLinkedQueue<SearchState> idleStates) {
+    if (graph.getData(source) == null)
+      return;
+    SearchState search = idleStates.poll();
+    if (search == null)
+      search = new SearchState();
+    search.reset(graph.getIdBound());
+    search.start(source);
+    int found = -1;
+    double longest = 0.0;
+    while (!search.isFrontierEmpty()) {
+      int id = search.settleNext();
+      double cost = search.getDistance(id);
+      if (cost > longest || (cost == longest && found != -1 && id < found)) {
+        found = id;
+        longest = cost;
+      }
+      graph.relaxLeaving(id, search);
+    }
+    idleStates.offer(search);
+    furthest[source] = found;
+    distance[source] = longest;
+  }
+
+  /**
+   * Checks whether this table was built for the provided graph, which it only describes while
+   * that graph is the current snapshot of its BaseGraph.
+   *
+   * @param graph the graph that is being searched
+   * @return true if this table holds the eccentricities of that graph
+   */
+  public boolean isValidFor(IndexedGraph graph) {
+    return graph == this.graph;
+  }
+
+  /**
+   * Retrieves the furthest destination of a node.
+   *
+   * @param id the id of the node
+   * @return the id of the furthest node that it reaches, or -1 when it reaches none
+   */
+  public int getFurthest(int id) {
+    return furthest[id];
+  }
+
+  /**
+   * Retrieves the cost of the shortest path from a node to its furthest destination.
+   *
+   * @param id the id of the node
+   * @return that cost, or 0 when it reaches no other node
+   */
+  public double getDistance(int id) {
+    return distance[id];
+  }
+
+  /**
+   * Retrieves the number of ids that this table has a row for.
+   *
+   * @return one more than the largest node id of the graph it was built for
+   */
+  public int getIdBound() {
+    return furthest.length;
+  }
+
+  /**
+   * Retrieves how long building this table took.
+   *
+   * @return the time spent searching, in milliseconds
+   */
+  public long getComputeMillis() {
+    return computeMillis;
+  }
+}
@@ -137,5 +137,19 @@ public interface GraphADT<NodeType, EdgeType extends Number> {
    *         start node to the end node
    */
   public double shortestPathCost(NodeType start, NodeType end);
+
+  /**
+   * Computes the shortest paths from the node with the provided start value 
+   * to every node that can be reached from it, using a single run of 
+   * Dijkstra's shortest path algorithm. The returned tree can then report the
+   * cost of, and the list of data values along, the shortest path to any of 
+   * those nodes without searching the graph again.
+   *
+   * @param start the data item in the starting node for all paths
+   * @return the tree of shortest paths rooted at the start node
+   * @throws NoSuchElementException if the start node cannot be found in the
+   *         graph
+   */
+  public ShortestPathTree<NodeType> shortestPathTree(NodeType start);
     
 }
@@ -0,0 +1,305 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+
+/**
+ * This class generates synthetic maps of locations and walking times, far larger than campus.dot,
+ * so that the scaling of loads and queries can be measured. Every map is determined by its kind,
+ * its number of locations and a seed, so the same arguments always generate the same edges in the
+ * same order. Locations are named "Place 0" to "Place n-1", and every walking time is rounded to a
+ * tenth of a second. Maps can be written as dot files in the format that Backend.loadGraphData
+ * reads, or inserted directly into a graph. Only locations that some edge enters or leaves appear
+ * in a dot file, since that format only lists edges.
+ *
+ * Edges are produced one at a time rather than collected, so maps with 10^7 locations only take
+ * memory for their coordinates (or for the endpoint list of POWER_LAW maps) while they are written.
+ */
+public class GraphGenerator {
+
+  /**
+   * The shapes of map that can be generated.
+   */
+  public enum Kind {
+    // a square grid, where each location has paths to and from its (up to) four neighbors
+    GRID,
+    // locations scattered uniformly over a square, with paths between all pairs that are closer
+    // than the radius that gives each location AVERAGE_DEGREE neighbors on average
+    GEOMETRIC,
+    // a Barabasi-Albert preferential attachment graph: each new location has paths to and from
+    // ATTACHMENTS existing ones, chosen with probability proportional to their degree, so that
+    // degrees follow a power law, with a few hubs and many locations with few neighbors
+    POWER_LAW,
+    // a grid with jittered coordinates that is missing some streets and has some diagonals and
+    // one-way streets, where every ARTERIAL_SPACING-th row and column is a faster arterial
+    ROAD
+  }
+
+  /**
+   * Receives each generated edge.
+   */
+  public interface EdgeSink {
+    void edge(int source, int target, double seconds) throws IOException;
+  }
+
+  protected static final double WALKING_SPEED = 1.4; // meters per second
+  protected static final double ARTERIAL_SPEED = 4.2; // meters per second
+  protected static final double BLOCK_METERS = 80;
+  protected static final int AVERAGE_DEGREE = 6;
+  protected static final int ATTACHMENTS = 3;
+  protected static final int ARTERIAL_SPACING = 8;
+
+  private final Kind kind;
+  private final int nodeCount;
+  private final long seed;
+
+  /**
+   * Creates a generator for one map.
+   *
+   * @param kind      the shape of the map
+   * @param nodeCount the number of locations in the map
+   * @param seed      the seed that all random choices are made from
+   * @throws IllegalArgumentException if nodeCount is not positive
+   */
+  public GraphGenerator(Kind kind, int nodeCount, long seed) {
+    if (nodeCount <= 0)
+      throw new IllegalArgumentException("nodeCount must be positive");
+    this.kind = kind;
+    this.nodeCount = nodeCount;
+    this.seed = seed;
+  }
+
+  /**
+   * Retrieves the name of a generated location.
+   *
+   * @param id the number of the location, from 0 to nodeCount - 1
+   * @return its name
+   */
+  public static String name(int id) {
+    return "Place " + id;
+  }
+
+  /**
+   * Retrieves the number of locations in the generated map.
+   *
+   * @return the nodeCount this generator was created with
+   */
+  public int getNodeCount() {
+    return nodeCount;
+  }
+
+  /**
+   * Generates every edge of the map, each exactly once, and passes them to a sink in order.
+   *
+   * @param sink receives each edge
+   * @throws IOException if the sink throws one
+   */
+  public void generate(EdgeSink sink) throws IOException {
+    SplittableRandom random = new SplittableRandom(seed);
+    switch (kind) {
+      case GRID -> generateGrid(sink, random);
+      case GEOMETRIC -> generateGeometric(sink, random);
+      case POWER_LAW -> generatePowerLaw(sink, random);
+      case ROAD -> generateRoad(sink, random);
+    }
+  }
+
+  /**
+   * Writes the map to a dot file, in the format that Backend.loadGraphData reads.
+   *
+   * @param filename the path of the file to write
+   * @return the number of edges written
+   * @throws IOException if the file cannot be written
+   */
+  public long writeDot(String filename) throws IOException {
+    long[] edges = new long[1];
+    try (BufferedWriter out = Files.newBufferedWriter(Paths.get(filename),
+        StandardCharsets.UTF_8)) {
+      out.write("digraph " + kind.name().toLowerCase() + " {\n");
+      StringBuilder line = new StringBuilder(64);
+      generate((source, target, seconds) -> {
+        line.setLength(0);
+        line.append("\t\"").append(name(source)).append("\" -> \"").append(name(target))
+            .append("\" [").append(DotParser.WEIGHT_ATTRIBUTE).append('=').append(seconds)
+            .append("];\n");
+        out.append(line);
+        edges[0]++;
+      });
+      out.write("}\n");
+    }
+    return edges[0];
+  }
+
+  /**
+   * Inserts the map into a graph: first every location, and then every edge.
+   *
+   * @param graph the graph to insert into, which should not contain any of these locations yet
+   * @return the number of edges inserted
+   */
+  public long build(GraphADT<String, Double> graph) {
+    for (int id = 0; id < nodeCount; id++)
+      graph.insertNode(name(id));
+    long[] edges = new long[1];
+    try {
+      generate((source, target, seconds) -> {
+        graph.insertEdge(name(source), name(target), seconds);
+        edges[0]++;
+      });
+    } catch (IOException e) {
+      throw new AssertionError(e); // inserting into a graph throws no IOException
+    }
+    return edges[0];
+  }
+
+  // the number of columns of a grid that holds nodeCount locations in rows
+  private int columns() {
+    return (int) Math.ceil(Math.sqrt(nodeCount));
+  }
+
+  private void generateGrid(EdgeSink sink, SplittableRandom random) throws IOException {
+    int columns = columns();
+    for (int id = 0; id < nodeCount; id++) {
+      if ((id + 1) % columns != 0 && id + 1 < nodeCount)
+        both(sink, id, id + 1, seconds(BLOCK_METERS * (0.5 + random.nextDouble()), WALKING_SPEED),
+            seconds(BLOCK_METERS * (0.5 + random.nextDouble()), WALKING_SPEED));
+      if (id + columns < nodeCount)
+        both(sink, id, id + columns,
+            seconds(BLOCK_METERS * (0.5 + random.nextDouble()), WALKING_SPEED),
+            seconds(BLOCK_METERS * (0.5 + random.nextDouble()), WALKING_SPEED));
+    }
+  }
+
+  private void generateGeometric(EdgeSink sink, SplittableRandom random) throws IOException {
+    // the square is scaled so that locations are about a block apart, whatever their number
+    double width = BLOCK_METERS * Math.sqrt(nodeCount);
+    double radius = Math.sqrt(AVERAGE_DEGREE / (Math.PI * nodeCount));
+    double[] x = new double[nodeCount];
+    double[] y = new double[nodeCount];
+    for (int id = 0; id < nodeCount; id++) {
+      x[id] = random.nextDouble();
+      y[id] = random.nextDouble();
+    }
+    // bucket the locations into cells no smaller than the radius, so that each location only
+    // needs to be compared with those in its own and the eight surrounding cells
+    int cells = Math.max(1, (int) (1 / radius));
+    int[] cellStart = new int[cells * cells + 1];
+    for (int id = 0; id < nodeCount; id++)
+      cellStart[cell(x[id], y[id], cells) + 1]++;
+    for (int cell = 0; cell < cells * cells; cell++)
+      cellStart[cell + 1] += cellStart[cell];
+    int[] fill = cellStart.clone();
+    int[] byCell = new int[nodeCount];
+    for (int id = 0; id < nodeCount; id++)
+      byCell[fill[cell(x[id], y[id], cells)]++] = id;
+    for (int id = 0; id < nodeCount; id++) {
+      int column = Math.min(cells - 1, (int) (x[id] * cells));
+      int row = Math.min(cells - 1, (int) (y[id] * cells));
+      for (int r = Math.max(0, row - 1); r <= Math.min(cells - 1, row + 1); r++) {
+        for (int c = Math.max(0, column - 1); c <= Math.min(cells - 1, column + 1); c++) {
+          for (int i = cellStart[r * cells + c]; i < cellStart[r * cells + c + 1]; i++) {
+            int other = byCell[i];
+            double distance = Math.hypot(x[id] - x[other], y[id] - y[other]);
+            if (other > id && distance <= radius) {
+              double seconds = seconds(distance * width, WALKING_SPEED);
+              both(sink, id, other, seconds, seconds);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private static int cell(double x, double y, int cells) {
+    return Math.min(cells - 1, (int) (y * cells)) * cells + Math.min(cells - 1, (int) (x * cells));
+  }
+
+  private void generatePowerLaw(EdgeSink sink, SplittableRandom random) throws IOException {
+    // every endpoint of every edge so far, so that a uniform choice from this list picks each
+    // location with probability proportional to its degree
+    int initial = Math.min(nodeCount, ATTACHMENTS + 1);
+    long capacity = (long) initial * (initial - 1) + 2L * ATTACHMENTS * (nodeCount - initial);
+    if (capacity > Integer.MAX_VALUE - 8)
+      throw new IllegalArgumentException("too many locations for a power law map: " + nodeCount);
+    int[] endpoints = new int[(int) capacity];
+    int count = 0;
+    for (int id = 0; id < initial; id++) {
+      for (int other = id + 1; other < initial; other++) {
+        both(sink, id, other, randomSeconds(random), randomSeconds(random));
+        endpoints[count++] = id;
+        endpoints[count++] = other;
+      }
+    }
+    int[] chosen = new int[ATTACHMENTS];
+    for (int id = initial; id < nodeCount; id++) {
+      int found = 0;
+      while (found < ATTACHMENTS) {
+        int candidate = endpoints[random.nextInt(count)];
+        boolean repeated = false;
+        for (int i = 0; i < found; i++)
+          repeated |= chosen[i] == candidate;
+        if (!repeated)
+          chosen[found++] = candidate;
+      }
+      for (int i = 0; i < ATTACHMENTS; i++) {
+        both(sink, id, chosen[i], randomSeconds(random), randomSeconds(random));
+        endpoints[count++] = id;
+        endpoints[count++] = chosen[i];
+      }
+    }
+  }
+
+  private static double randomSeconds(SplittableRandom random) {
+    return seconds(BLOCK_METERS * (0.5 + 3 * random.nextDouble()), WALKING_SPEED);
+  }
+
+  private void generateRoad(EdgeSink sink, SplittableRandom random) throws IOException {
+    int columns = columns();
+    double[] x = new double[nodeCount];
+    double[] y = new double[nodeCount];
+    for (int id = 0; id < nodeCount; id++) {
+      x[id] = (id % columns + 0.6 * (random.nextDouble() - 0.5)) * BLOCK_METERS;
+      y[id] = (id / columns + 0.6 * (random.nextDouble() - 0.5)) * BLOCK_METERS;
+    }
+    for (int id = 0; id < nodeCount; id++) {
+      int row = id / columns;
+      int column = id % columns;
+      // along a row, to the next column
+      if (column + 1 < columns && id + 1 < nodeCount)
+        street(sink, random, x, y, id, id + 1, row % ARTERIAL_SPACING == 0);
+      // along a column, to the next row
+      if (id + columns < nodeCount)
+        street(sink, random, x, y, id, id + columns, column % ARTERIAL_SPACING == 0);
+      // a few diagonal shortcuts
+      if (column + 1 < columns && id + columns + 1 < nodeCount && random.nextInt(20) == 0)
+        street(sink, random, x, y, id, id + columns + 1, false);
+    }
+  }
+
+  // adds a street that arterials always have, and that other streets have most of the time, in
+  // both directions, or as a one-way street in either direction
+  private static void street(EdgeSink sink, SplittableRandom random, double[] x, double[] y,
+      int from, int to, boolean arterial) throws IOException {
+    if (!arterial && random.nextInt(10) == 0)
+      return;
+    double seconds = seconds(Math.hypot(x[from] - x[to], y[from] - y[to]),
+        arterial ? ARTERIAL_SPEED : WALKING_SPEED);
+    int direction = arterial ? 0 : random.nextInt(40);
+    if (direction != 1)
+      sink.edge(from, to, seconds);
+    if (direction != 2)
+      sink.edge(to, from, seconds);
+  }
+
+  private static void both(EdgeSink sink, int a, int b, double forward, double backward)
+      throws IOException {
+    sink.edge(a, b, forward);
+    sink.edge(b, a, backward);
+  }
+
+  // the walking time along a distance, rounded to a tenth of a second, and never zero
+  private static double seconds(double meters, double speed) {
+    return Math.max(1, Math.round(meters / speed * 10)) / 10.0;
+  }
+}
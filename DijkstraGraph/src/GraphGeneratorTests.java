@@ -0,0 +1,55 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class GraphGeneratorTests {
+
+  /**
+   * tests that each kind of map is the same every time it is generated with the same seed, that
+   * loading its dot file gives the same graph as building it in memory, and that it has about as
+   * many edges per location as intended
+   */
+  @Test
+  public void test1() throws IOException {
+    File file = File.createTempFile("generated", ".dot");
+    File again = File.createTempFile("generated", ".dot");
+    file.deleteOnExit();
+    again.deleteOnExit();
+    for (GraphGenerator.Kind kind : GraphGenerator.Kind.values()) {
+      GraphGenerator generator = new GraphGenerator(kind, 2000, 3);
+      long edges = generator.writeDot(file.getPath());
+      Assertions.assertEquals(edges, new GraphGenerator(kind, 2000, 3).writeDot(again.getPath()));
+      Assertions.assertArrayEquals(Files.readAllBytes(file.toPath()),
+          Files.readAllBytes(again.toPath()));
+      new GraphGenerator(kind, 2000, 4).writeDot(again.getPath());
+      Assertions.assertFalse(Files.mismatch(file.toPath(), again.toPath()) == -1);
+
+      DijkstraGraph<String, Double> built = new DijkstraGraph<>();
+      Assertions.assertEquals(edges, generator.build(built));
+      Assertions.assertEquals(2000, built.getNodeCount());
+      Assertions.assertEquals(edges, built.getEdgeCount()); // no edge was generated twice
+      DijkstraGraph<String, Double> loaded = new DijkstraGraph<>();
+      new Backend(loaded).loadGraphData(file.getPath());
+      Assertions.assertEquals(edges, loaded.getEdgeCount());
+      List<String> locations = loaded.getAllNodes();
+      Assertions.assertTrue(new HashSet<>(built.getAllNodes()).containsAll(locations));
+      for (int i = 0; i < locations.size(); i += 97) {
+        for (int j = 0; j < locations.size(); j += 89) {
+          String start = locations.get(i);
+          String end = locations.get(j);
+          if (built.containsEdge(start, end))
+            Assertions.assertEquals(built.getEdge(start, end), loaded.getEdge(start, end));
+          Assertions.assertEquals(built.containsEdge(start, end), loaded.containsEdge(start, end));
+        }
+      }
+      double degree = (double) edges / 2000;
+      Assertions.assertTrue(degree > 3 && degree < 8, kind + " has " + degree + " edges per node");
+    }
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> new GraphGenerator(GraphGenerator.Kind.GRID, 0, 3));
+  }
+}
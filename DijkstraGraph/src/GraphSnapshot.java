@@ -0,0 +1,780 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * This class is a read-only graph that answers queries straight from a memory-mapped snapshot
+ * file. A snapshot holds everything that queries need in the layout that they read it in: the
+ * node names with a hash table that finds the id of a name, the leaving and entering edges in
+ * compressed sparse rows, and optionally the precomputed costs of a LandmarkHeuristic and the
+ * search graph of a ContractionHierarchy. Loading a snapshot only maps its sections and checks
+ * their sizes, so it takes about as long for a huge graph as for a tiny one, and every process
+ * that loads the same file shares one copy of it in the page cache.
+ *
+ * Snapshot files start with a header of the magic bytes "DGSNAPSH" and six ints: the format
+ * version, the number of sections, the id bound, the node count and the edge count, followed by
+ * a reserved zero. Then comes a table with the file offset and byte length (two longs) of each
+ * section, and finally the sections themselves, each starting at a multiple of 8 bytes. All
+ * numbers are little-endian. Sections that a snapshot leaves out, such as the landmarks of a graph
+ * that had none, have a length of zero.
+ *
+ * Queries use the contraction hierarchy when there is one, and otherwise an A* search guided by
+ * the landmarks when there are any, and otherwise a plain Dijkstra search.
+ */
+public class GraphSnapshot extends AbstractIndexedGraph {
+
+  // identifies snapshot files, and the version of their layout that this class reads and writes
+  private static final long MAGIC = 0x485350414E534744L; // "DGSNAPSH" in little-endian order
+  private static final int FORMAT_VERSION = 1;
+  private static final int HEADER_BYTES = 32;
+
+  // the index of each section within the section table
+  private static final int NAME_SPANS = 0; // the start and length of each id's name, or -1
+  private static final int NAME_BYTES = 1; // the UTF-8 bytes of all names
+  private static final int NAME_SLOTS = 2; // open-addressing table of id + 1, or 0 when free
+  private static final int LEAVING_OFFSETS = 3;
+  private static final int LEAVING_TARGETS = 4;
+  private static final int LEAVING_WEIGHTS = 5;
+  private static final int ENTERING_OFFSETS = 6;
+  private static final int ENTERING_SOURCES = 7;
+  private static final int ENTERING_WEIGHTS = 8;
+  private static final int LANDMARKS = 9; // as written by LandmarkHeuristic.writeTo
+  private static final int LANDMARK_SECTIONS = 3;
+  private static final int HIERARCHY = 12; // as written by ContractionHierarchy.writeTo
+  private static final int HIERARCHY_SECTIONS = 9;
+  private static final int SECTION_COUNT = 21;
+
+  // estimates are scaled down very slightly, as in LandmarkHeuristic
+  private static final double ESTIMATE_SCALE = 1.0 - 1e-9;
+
+  /**
+   * Collects the sections of a snapshot that is being written, in order, and then writes them all
+   * out behind the header and section table.
+   */
+  public static class Writer {
+    private final ArrayList<Object> sections = new ArrayList<>();
+
+    /**
+     * Adds a section of ints.
+     *
+     * @param values the contents of the section, which must not change until it is written
+     */
+    public void addInts(int[] values) {
+      sections.add(values);
+    }
+
+    /**
+     * Adds a section of doubles.
+     *
+     * @param values the contents of the section, which must not change until it is written
+     */
+    public void addDoubles(double[] values) {
+      sections.add(values);
+    }
+
+    /**
+     * Adds a section of bytes.
+     *
+     * @param values the contents of the section, which must not change until it is written
+     */
+    public void addBytes(byte[] values) {
+      sections.add(values);
+    }
+
+    // adds sections of length zero for an index that is left out
+    private void addEmpty(int count) {
+      for (int i = 0; i < count; i++)
+        sections.add(new byte[0]);
+    }
+
+    // writes the header, the section table and every section to channel
+    private void writeTo(FileChannel channel, int idBound, int nodeCount, int edgeCount)
+        throws IOException {
+      ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+      buffer.putLong(MAGIC).putInt(FORMAT_VERSION).putInt(sections.size()).putInt(idBound)
+          .putInt(nodeCount).putInt(edgeCount).putInt(0);
+      long offset = align(HEADER_BYTES + 16L * sections.size());
+      for (Object section : sections) {
+        long length = byteLength(section);
+        buffer.putLong(offset).putLong(length);
+        offset = align(offset + length);
+      }
+      pad(channel, buffer);
+      for (Object section : sections) {
+        if (section instanceof int[]) {
+          int[] values = (int[]) section;
+          for (int i = 0; i < values.length;) {
+            int count = Math.min(values.length - i, buffer.remaining() / Integer.BYTES);
+            buffer.asIntBuffer().put(values, i, count);
+            buffer.position(buffer.position() + count * Integer.BYTES);
+            i += count;
+            if (!buffer.hasRemaining())
+              flush(channel, buffer);
+          }
+        } else if (section instanceof double[]) {
+          double[] values = (double[]) section;
+          for (int i = 0; i < values.length;) {
+            int count = Math.min(values.length - i, buffer.remaining() / Double.BYTES);
+            buffer.asDoubleBuffer().put(values, i, count);
+            buffer.position(buffer.position() + count * Double.BYTES);
+            i += count;
+            if (!buffer.hasRemaining())
+              flush(channel, buffer);
+          }
+        } else {
+          byte[] values = (byte[]) section;
+          for (int i = 0; i < values.length;) {
+            int count = Math.min(values.length - i, buffer.remaining());
+            buffer.put(values, i, count);
+            i += count;
+            if (!buffer.hasRemaining())
+              flush(channel, buffer);
+          }
+        }
+        pad(channel, buffer);
+      }
+      flush(channel, buffer);
+    }
+
+    // the buffer is always flushed at a multiple of 8 bytes, so its position shows the alignment
+    private static void pad(FileChannel channel, ByteBuffer buffer) throws IOException {
+      while (buffer.position() % 8 != 0)
+        buffer.put((byte) 0);
+      if (!buffer.hasRemaining())
+        flush(channel, buffer);
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+      buffer.flip();
+      while (buffer.hasRemaining())
+        channel.write(buffer);
+      buffer.clear();
+    }
+
+    private static long byteLength(Object section) {
+      if (section instanceof int[])
+        return (long) ((int[]) section).length * Integer.BYTES;
+      if (section instanceof double[])
+        return (long) ((double[]) section).length * Double.BYTES;
+      return ((byte[]) section).length;
+    }
+  }
+
+  // a view of the contraction hierarchy's search graph within the mapped file
+  protected class Hierarchy implements IndexedGraph {
+    private final IntBuffer rank;
+    private final IntBuffer upOffsets;
+    private final IntBuffer upTargets;
+    private final DoubleBuffer upWeights;
+    private final IntBuffer upMiddles;
+    private final IntBuffer downOffsets;
+    private final IntBuffer downSources;
+    private final DoubleBuffer downWeights;
+    private final IntBuffer downMiddles;
+
+    public Hierarchy(ByteBuffer[] sections) throws IOException {
+      rank = ints(sections[HIERARCHY], idBound, "rank");
+      upOffsets = ints(sections[HIERARCHY + 1], idBound + 1, "upward offsets");
+      int upCount = upOffsets.get(idBound);
+      upTargets = ints(sections[HIERARCHY + 2], upCount, "upward targets");
+      upWeights = doubles(sections[HIERARCHY + 3], upCount, "upward weights");
+      upMiddles = ints(sections[HIERARCHY + 4], upCount, "upward middles");
+      downOffsets = ints(sections[HIERARCHY + 5], idBound + 1, "downward offsets");
+      int downCount = downOffsets.get(idBound);
+      downSources = ints(sections[HIERARCHY + 6], downCount, "downward sources");
+      downWeights = doubles(sections[HIERARCHY + 7], downCount, "downward weights");
+      downMiddles = ints(sections[HIERARCHY + 8], downCount, "downward middles");
+    }
+
+    // the same bidirectional query as ContractionHierarchy.shortestPath, over the mapped edges
+    public int[] shortestPath(int source, int target, SearchState forward, SearchState backward) {
+      forward.reset(idBound);
+      backward.reset(idBound);
+      forward.start(source);
+      backward.start(target);
+      double best = Double.POSITIVE_INFINITY;
+      int meeting = -1;
+      while (true) {
+        boolean forwardDone = forward.isFrontierEmpty() || forward.peekFrontierKey() >= best;
+        boolean backwardDone = backward.isFrontierEmpty() || backward.peekFrontierKey() >= best;
+        if (forwardDone && backwardDone)
+          break;
+        boolean stepForward = backwardDone
+            || (!forwardDone && forward.peekFrontierKey() <= backward.peekFrontierKey());
+        SearchState search = stepForward ? forward : backward;
+        SearchState other = stepForward ? backward : forward;
+        int id = search.settleNext();
+        if (other.isReached(id) && search.getDistance(id) + other.getDistance(id) < best) {
+          best = search.getDistance(id) + other.getDistance(id);
+          meeting = id;
+        }
+        if (stepForward)
+          relaxLeaving(id, search);
+        else
+          relaxEntering(id, search);
+      }
+      if (meeting == -1)
+        return null;
+
+      ArrayList<Integer> upward = new ArrayList<>();
+      for (int id = meeting; id != -1; id = forward.getPredecessor(id))
+        upward.add(id);
+      ArrayList<Integer> path = new ArrayList<>();
+      path.add(source);
+      for (int i = upward.size() - 1; i > 0; i--)
+        unpack(upward.get(i), upward.get(i - 1), middle(upward.get(i), upward.get(i - 1)), path);
+      for (int id = meeting, next = backward.getPredecessor(id); next != -1;
+          id = next, next = backward.getPredecessor(next))
+        unpack(id, next, middle(id, next), path);
+      return path.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    @Override
+    public int getIdBound() {
+      return idBound;
+    }
+
+    @Override
+    public void relaxLeaving(int id, SearchState search) {
+      int end = upOffsets.get(id + 1);
+      for (int i = upOffsets.get(id); i < end; i++)
+        search.relax(id, upTargets.get(i), upWeights.get(i));
+    }
+
+    @Override
+    public void relaxEntering(int id, SearchState search) {
+      int end = downOffsets.get(id + 1);
+      for (int i = downOffsets.get(id); i < end; i++)
+        search.relax(id, downSources.get(i), downWeights.get(i));
+    }
+
+    @Override
+    public double getWeight(int predecessor, int successor) {
+      int index = edgeIndex(predecessor, successor);
+      return rank.get(predecessor) < rank.get(successor) ? upWeights.get(index)
+          : downWeights.get(index);
+    }
+
+    // finds the node skipped by the edge from -> to, or -1 when it is an original edge
+    private int middle(int from, int to) {
+      int index = edgeIndex(from, to);
+      return rank.get(from) < rank.get(to) ? upMiddles.get(index) : downMiddles.get(index);
+    }
+
+    // finds the index of the edge from -> to among the upward edges of from, when to is more
+    // important, or else among the downward edges into to
+    private int edgeIndex(int from, int to) {
+      if (rank.get(from) < rank.get(to)) {
+        for (int i = upOffsets.get(from); i < upOffsets.get(from + 1); i++)
+          if (upTargets.get(i) == to)
+            return i;
+      } else {
+        for (int i = downOffsets.get(to); i < downOffsets.get(to + 1); i++)
+          if (downSources.get(i) == from)
+            return i;
+      }
+      throw new NoSuchElementException("No edge from " + from + " to " + to);
+    }
+
+    // appends the original nodes after from, up to and including to, along the edge from -> to
+    private void unpack(int from, int to, int middle, List<Integer> path) {
+      if (middle == -1) {
+        path.add(to);
+        return;
+      }
+      unpack(from, middle, middle(from, middle), path);
+      unpack(middle, to, middle(middle, to), path);
+    }
+  }
+
+  // the ALT heuristic over the landmark costs within the mapped file
+  protected class Landmarks implements SearchHeuristic {
+    private final int count;
+    private final DoubleBuffer fromLandmark; // d(L,v) at index v * count + L
+    private final DoubleBuffer toLandmark; // d(v,L) at index v * count + L
+
+    public Landmarks(ByteBuffer[] sections) throws IOException {
+      count = sections[LANDMARKS].capacity() / Integer.BYTES;
+      fromLandmark = doubles(sections[LANDMARKS + 1], idBound * count, "landmark costs");
+      toLandmark = doubles(sections[LANDMARKS + 2], idBound * count, "landmark costs");
+    }
+
+    // the same estimate as LandmarkHeuristic.estimate, over the mapped costs
+    @Override
+    public double estimate(int id, int target) {
+      int v = id * count;
+      int t = target * count;
+      double best = 0;
+      for (int i = 0; i < count; i++) {
+        double fromV = fromLandmark.get(v + i);
+        double toT = toLandmark.get(t + i);
+        if (fromV != Double.POSITIVE_INFINITY) {
+          double bound = fromLandmark.get(t + i) - fromV;
+          if (bound > best)
+            best = bound;
+        }
+        if (toT != Double.POSITIVE_INFINITY) {
+          double bound = toLandmark.get(v + i) - toT;
+          if (bound > best)
+            best = bound;
+        }
+      }
+      return best * ESTIMATE_SCALE;
+    }
+
+    @Override
+    public boolean isValidFor(IndexedGraph graph) {
+      return graph == GraphSnapshot.this;
+    }
+  }
+
+  private final String filename;
+  private final int idBound;
+  private final int nodeCount;
+  private final int edgeCount;
+
+  private final IntBuffer nameSpans;
+  private final ByteBuffer nameBytes;
+  private final IntBuffer nameSlots;
+  private final int nameMask;
+  // every name decoded into a String, which is only done once a query needs all of them
+  private volatile String[] names = null;
+
+  private final IntBuffer leavingOffsets;
+  private final IntBuffer leavingTargets;
+  private final DoubleBuffer leavingWeights;
+  private final IntBuffer enteringOffsets;
+  private final IntBuffer enteringSources;
+  private final DoubleBuffer enteringWeights;
+
+  private final Landmarks landmarks; // or null when the snapshot has none
+  private final Hierarchy hierarchy; // or null when the snapshot has none
+
+  // maps the sections of an open snapshot file, and checks that their sizes fit together
+  private GraphSnapshot(FileChannel channel, String filename) throws IOException {
+    this.filename = filename;
+    long size = channel.size();
+    if (size < HEADER_BYTES)
+      throw corrupt("it is too short");
+    ByteBuffer header =
+        channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    if (header.getLong(0) != MAGIC)
+      throw corrupt("it is not a graph snapshot");
+    if (header.getInt(8) != FORMAT_VERSION)
+      throw corrupt("its format version " + header.getInt(8) + " is not " + FORMAT_VERSION);
+    if (header.getInt(12) != SECTION_COUNT)
+      throw corrupt("it has " + header.getInt(12) + " sections instead of " + SECTION_COUNT);
+    idBound = header.getInt(16);
+    nodeCount = header.getInt(20);
+    edgeCount = header.getInt(24);
+    if (idBound < 0 || nodeCount < 0 || nodeCount > idBound || edgeCount < 0)
+      throw corrupt("its node or edge count is out of range");
+
+    long tableEnd = HEADER_BYTES + 16L * SECTION_COUNT;
+    if (size < tableEnd)
+      throw corrupt("its section table is cut off");
+    ByteBuffer table = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES,
+        tableEnd - HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    ByteBuffer[] sections = new ByteBuffer[SECTION_COUNT];
+    for (int i = 0; i < SECTION_COUNT; i++) {
+      long offset = table.getLong(16 * i);
+      long length = table.getLong(16 * i + 8);
+      if (offset < tableEnd || offset % 8 != 0 || length < 0 || length > Integer.MAX_VALUE
+          || offset + length > size)
+        throw corrupt("section " + i + " lies outside of the file");
+      sections[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, length)
+          .order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    nameSpans = ints(sections[NAME_SPANS], 2 * idBound, "name spans");
+    nameBytes = sections[NAME_BYTES];
+    nameSlots = sections[NAME_SLOTS].asIntBuffer();
+    nameMask = nameSlots.capacity() - 1;
+    if (Integer.bitCount(nameSlots.capacity()) != 1 || nameSlots.capacity() < 2 * nodeCount)
+      throw corrupt("its name table has the wrong size");
+
+    leavingOffsets = ints(sections[LEAVING_OFFSETS], idBound + 1, "leaving offsets");
+    leavingTargets = ints(sections[LEAVING_TARGETS], edgeCount, "leaving targets");
+    leavingWeights = doubles(sections[LEAVING_WEIGHTS], edgeCount, "leaving weights");
+    enteringOffsets = ints(sections[ENTERING_OFFSETS], idBound + 1, "entering offsets");
+    enteringSources = ints(sections[ENTERING_SOURCES], edgeCount, "entering sources");
+    enteringWeights = doubles(sections[ENTERING_WEIGHTS], edgeCount, "entering weights");
+    if (leavingOffsets.get(idBound) != edgeCount || enteringOffsets.get(idBound) != edgeCount)
+      throw corrupt("its edge offsets do not match its edge count");
+
+    landmarks = sections[LANDMARKS].capacity() > 0 ? new Landmarks(sections) : null;
+    hierarchy = sections[HIERARCHY].capacity() > 0 ? new Hierarchy(sections) : null;
+  }
+
+  /**
+   * Loads a snapshot file by mapping it into memory. Nothing is read from the file until queries
+   * need it, and the file may be replaced by a new snapshot (see write) while it is loaded.
+   *
+   * @param filename the path of the snapshot file
+   * @return the graph stored in that file
+   * @throws IOException if the file cannot be read, or is not a snapshot in this format
+   */
+  public static GraphSnapshot load(String filename) throws IOException {
+    try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+      // the mappings stay valid after the channel is closed
+      return new GraphSnapshot(channel, filename);
+    }
+  }
+
+  /**
+   * Writes a snapshot of a graph to a file. When the graph is a DijkstraGraph with landmarks or a
+   * contraction hierarchy that are up to date, these are included too. The snapshot is written to
+   * a temporary file that then replaces filename, so processes that have already loaded the
+   * previous snapshot keep seeing it unchanged.
+   *
+   * @param graph    the graph to write, which is frozen first
+   * @param filename the path of the snapshot file
+   * @throws IOException if the file cannot be written
+   */
+  public static void write(BaseGraph<String, ?> graph, String filename) throws IOException {
+    CsrGraph<String> csr = graph.freeze();
+    int idBound = csr.getIdBound();
+    Writer writer = new Writer();
+
+    // names, and a table of the ids of their hashes with at most one used slot in two
+    int[] spans = new int[2 * idBound];
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    int[] slots = new int[Integer.highestOneBit(Math.max(2, 2 * csr.getNodeCount()) - 1) << 1];
+    for (int id = 0; id < idBound; id++) {
+      String name = csr.getData(id);
+      if (name == null) {
+        spans[2 * id] = 0;
+        spans[2 * id + 1] = -1;
+        continue;
+      }
+      byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+      spans[2 * id] = bytes.size();
+      spans[2 * id + 1] = encoded.length;
+      bytes.write(encoded);
+      int slot = hash(encoded) & (slots.length - 1);
+      while (slots[slot] != 0)
+        slot = (slot + 1) & (slots.length - 1);
+      slots[slot] = id + 1;
+    }
+    writer.addInts(spans);
+    writer.addBytes(bytes.toByteArray());
+    writer.addInts(slots);
+
+    int edgeCount = csr.getEdgeCount();
+    int[] leavingOffsets = new int[idBound + 1];
+    int[] enteringOffsets = new int[idBound + 1];
+    for (int id = 0; id <= idBound; id++) {
+      leavingOffsets[id] = csr.getLeavingOffset(id);
+      enteringOffsets[id] = csr.getEnteringOffset(id);
+    }
+    int[] leavingTargets = new int[edgeCount];
+    double[] leavingWeights = new double[edgeCount];
+    int[] enteringSources = new int[edgeCount];
+    double[] enteringWeights = new double[edgeCount];
+    for (int i = 0; i < edgeCount; i++) {
+      leavingTargets[i] = csr.getLeavingTarget(i);
+      leavingWeights[i] = csr.getLeavingWeight(i);
+      enteringSources[i] = csr.getEnteringSource(i);
+      enteringWeights[i] = csr.getEnteringWeight(i);
+    }
+    writer.addInts(leavingOffsets);
+    writer.addInts(leavingTargets);
+    writer.addDoubles(leavingWeights);
+    writer.addInts(enteringOffsets);
+    writer.addInts(enteringSources);
+    writer.addDoubles(enteringWeights);
+
+    SearchHeuristic heuristic = null;
+    ContractionHierarchy hierarchy = null;
+    if (graph instanceof DijkstraGraph) {
+      heuristic = ((DijkstraGraph<String, ?>) graph).getHeuristic();
+      hierarchy = ((DijkstraGraph<String, ?>) graph).getHierarchy();
+    }
+    if (heuristic instanceof LandmarkHeuristic && heuristic.isValidFor(csr))
+      ((LandmarkHeuristic) heuristic).writeTo(writer);
+    else
+      writer.addEmpty(LANDMARK_SECTIONS);
+    if (hierarchy != null && hierarchy.isValidFor(csr))
+      hierarchy.writeTo(writer);
+    else
+      writer.addEmpty(HIERARCHY_SECTIONS);
+
+    Path path = Paths.get(filename).toAbsolutePath();
+    Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+    try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      writer.writeTo(channel, idBound, csr.getNodeCount(), edgeCount);
+    }
+    try {
+      Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /**
+   * Checks whether this snapshot answers queries with a contraction hierarchy.
+   *
+   * @return true if the snapshot includes a hierarchy, false otherwise
+   */
+  public boolean hasHierarchy() {
+    return hierarchy != null;
+  }
+
+  /**
+   * Checks whether this snapshot guides searches with landmarks.
+   *
+   * @return true if the snapshot includes landmarks, false otherwise
+   */
+  public boolean hasLandmarks() {
+    return landmarks != null;
+  }
+
+  /**
+   * Retrieves the id of a node within this snapshot, by looking its name up in the mapped table.
+   *
+   * @param name the name of the node
+   * @return the id of that node, or -1 when there is none with that name
+   */
+  @Override
+  public int getId(String name) {
+    if (name == null)
+      return -1;
+    byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+    for (int slot = hash(encoded) & nameMask;; slot = (slot + 1) & nameMask) {
+      int entry = nameSlots.get(slot);
+      if (entry == 0)
+        return -1;
+      if (nameEquals(entry - 1, encoded))
+        return entry - 1;
+    }
+  }
+
+  /**
+   * Retrieves the name of a node within this snapshot.
+   *
+   * @param id the id of the node
+   * @return the name of that node, or null when no node has this id
+   */
+  @Override
+  public String getName(int id) {
+    String[] decoded = names;
+    if (decoded != null)
+      return decoded[id];
+    int length = nameSpans.get(2 * id + 1);
+    if (length == -1)
+      return null;
+    byte[] bytes = new byte[length];
+    nameBytes.get(nameSpans.get(2 * id), bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public boolean insertNode(String data) {
+    throw new UnsupportedOperationException(filename + " is a read-only graph snapshot");
+  }
+
+  @Override
+  public boolean removeNode(String data) {
+    throw new UnsupportedOperationException(filename + " is a read-only graph snapshot");
+  }
+
+  @Override
+  public int getNodeCount() {
+    return nodeCount;
+  }
+
+  @Override
+  public boolean insertEdge(String pred, String succ, Double weight) {
+    throw new UnsupportedOperationException(filename + " is a read-only graph snapshot");
+  }
+
+  @Override
+  public boolean removeEdge(String pred, String succ) {
+    throw new UnsupportedOperationException(filename + " is a read-only graph snapshot");
+  }
+
+  @Override
+  public boolean containsEdge(String pred, String succ) {
+    int predId = getId(pred);
+    int succId = getId(succ);
+    return predId != -1 && succId != -1 && leavingIndex(predId, succId) != -1;
+  }
+
+  @Override
+  public Double getEdge(String pred, String succ) {
+    int predId = getId(pred);
+    int succId = getId(succ);
+    int index = predId == -1 || succId == -1 ? -1 : leavingIndex(predId, succId);
+    if (index == -1)
+      throw new NoSuchElementException("No edge from " + pred + " to " + succ);
+    return leavingWeights.get(index);
+  }
+
+  @Override
+  public int getEdgeCount() {
+    return edgeCount;
+  }
+
+  @Override
+  public int getIdBound() {
+    return idBound;
+  }
+
+  @Override
+  public void relaxLeaving(int id, SearchState search) {
+    int end = leavingOffsets.get(id + 1);
+    for (int i = leavingOffsets.get(id); i < end; i++)
+      search.relax(id, leavingTargets.get(i), leavingWeights.get(i));
+  }
+
+  @Override
+  public void relaxEntering(int id, SearchState search) {
+    int end = enteringOffsets.get(id + 1);
+    for (int i = enteringOffsets.get(id); i < end; i++)
+      search.relax(id, enteringSources.get(i), enteringWeights.get(i));
+  }
+
+  @Override
+  public double getWeight(int predecessor, int successor) {
+    int index = leavingIndex(predecessor, successor);
+    if (index == -1)
+      throw new NoSuchElementException("No edge from " + predecessor + " to " + successor);
+    return leavingWeights.get(index);
+  }
+
+  @Override
+  protected SearchHeuristic getHeuristic() {
+    return landmarks;
+  }
+
+  @Override
+  protected int[] shortestPath(int source, int target) {
+    if (hierarchy == null)
+      return super.shortestPath(source, target);
+    SearchState forward = acquireSearchState();
+    SearchState backward = acquireSearchState();
+    try {
+      int[] path = hierarchy.shortestPath(source, target, forward, backward);
+      if (path == null)
+        throw new NoSuchElementException("path not found");
+      return path;
+    } finally {
+      releaseSearchState(forward);
+      releaseSearchState(backward);
+    }
+  }
+
+  // finds the index of the edge from -> to among the leaving edges, or returns -1 when absent
+  private int leavingIndex(int from, int to) {
+    int end = leavingOffsets.get(from + 1);
+    for (int i = leavingOffsets.get(from); i < end; i++)
+      if (leavingTargets.get(i) == to)
+        return i;
+    return -1;
+  }
+
+  // decodes every name the first time that all of them are needed
+  @Override
+  protected String[] getNames() {
+    String[] decoded = names;
+    if (decoded == null) {
+      synchronized (this) {
+        decoded = names;
+        if (decoded == null) {
+          decoded = new String[idBound];
+          for (int id = 0; id < idBound; id++)
+            decoded[id] = getName(id);
+          names = decoded;
+        }
+      }
+    }
+    return decoded;
+  }
+
+  private boolean nameEquals(int id, byte[] encoded) {
+    if (nameSpans.get(2 * id + 1) != encoded.length)
+      return false;
+    int start = nameSpans.get(2 * id);
+    for (int i = 0; i < encoded.length; i++)
+      if (nameBytes.get(start + i) != encoded[i])
+        return false;
+    return true;
+  }
+
+  private IOException corrupt(String reason) {
+    return new IOException("Unable to load snapshot " + filename + ": " + reason);
+  }
+
+  // views a section as ints, checking that it holds the expected number of them
+  private IntBuffer ints(ByteBuffer section, int count, String name) throws IOException {
+    if (section.capacity() != (long) count * Integer.BYTES)
+      throw corrupt("its " + name + " section has the wrong size");
+    return section.asIntBuffer();
+  }
+
+  // views a section as doubles, checking that it holds the expected number of them
+  private DoubleBuffer doubles(ByteBuffer section, int count, String name) throws IOException {
+    if (section.capacity() != (long) count * Double.BYTES)
+      throw corrupt("its " + name + " section has the wrong size");
+    return section.asDoubleBuffer();
+  }
+
+  // hashes the UTF-8 bytes of a name, spreading the bits across the low bits used to choose a slot
+  private static int hash(byte[] encoded) {
+    int hash = 0;
+    for (byte b : encoded)
+      hash = hash * 31 + b;
+    hash *= 0x9E3779B9;
+    return hash ^ (hash >>> 16);
+  }
+
+  private static long align(long offset) {
+    return (offset + 7) & ~7L;
+  }
+
+  /**
+   * Converts a dot file into a snapshot file, and reports how long each step took.
+   *
+   * @param args the dot file to read, the snapshot file to write, the number of landmarks to
+   *             include (8 by default, or 0 for none), and "ch" to include a contraction hierarchy
+   * @throws IOException if either file cannot be read or written
+   */
+  public static void main(String[] args) throws IOException {
+    String input = args.length > 0 ? args[0] : "campus.dot";
+    String output = args.length > 1 ? args[1] : "campus.snapshot";
+    int landmarkCount = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+    boolean withHierarchy = args.length > 3 && args[3].equals("ch");
+    long start = System.nanoTime();
+    DijkstraGraph<String, Double> graph = new DijkstraGraph<>();
+    new Backend(graph).loadGraphData(input);
+    if (landmarkCount > 0)
+      graph.prepareLandmarks(landmarkCount, LandmarkHeuristic.Selection.AVOID);
+    if (withHierarchy)
+      graph.prepareContractionHierarchy();
+    long built = System.nanoTime();
+    write(graph, output);
+    long written = System.nanoTime();
+    GraphSnapshot snapshot = load(output);
+    long loaded = System.nanoTime();
+    System.out.println("nodes=" + snapshot.getNodeCount() + " edges=" + snapshot.getEdgeCount()
+        + " landmarks=" + snapshot.hasLandmarks() + " hierarchy=" + snapshot.hasHierarchy()
+        + " buildMillis=" + (built - start) / 1_000_000 + " writeMillis="
+        + (written - built) / 1_000_000 + " loadMicros=" + (loaded - written) / 1000);
+  }
+}
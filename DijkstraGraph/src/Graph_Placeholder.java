@@ -91,4 +91,19 @@ public class Graph_Placeholder implements GraphADT<String, Double> {
     return sum;
   }
 
+  public ShortestPathTree<String> shortestPathTree(String start) {
+    int source = path.indexOf(start);
+    if(source == -1) throw new NoSuchElementException();
+    // each node i along the path is reached from node i-1 by an edge of weight i
+    String[] data = path.toArray(new String[0]);
+    double[] distance = new double[path.size()];
+    int[] predecessor = new int[path.size()];
+    for(int i=0;i<path.size();i++) {
+      distance[i] = i < source ? Double.POSITIVE_INFINITY :
+	  i == source ? 0 : distance[i-1] + i;
+      predecessor[i] = i <= source ? -1 : i-1;
+    }
+    return new ShortestPathTree<>(source, data, distance, predecessor, path::indexOf);
+  }
+
 }
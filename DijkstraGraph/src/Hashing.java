@@ -0,0 +1,23 @@
+/**
+ * This class holds the hash mixing shared by the hashtables of this project (OpenAddressingMap
+ * and ConcurrentHashtableMap).
+ */
+public final class Hashing {
+
+  private Hashing() {
+  }
+
+  /**
+   * Spreads the bits of a key's hashCode, so that both its low bits (which choose a slot) and its
+   * high bits (which choose a stripe) depend on all of them, and keys whose hashes differ only in
+   * their high bits do not all land in the same run of slots.
+   *
+   * @param key the key to hash
+   * @return the mixed hash of key
+   * @throws NullPointerException if key is null
+   */
+  public static int mix(Object key) {
+    int hash = key.hashCode() * 0x9E3779B9;
+    return hash ^ (hash >>> 16);
+  }
+}
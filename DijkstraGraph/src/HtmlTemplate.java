@@ -0,0 +1,80 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * This class is an html page with placeholders, like template.html, that is read and split once,
+ * so that each page can be written by copying the constant bytes between the placeholders and the
+ * bytes that fill them, without reading the file, searching it or building strings again. Each
+ * placeholder is a string (like an html comment) that occurs in the page, and only its first
+ * occurrence after the previous placeholder is filled.
+ */
+public class HtmlTemplate {
+
+  private final byte[][] segments; // the UTF-8 bytes before, between and after the placeholders
+
+  /**
+   * Splits a page around its placeholders.
+   *
+   * @param page         the text of the page
+   * @param placeholders the placeholders, in the order that they occur in the page
+   * @throws IllegalArgumentException if some placeholder does not occur in the page after the one
+   *                                  before it
+   */
+  public HtmlTemplate(String page, String... placeholders) {
+    segments = new byte[placeholders.length + 1][];
+    int start = 0;
+    for (int i = 0; i < placeholders.length; i++) {
+      int found = page.indexOf(placeholders[i], start);
+      if (found < 0)
+        throw new IllegalArgumentException("the template has no " + placeholders[i]);
+      segments[i] = page.substring(start, found).getBytes(StandardCharsets.UTF_8);
+      start = found + placeholders[i].length();
+    }
+    segments[placeholders.length] = page.substring(start).getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Reads and splits a page from a UTF-8 file.
+   *
+   * @param filename     the path of the file to read
+   * @param placeholders the placeholders, in the order that they occur in the page
+   * @return the template of that page
+   * @throws IOException              if the file cannot be read
+   * @throws IllegalArgumentException if some placeholder does not occur in the page after the one
+   *                                  before it
+   */
+  public static HtmlTemplate load(String filename, String... placeholders) throws IOException {
+    return new HtmlTemplate(Files.readString(Paths.get(filename)), placeholders);
+  }
+
+  /**
+   * Retrieves the number of placeholders that each page fills.
+   *
+   * @return the number of placeholders this template was split around
+   */
+  public int getPlaceholderCount() {
+    return segments.length - 1;
+  }
+
+  /**
+   * Writes the page, with each placeholder replaced by the bytes that fill it.
+   *
+   * @param out    the stream to write the page to
+   * @param values the UTF-8 bytes that fill each placeholder, in order
+   * @throws IOException              if the stream throws one
+   * @throws IllegalArgumentException if there is not one value for each placeholder
+   */
+  public void write(OutputStream out, byte[]... values) throws IOException {
+    if (values.length != getPlaceholderCount())
+      throw new IllegalArgumentException("expected " + getPlaceholderCount() + " values but got "
+          + values.length);
+    for (int i = 0; i < values.length; i++) {
+      out.write(segments[i]);
+      out.write(values[i]);
+    }
+    out.write(segments[values.length]);
+  }
+}
@@ -0,0 +1,48 @@
+import java.util.NoSuchElementException;
+
+/**
+ * This interface represents a directed graph whose nodes are identified by dense integer ids, as
+ * seen by a shortest path search. Rather than handing out edge objects, the graph relaxes every
+ * edge leaving (or entering) a node directly into a SearchState, so that implementations are free
+ * to store their edges in whatever layout is fastest to scan.
+ */
+public interface IndexedGraph {
+
+  /**
+   * Retrieves one more than the largest node id in this graph. Arrays indexed by node id must be
+   * at least this long.
+   *
+   * @return the upper bound (exclusive) of node ids in this graph
+   */
+  public int getIdBound();
+
+  /**
+   * Relaxes every edge leaving a node: search.relax(id, successor, weight) is called once for
+   * each such edge.
+   *
+   * @param id     the id of the settled node whose leaving edges to relax
+   * @param search the search to relax these edges into
+   */
+  public void relaxLeaving(int id, SearchState search);
+
+  /**
+   * Relaxes every edge entering a node, as if it were reversed: search.relax(id, predecessor,
+   * weight) is called once for each such edge. This is used by searches that run backwards from
+   * a destination.
+   *
+   * @param id     the id of the settled node whose entering edges to relax
+   * @param search the search to relax these edges into
+   */
+  public void relaxEntering(int id, SearchState search);
+
+  /**
+   * Return the weight of the edge between two nodes.
+   *
+   * @param predecessor the id of the source node for the edge
+   * @param successor   the id of the target node for the edge
+   * @return the weight of that edge
+   * @throws NoSuchElementException if there is no edge between these nodes
+   */
+  public double getWeight(int predecessor, int successor);
+
+}
@@ -0,0 +1,204 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * This class is a 4-ary min heap over dense integer ids (0 to capacity-1), where each id is
+ * prioritized by a double key. Unlike java.util.PriorityQueue, every id appears in the heap at
+ * most once, and the key of an id that is already in the heap can be lowered in place
+ * (decrease-key) instead of inserting a second, stale copy.
+ */
+public class IndexedMinHeap {
+
+  // each heap level fans out to this many children, which keeps the heap shallow
+  private static final int ARITY = 4;
+
+  private int[] heap; // ids stored in heap order
+  private int[] position; // index of each id within heap, or -1 when absent
+  private double[] keys; // current key of each id that is in the heap
+  private int size = 0;
+
+  /**
+   * Creates an empty heap that can hold ids from 0 up to capacity-1.
+   *
+   * @param capacity the number of distinct ids this heap can hold
+   */
+  public IndexedMinHeap(int capacity) {
+    heap = new int[capacity];
+    keys = new double[capacity];
+    position = new int[capacity];
+    Arrays.fill(position, -1);
+  }
+
+  /**
+   * Grows this heap (when necessary) so that it can hold ids up to capacity-1.
+   *
+   * @param capacity the number of distinct ids this heap must be able to hold
+   */
+  public void ensureCapacity(int capacity) {
+    if (capacity <= position.length)
+      return;
+    int oldLength = position.length;
+    int newLength = Math.max(capacity, oldLength * 2);
+    heap = Arrays.copyOf(heap, newLength);
+    keys = Arrays.copyOf(keys, newLength);
+    position = Arrays.copyOf(position, newLength);
+    Arrays.fill(position, oldLength, newLength, -1);
+  }
+
+  /**
+   * Retrieves the number of ids that this heap can hold.
+   *
+   * @return the size of the underlying arrays for this heap
+   */
+  public int getCapacity() {
+    return position.length;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Checks whether an id is currently stored in this heap.
+   *
+   * @param id the id to check
+   * @return true if the id is in the heap, false otherwise
+   */
+  public boolean contains(int id) {
+    return position[id] != -1;
+  }
+
+  /**
+   * Retrieves the key that an id is currently prioritized by.
+   *
+   * @param id an id that is stored in this heap
+   * @return the key of that id
+   */
+  public double getKey(int id) {
+    return keys[id];
+  }
+
+  /**
+   * Adds an id to this heap with the provided key, or lowers the key of an id that is already in
+   * this heap. Keys are never raised by this method.
+   *
+   * @param id  the id to insert or update
+   * @param key the new key for that id
+   * @return true if the heap was changed, false if id was already present with a lower key
+   */
+  public boolean insertOrDecrease(int id, double key) {
+    int index = position[id];
+    if (index == -1) {
+      index = size++;
+      heap[index] = id;
+      position[id] = index;
+    } else if (key >= keys[id]) {
+      return false;
+    }
+    keys[id] = key;
+    siftUp(index);
+    return true;
+  }
+
+  /**
+   * Retrieves the id with the lowest key without removing it.
+   *
+   * @return the id with the lowest key
+   * @throws NoSuchElementException when this heap is empty
+   */
+  public int peekMin() {
+    if (size == 0)
+      throw new NoSuchElementException("heap is empty");
+    return heap[0];
+  }
+
+  /**
+   * Retrieves the lowest key in this heap.
+   *
+   * @return the lowest key, or positive infinity when this heap is empty
+   */
+  public double peekMinKey() {
+    return size == 0 ? Double.POSITIVE_INFINITY : keys[heap[0]];
+  }
+
+  /**
+   * Removes and returns the id with the lowest key.
+   *
+   * @return the id with the lowest key
+   * @throws NoSuchElementException when this heap is empty
+   */
+  public int pollMin() {
+    if (size == 0)
+      throw new NoSuchElementException("heap is empty");
+    int min = heap[0];
+    position[min] = -1;
+    size--;
+    if (size > 0) {
+      int last = heap[size];
+      heap[0] = last;
+      position[last] = 0;
+      siftDown(0);
+    }
+    return min;
+  }
+
+  /**
+   * Removes all ids from this heap. This takes time proportional to the number of ids in the heap,
+   * rather than to its capacity.
+   */
+  public void clear() {
+    for (int i = 0; i < size; i++)
+      position[heap[i]] = -1;
+    size = 0;
+  }
+
+  // moves the entry at index towards the root until its parent's key is no larger
+  private void siftUp(int index) {
+    int id = heap[index];
+    double key = keys[id];
+    while (index > 0) {
+      int parentIndex = (index - 1) / ARITY;
+      int parent = heap[parentIndex];
+      if (keys[parent] <= key)
+        break;
+      heap[index] = parent;
+      position[parent] = index;
+      index = parentIndex;
+    }
+    heap[index] = id;
+    position[id] = index;
+  }
+
+  // moves the entry at index towards the leaves until none of its children have a smaller key
+  private void siftDown(int index) {
+    int id = heap[index];
+    double key = keys[id];
+    while (true) {
+      int firstChild = index * ARITY + 1;
+      if (firstChild >= size)
+        break;
+      int lastChild = Math.min(firstChild + ARITY, size);
+      int minIndex = firstChild;
+      double minKey = keys[heap[firstChild]];
+      for (int child = firstChild + 1; child < lastChild; child++) {
+        double childKey = keys[heap[child]];
+        if (childKey < minKey) {
+          minIndex = child;
+          minKey = childKey;
+        }
+      }
+      if (minKey >= key)
+        break;
+      int minId = heap[minIndex];
+      heap[index] = minId;
+      position[minId] = index;
+      index = minIndex;
+    }
+    heap[index] = id;
+    position[id] = index;
+  }
+}
@@ -0,0 +1,269 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * This class is the ALT heuristic (A*, landmarks, and the triangle inequality) for A* searches
+ * over a CsrGraph. A small number of landmark nodes are chosen, and the costs of the shortest paths
+ * from every landmark to every node, and from every node to every landmark, are precomputed. For
+ * any landmark L, the triangle inequality then gives two lower bounds on the cost of reaching the
+ * target t from a node v:
+ *
+ * d(v,t) >= d(L,t) - d(L,v) and d(v,t) >= d(v,L) - d(t,L)
+ *
+ * The estimate is the largest of these bounds over all landmarks. The searches that landmark
+ * selection and precomputation depend on run in parallel on the common ForkJoinPool.
+ */
+public class LandmarkHeuristic implements SearchHeuristic {
+
+  /**
+   * The strategies for choosing landmarks.
+   */
+  public enum Selection {
+    // each landmark is the node that is furthest from all landmarks chosen before it
+    FARTHEST,
+    // each landmark is a leaf of the shortest path tree from a random node, found by descending
+    // into the subtree whose paths are least well bounded by the landmarks chosen before it
+    AVOID
+  }
+
+  // estimates are scaled down very slightly, so that rounding errors in the differences of
+  // precomputed costs can never make an estimate larger than the true cost
+  private static final double ESTIMATE_SCALE = 1.0 - 1e-9;
+
+  private final CsrGraph<?> graph;
+  private final int idBound;
+  private final int[] landmarks;
+  // d(L,v) and d(v,L) for each landmark L and node v, at index v * landmarks.length + L, so that
+  // all of the costs needed to estimate from one node are next to each other
+  private final double[] fromLandmark;
+  private final double[] toLandmark;
+
+  /**
+   * Chooses landmarks in a graph, and precomputes the costs of shortest paths to and from them.
+   *
+   * @param graph     the graph to compute estimates for
+   * @param count     the number of landmarks to choose (fewer are used if the graph is smaller)
+   * @param selection the strategy used to choose landmarks
+   * @param seed      the seed for the random choices made by the AVOID strategy
+   */
+  public LandmarkHeuristic(CsrGraph<?> graph, int count, Selection selection, long seed) {
+    this.graph = graph;
+    this.idBound = graph.getIdBound();
+    this.landmarks = new int[Math.min(count, graph.getNodeCount())];
+    this.fromLandmark = new double[idBound * landmarks.length];
+    this.toLandmark = new double[idBound * landmarks.length];
+    Random random = new Random(seed);
+    for (int i = 0; i < landmarks.length; i++) {
+      landmarks[i] = selection == Selection.FARTHEST ? selectFarthest(i) : selectAvoid(i, random);
+      // both searches from this landmark are needed before the next one can be chosen
+      final int index = i;
+      IntStream.range(0, 2).parallel()
+          .forEach(direction -> precompute(index, direction == 1, new SearchState()));
+    }
+  }
+
+  /**
+   * Precomputes the costs of shortest paths to and from landmarks that were already chosen. All
+   * of these searches run in parallel.
+   *
+   * @param graph     the graph to compute estimates for
+   * @param landmarks the ids of the landmark nodes
+   */
+  public LandmarkHeuristic(CsrGraph<?> graph, int[] landmarks) {
+    this.graph = graph;
+    this.idBound = graph.getIdBound();
+    this.landmarks = landmarks.clone();
+    this.fromLandmark = new double[idBound * landmarks.length];
+    this.toLandmark = new double[idBound * landmarks.length];
+    IntStream.range(0, 2 * landmarks.length).parallel()
+        .forEach(task -> precompute(task / 2, task % 2 == 1, new SearchState()));
+  }
+
+  /**
+   * Retrieves the landmarks this heuristic estimates costs through.
+   *
+   * @return the ids of the landmark nodes
+   */
+  public int[] getLandmarks() {
+    return landmarks.clone();
+  }
+
+  /**
+   * Adds the landmarks and their precomputed costs to a graph snapshot that is being written: the
+   * landmark ids, then the costs from and to them, each with the landmarks of a node next to each
+   * other.
+   *
+   * @param writer the writer of the snapshot
+   */
+  public void writeTo(GraphSnapshot.Writer writer) {
+    writer.addInts(landmarks);
+    writer.addDoubles(fromLandmark);
+    writer.addDoubles(toLandmark);
+  }
+
+  @Override
+  public double estimate(int id, int target) {
+    int count = landmarks.length;
+    int v = id * count;
+    int t = target * count;
+    double best = 0;
+    for (int i = 0; i < count; i++) {
+      double fromV = fromLandmark[v + i];
+      double toT = toLandmark[t + i];
+      // d(L,t) - d(L,v): when L reaches v but not t, then v cannot reach t either
+      if (fromV != Double.POSITIVE_INFINITY) {
+        double bound = fromLandmark[t + i] - fromV;
+        if (bound > best)
+          best = bound;
+      }
+      // d(v,L) - d(t,L): when t reaches L but v does not, then v cannot reach t either
+      if (toT != Double.POSITIVE_INFINITY) {
+        double bound = toLandmark[v + i] - toT;
+        if (bound > best)
+          best = bound;
+      }
+    }
+    return best * ESTIMATE_SCALE;
+  }
+
+  @Override
+  public boolean isValidFor(IndexedGraph graph) {
+    return graph == this.graph;
+  }
+
+  // runs a search to or from one landmark, and stores the costs of all paths that it finds
+  private void precompute(int index, boolean reverse, SearchState search) {
+    int count = landmarks.length;
+    double[] costs = reverse ? toLandmark : fromLandmark;
+    search.reset(idBound);
+    search.start(landmarks[index]);
+    while (!search.isFrontierEmpty()) {
+      int id = search.settleNext();
+      if (reverse)
+        graph.relaxEntering(id, search);
+      else
+        graph.relaxLeaving(id, search);
+    }
+    for (int id = 0; id < idBound; id++)
+      costs[id * count + index] = search.getDistance(id);
+  }
+
+  // chooses the node whose round trip to the closest of the first chosen landmarks costs the most
+  private int selectFarthest(int chosen) {
+    if (chosen == 0) {
+      // start from the node furthest away from an arbitrary node
+      int first = 0;
+      while (graph.getData(first) == null)
+        first++;
+      SearchState search = new SearchState();
+      search.reset(idBound);
+      search.start(first);
+      int furthest = first;
+      while (!search.isFrontierEmpty()) {
+        furthest = search.settleNext();
+        graph.relaxLeaving(furthest, search);
+      }
+      return furthest;
+    }
+    return IntStream.range(0, idBound).parallel()
+        .filter(id -> graph.getData(id) != null)
+        .boxed()
+        .reduce((a, b) -> {
+          double scoreA = separation(a, chosen);
+          double scoreB = separation(b, chosen);
+          return scoreB > scoreA || (scoreB == scoreA && b < a) ? b : a;
+        }).get();
+  }
+
+  // the smallest round trip cost between a node and any of the first chosen landmarks, where
+  // unreachable directions are left out, and nodes unconnected to any landmark are infinitely far
+  private double separation(int id, int chosen) {
+    double smallest = Double.POSITIVE_INFINITY;
+    for (int i = 0; i < chosen; i++) {
+      double from = fromLandmark[id * landmarks.length + i];
+      double to = toLandmark[id * landmarks.length + i];
+      double roundTrip;
+      if (from == Double.POSITIVE_INFINITY)
+        roundTrip = to;
+      else if (to == Double.POSITIVE_INFINITY)
+        roundTrip = from;
+      else
+        roundTrip = from + to;
+      smallest = Math.min(smallest, roundTrip);
+    }
+    return smallest;
+  }
+
+  // chooses a landmark with the avoid strategy of Goldberg and Werneck
+  private int selectAvoid(int chosen, Random random) {
+    int root;
+    do {
+      root = random.nextInt(idBound);
+    } while (graph.getData(root) == null);
+
+    // build the shortest path tree from root, remembering the order nodes are settled in
+    SearchState search = new SearchState();
+    search.reset(idBound);
+    search.start(root);
+    int[] order = new int[idBound];
+    int settled = 0;
+    while (!search.isFrontierEmpty()) {
+      int id = search.settleNext();
+      order[settled++] = id;
+      graph.relaxLeaving(id, search);
+    }
+
+    // weigh each node by how much the landmarks so far underestimate its cost from root, and
+    // sum these weights over each subtree, children before parents
+    boolean[] isLandmark = new boolean[idBound];
+    for (int i = 0; i < chosen; i++)
+      isLandmark[landmarks[i]] = true;
+    double[] size = new double[idBound];
+    boolean[] coversLandmark = new boolean[idBound];
+    for (int i = settled - 1; i >= 0; i--) {
+      int id = order[i];
+      size[id] += search.getDistance(id) - (chosen == 0 ? 0 : lowerBound(root, id, chosen));
+      coversLandmark[id] |= isLandmark[id];
+      int parent = search.getPredecessor(id);
+      if (parent != -1) {
+        coversLandmark[parent] |= coversLandmark[id];
+        if (!coversLandmark[id])
+          size[parent] += size[id];
+      }
+    }
+    for (int i = 0; i < settled; i++)
+      if (coversLandmark[order[i]])
+        size[order[i]] = 0;
+
+    // walk down from root through the largest child, until reaching a leaf
+    int[] largestChild = new int[idBound];
+    Arrays.fill(largestChild, -1);
+    for (int i = 1; i < settled; i++) {
+      int id = order[i];
+      int parent = search.getPredecessor(id);
+      if (largestChild[parent] == -1 || size[id] > size[largestChild[parent]])
+        largestChild[parent] = id;
+    }
+    int leaf = root;
+    while (largestChild[leaf] != -1 && size[largestChild[leaf]] > 0)
+      leaf = largestChild[leaf];
+    if (leaf == root || isLandmark[leaf])
+      return selectFarthest(chosen); // every subtree is already covered by a landmark
+    return leaf;
+  }
+
+  // the estimate between two nodes using only the first chosen landmarks
+  private double lowerBound(int source, int target, int chosen) {
+    double best = 0;
+    for (int i = 0; i < chosen; i++) {
+      double fromS = fromLandmark[source * landmarks.length + i];
+      double toT = toLandmark[target * landmarks.length + i];
+      if (fromS != Double.POSITIVE_INFINITY)
+        best = Math.max(best, fromLandmark[target * landmarks.length + i] - fromS);
+      if (toT != Double.POSITIVE_INFINITY)
+        best = Math.max(best, toLandmark[source * landmarks.length + i] - toT);
+    }
+    return best == Double.POSITIVE_INFINITY ? 0 : best;
+  }
+}
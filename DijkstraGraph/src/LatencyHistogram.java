@@ -0,0 +1,119 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class is a histogram of latencies in nanoseconds, with buckets laid out as in an
+ * HdrHistogram: values below 2^SUB_BUCKET_BITS each have their own bucket, and every larger power
+ * of two is split into 2^SUB_BUCKET_BITS buckets of equal width. So every value is counted within
+ * about 3% of itself, from a nanosecond up to the largest value tracked (about 18 minutes), in a
+ * fixed array of a little over a thousand counters. Recording a value takes a few bit operations
+ * and an atomic increment, and never allocates, so histograms can be shared by every request
+ * thread and left on in production.
+ */
+public class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int MAX_EXPONENT = 40; // values of 2^41 ns or more count as the largest
+  private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+  // the quantiles that writePrometheus reports
+  private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+  /**
+   * Counts one latency.
+   *
+   * @param nanos the latency in nanoseconds, where negative values count as zero
+   */
+  public void record(long nanos) {
+    long value = Math.max(0, nanos);
+    counts.incrementAndGet(bucket(value));
+    count.increment();
+    sum.add(value);
+    max.accumulate(value);
+  }
+
+  public long getCount() {
+    return count.sum();
+  }
+
+  public long getSum() {
+    return sum.sum();
+  }
+
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * Estimates a quantile of the recorded latencies, as the largest value in the bucket that holds
+   * it, but never more than the largest value recorded.
+   *
+   * @param quantile the fraction of latencies that should be no greater than the result
+   * @return that latency in nanoseconds, or 0 when nothing has been recorded
+   */
+  public long getQuantile(double quantile) {
+    long[] snapshot = new long[BUCKETS];
+    long total = 0;
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      snapshot[bucket] = counts.get(bucket);
+      total += snapshot[bucket];
+    }
+    long rank = Math.max(1, (long) Math.ceil(quantile * total));
+    long seen = 0;
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      seen += snapshot[bucket];
+      if (seen >= rank)
+        return Math.min(highestInBucket(bucket), getMax());
+    }
+    return 0;
+  }
+
+  /**
+   * Appends this histogram as the samples of a Prometheus summary, in seconds: its quantiles, and
+   * the sum and count of its latencies. The caller writes the HELP and TYPE lines of the metric,
+   * which are shared by every set of labels.
+   *
+   * @param out    the text to append to
+   * @param name   the name of the metric
+   * @param labels the labels that tell this histogram apart from others of the same metric, like
+   *               endpoint="path", or an empty string for none
+   */
+  public void writePrometheus(StringBuilder out, String name, String labels) {
+    String separator = labels.isEmpty() ? "" : ",";
+    for (double quantile : QUANTILES) {
+      out.append(name).append('{').append(labels).append(separator).append("quantile=\"")
+          .append(quantile).append("\"} ").append(getQuantile(quantile) / 1e9).append('\n');
+    }
+    String braces = labels.isEmpty() ? "" : "{" + labels + "}";
+    out.append(name).append("_sum").append(braces).append(' ').append(getSum() / 1e9)
+        .append('\n');
+    out.append(name).append("_count").append(braces).append(' ').append(getCount())
+        .append('\n');
+  }
+
+  // the bucket that a value is counted in
+  private static int bucket(long value) {
+    if (value < SUB_BUCKETS)
+      return (int) value;
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    if (exponent > MAX_EXPONENT)
+      return BUCKETS - 1;
+    int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  // the largest value that is counted in a bucket
+  private static long highestInBucket(int bucket) {
+    if (bucket < SUB_BUCKETS)
+      return bucket;
+    int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+    return lowest + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+  }
+}
@@ -0,0 +1,76 @@
+import java.util.Random;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTests {
+
+  /**
+   * tests that quantiles are within a few percent of the exact ones, and that the count, sum and
+   * maximum are exact
+   */
+  @Test
+  public void test1() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    Assertions.assertEquals(0, histogram.getQuantile(0.5));
+    for (long micros = 1; micros <= 100000; micros++)
+      histogram.record(micros * 1000);
+    Assertions.assertEquals(100000, histogram.getCount());
+    Assertions.assertEquals(100000L * 100001 / 2 * 1000, histogram.getSum());
+    Assertions.assertEquals(100000000, histogram.getMax());
+    Assertions.assertEquals(50000000, histogram.getQuantile(0.5), 50000000 * 0.04);
+    Assertions.assertEquals(99000000, histogram.getQuantile(0.99), 99000000 * 0.04);
+    Assertions.assertEquals(100000000, histogram.getQuantile(1.0));
+  }
+
+  /**
+   * tests that small values have buckets of their own, that each larger value is reported by the
+   * top of a bucket no more than 1/32 above it, and that negative and huge values are clamped
+   */
+  @Test
+  public void test2() {
+    for (long value = 0; value < 32; value++) {
+      LatencyHistogram histogram = new LatencyHistogram();
+      histogram.record(value);
+      histogram.record(Long.MAX_VALUE);
+      Assertions.assertEquals(value, histogram.getQuantile(0.5));
+    }
+    Random random = new Random(22);
+    for (int i = 0; i < 10000; i++) {
+      long value = 32 + (random.nextLong() >>> (23 + random.nextInt(40)));
+      LatencyHistogram histogram = new LatencyHistogram();
+      histogram.record(value);
+      histogram.record(Long.MAX_VALUE);
+      long reported = histogram.getQuantile(0.5);
+      Assertions.assertTrue(reported >= value && reported <= value + value / 32, value + " -> "
+          + reported);
+    }
+    LatencyHistogram clamped = new LatencyHistogram();
+    clamped.record(-5);
+    Assertions.assertEquals(0, clamped.getQuantile(1.0));
+    Assertions.assertEquals(0, clamped.getSum());
+    clamped.record(1L << 50);
+    Assertions.assertEquals(1L << 50, clamped.getMax());
+    // values past the largest bucket all share it, and are reported as at most the maximum
+    Assertions.assertTrue(clamped.getQuantile(1.0) < 1L << 42);
+  }
+
+  /**
+   * tests the Prometheus summary samples, with and without labels
+   */
+  @Test
+  public void test3() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(2000000000L);
+    StringBuilder out = new StringBuilder();
+    histogram.writePrometheus(out, "latency_seconds", "endpoint=\"path\"");
+    histogram.writePrometheus(out, "latency_seconds", "");
+    String text = out.toString();
+    Assertions.assertTrue(text.contains("latency_seconds{endpoint=\"path\",quantile=\"0.5\"} "),
+        text);
+    Assertions.assertTrue(text.contains("latency_seconds{quantile=\"0.999\"} 2.0\n"), text);
+    Assertions.assertTrue(text.contains("latency_seconds_sum{endpoint=\"path\"} 2.0\n"), text);
+    Assertions.assertTrue(text.contains("latency_seconds_sum 2.0\n"), text);
+    Assertions.assertTrue(text.contains("latency_seconds_count 1\n"), text);
+    Assertions.assertEquals(12, text.split("\n").length);
+  }
+}
@@ -33,6 +33,18 @@ public interface MapADT<KeyType, ValueType> {
      */
     public ValueType get(KeyType key) throws NoSuchElementException;
 
+    /**
+     * Retrieves the value that a key maps to, or a default value when the key
+     * is not stored in this collection. Implementations can override this to
+     * find the key with a single lookup.
+     * @param key the key to look up
+     * @param defaultValue the value to return when key is not stored
+     * @return the value that key maps to, or defaultValue
+     */
+    public default ValueType getOrDefault(KeyType key, ValueType defaultValue) {
+        return containsKey(key) ? get(key) : defaultValue;
+    }
+
     /**
      * Remove the mapping for a key from this collection.
      * @param key the key whose mapping to remove
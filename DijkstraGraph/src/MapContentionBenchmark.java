@@ -0,0 +1,116 @@
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures the throughput of node lookups under contention, for a ConcurrentHashtableMap and for a
+ * HashtableMap behind a single lock, at 1 to 64 threads. Each thread looks up random keys from a
+ * map that starts out holding the keys of every other slot of a key space, and a fraction of its
+ * operations instead insert or remove a key, as a live feed of node updates would.
+ *
+ * Run with: java MapContentionBenchmark [keys] [writePercent] [millisPerRun]
+ */
+public class MapContentionBenchmark {
+
+  /**
+   * A HashtableMap (or any other MapADT) whose every method holds the same lock.
+   */
+  protected static class SingleLockMap<KeyType, ValueType> implements MapADT<KeyType, ValueType> {
+    private final MapADT<KeyType, ValueType> map;
+
+    public SingleLockMap(MapADT<KeyType, ValueType> map) {
+      this.map = map;
+    }
+
+    public synchronized void put(KeyType key, ValueType value) {
+      map.put(key, value);
+    }
+
+    public synchronized boolean containsKey(KeyType key) {
+      return map.containsKey(key);
+    }
+
+    public synchronized ValueType get(KeyType key) {
+      return map.get(key);
+    }
+
+    public synchronized ValueType remove(KeyType key) {
+      return map.remove(key);
+    }
+
+    public synchronized void clear() {
+      map.clear();
+    }
+
+    public synchronized int getSize() {
+      return map.getSize();
+    }
+
+    public synchronized int getCapacity() {
+      return map.getCapacity();
+    }
+
+    public synchronized List<KeyType> getKeys() {
+      return map.getKeys();
+    }
+  }
+
+  public static void main(String[] args) throws InterruptedException {
+    int keys = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+    int writePercent = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+    long millis = args.length > 2 ? Long.parseLong(args[2]) : 1000;
+    System.out.println("keys=" + keys + " writes=" + writePercent + "% cores="
+        + Runtime.getRuntime().availableProcessors());
+    System.out.println("threads  single-lock HashtableMap  ConcurrentHashtableMap  (Mops/s)");
+    for (int threads = 1; threads <= 64; threads *= 2) {
+      double locked = run(new SingleLockMap<>(new HashtableMap<>()), threads, keys, writePercent,
+          millis);
+      double striped = run(new ConcurrentHashtableMap<>(), threads, keys, writePercent, millis);
+      System.out.printf("%7d  %26.3f  %22.3f%n", threads, locked, striped);
+    }
+  }
+
+  // runs the workload on a freshly filled map, and returns millions of operations per second
+  private static double run(MapADT<Integer, Integer> map, int threads, int keys, int writePercent,
+      long millis) throws InterruptedException {
+    for (int key = 0; key < keys; key += 2)
+      map.put(key, key);
+    LongAdder operations = new LongAdder();
+    AtomicBoolean running = new AtomicBoolean(true);
+    CountDownLatch ready = new CountDownLatch(threads);
+    Thread[] workers = new Thread[threads];
+    for (int i = 0; i < threads; i++) {
+      workers[i] = new Thread(() -> {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long done = 0;
+        ready.countDown();
+        while (running.get()) {
+          int key = random.nextInt(keys);
+          try {
+            if (random.nextInt(100) >= writePercent)
+              map.containsKey(key);
+            else if (key % 2 == 1 && !map.containsKey(key))
+              map.put(key, key);
+            else
+              map.remove(key);
+          } catch (IllegalArgumentException | NoSuchElementException e) {
+            // another thread changed the same key in between
+          }
+          done++;
+        }
+        operations.add(done);
+      });
+      workers[i].start();
+    }
+    ready.await();
+    long start = System.nanoTime();
+    Thread.sleep(millis);
+    running.set(false);
+    for (Thread worker : workers)
+      worker.join();
+    return operations.sum() / ((System.nanoTime() - start) / 1e3);
+  }
+}
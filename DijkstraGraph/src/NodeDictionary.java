@@ -0,0 +1,122 @@
+import java.util.Arrays;
+
+/**
+ * This class interns node data items to dense int ids: each distinct item gets an id when it is
+ * added, and keeps it until it is removed, after which its id is reused by a later item. Ids are
+ * looked up from data items with a MapADT, which is the only hashtable keyed by the items, and
+ * data items are looked up from ids with a plain array, so that everything behind the API
+ * boundary of a graph can work on ints alone.
+ */
+public class NodeDictionary<NodeType> {
+
+  private final MapADT<NodeType, Integer> ids; // the id of each data item
+  private Object[] data = new Object[16]; // the data item of each id, or null for unused ids
+  private int idBound = 0; // one more than the largest id ever used
+  private int[] freeIds = new int[16]; // a stack of unused ids below idBound
+  private int freeCount = 0;
+
+  /**
+   * Creates an empty dictionary that looks up ids with the provided map.
+   *
+   * @param ids an empty map, which this dictionary fills with the id of each data item
+   */
+  public NodeDictionary(MapADT<NodeType, Integer> ids) {
+    this.ids = ids;
+  }
+
+  /**
+   * Creates an empty dictionary that looks up ids with an OpenAddressingMap.
+   */
+  public NodeDictionary() {
+    this(new OpenAddressingMap<>());
+  }
+
+  /**
+   * Retrieves the id of a data item, adding it with a new id when it is not present yet.
+   *
+   * @param item the data item to intern
+   * @return the id of item
+   * @throws NullPointerException if item is null
+   */
+  public int intern(NodeType item) {
+    Integer found = ids.getOrDefault(item, null);
+    if (found != null)
+      return found;
+    int id = freeCount > 0 ? freeIds[--freeCount] : idBound++;
+    if (id == data.length)
+      data = Arrays.copyOf(data, id * 2);
+    data[id] = item;
+    ids.put(item, id);
+    return id;
+  }
+
+  /**
+   * Retrieves the id of a data item.
+   *
+   * @param item the data item to look up
+   * @return the id of item, or -1 when it is not present
+   */
+  public int getId(NodeType item) {
+    if (item == null)
+      return -1;
+    Integer found = ids.getOrDefault(item, null);
+    return found == null ? -1 : found;
+  }
+
+  /**
+   * Retrieves the data item with an id.
+   *
+   * @param id the id to look up
+   * @return the data item with that id, or null when that id is not in use
+   */
+  @SuppressWarnings("unchecked")
+  public NodeType getData(int id) {
+    return id >= 0 && id < idBound ? (NodeType) data[id] : null;
+  }
+
+  /**
+   * Removes a data item, so that its id can be reused by a later item.
+   *
+   * @param item the data item to remove
+   * @return the id that item had, or -1 when it was not present
+   */
+  public int remove(NodeType item) {
+    if (item == null || !ids.containsKey(item))
+      return -1;
+    int id = ids.remove(item);
+    data[id] = null;
+    if (freeCount == freeIds.length)
+      freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+    freeIds[freeCount++] = id;
+    return id;
+  }
+
+  /**
+   * Removes every data item, so that ids are handed out from 0 again.
+   */
+  public void clear() {
+    ids.clear();
+    Arrays.fill(data, 0, idBound, null);
+    idBound = 0;
+    freeCount = 0;
+  }
+
+  /**
+   * Retrieves one more than the largest id in use, so that arrays of that length can be indexed by
+   * every id.
+   *
+   * @return the upper bound on ids
+   */
+  public int getIdBound() {
+    return idBound;
+  }
+
+  /**
+   * Retrieves the number of data items in this dictionary.
+   *
+   * @return the number of interned data items
+   */
+  public int getSize() {
+    return ids.getSize();
+  }
+}
@@ -0,0 +1,181 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * This class allocates blocks of memory outside of the Java heap, from direct ByteBuffers that are
+ * reserved a segment at a time. Blocks are addressed by longs, whose high half is the index of
+ * their segment and whose low half is their offset within it, so the garbage collector only ever
+ * sees the small array of segments, no matter how much is allocated.
+ *
+ * Block sizes are rounded up to powers of two. A freed block is pushed onto the free list for its
+ * size, whose links are stored in the freed blocks themselves, and is reused by the next
+ * allocation of that size. Segments start small and double in size up to MAX_SEGMENT_BYTES, so
+ * that small graphs reserve little memory, while large ones need only a few segments.
+ */
+public class OffHeapArena {
+
+  /**
+   * The address that stands for no block at all.
+   */
+  public static final long NULL = -1;
+
+  // the smallest block holds a free list link, and the largest fills a whole segment
+  private static final int MIN_BLOCK_BYTES = 8;
+  private static final int MIN_SEGMENT_BYTES = 1 << 20;
+  private static final int MAX_SEGMENT_BYTES = 1 << 30;
+
+  private ByteBuffer[] segments = new ByteBuffer[4];
+  private int segmentCount = 0;
+  private int top = 0; // the offset within the last segment where its unallocated space starts
+  private long reservedBytes = 0;
+  private long allocatedBytes = 0;
+  // the first free block of each power-of-two size, or NULL
+  private final long[] freeBlocks = new long[31];
+
+  public OffHeapArena() {
+    Arrays.fill(freeBlocks, NULL);
+  }
+
+  /**
+   * Allocates a block, which is not cleared and may still hold the contents of a freed block.
+   *
+   * @param bytes the number of bytes needed
+   * @return the address of a block of at least that many bytes
+   * @throws IllegalArgumentException if bytes is negative or larger than a segment
+   */
+  public long allocate(int bytes) {
+    int sizeClass = sizeClass(bytes);
+    int blockBytes = 1 << sizeClass;
+    allocatedBytes += blockBytes;
+    long address = freeBlocks[sizeClass];
+    if (address != NULL) {
+      freeBlocks[sizeClass] = getLong(address);
+      return address;
+    }
+    if (segmentCount == 0 || top + blockBytes > segments[segmentCount - 1].capacity()) {
+      // any space left at the end of the last segment is abandoned
+      int size = segmentCount == 0 ? MIN_SEGMENT_BYTES
+          : (int) Math.min(MAX_SEGMENT_BYTES, 2L * segments[segmentCount - 1].capacity());
+      if (segmentCount == segments.length)
+        segments = Arrays.copyOf(segments, segmentCount * 2);
+      segments[segmentCount++] =
+          ByteBuffer.allocateDirect(Math.max(size, blockBytes)).order(ByteOrder.nativeOrder());
+      reservedBytes += segments[segmentCount - 1].capacity();
+      top = 0;
+    }
+    address = ((long) (segmentCount - 1) << 32) | top;
+    top += blockBytes;
+    return address;
+  }
+
+  /**
+   * Frees a block, so that later allocations of the same size can reuse it.
+   *
+   * @param address the address of the block
+   * @param bytes   the number of bytes that were requested when it was allocated
+   */
+  public void free(long address, int bytes) {
+    int sizeClass = sizeClass(bytes);
+    allocatedBytes -= 1 << sizeClass;
+    putLong(address, freeBlocks[sizeClass]);
+    freeBlocks[sizeClass] = address;
+  }
+
+  /**
+   * Retrieves the number of bytes that a block of some size really takes up.
+   *
+   * @param bytes the number of bytes requested
+   * @return the size of the block that allocate would return
+   */
+  public static int blockBytes(int bytes) {
+    return 1 << sizeClass(bytes);
+  }
+
+  /**
+   * Retrieves the number of bytes reserved outside the heap for all segments.
+   *
+   * @return the total capacity of all segments
+   */
+  public long getReservedBytes() {
+    return reservedBytes;
+  }
+
+  /**
+   * Retrieves the number of bytes in blocks that are allocated and not freed.
+   *
+   * @return the total size of all blocks in use
+   */
+  public long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  /**
+   * Frees every block and releases every segment.
+   */
+  public void clear() {
+    Arrays.fill(segments, null);
+    segmentCount = 0;
+    top = 0;
+    reservedBytes = 0;
+    allocatedBytes = 0;
+    Arrays.fill(freeBlocks, NULL);
+  }
+
+  // reads and writes of single values at an address within a block, in native byte order
+
+  public byte getByte(long address) {
+    return segments[(int) (address >>> 32)].get((int) address);
+  }
+
+  public int getInt(long address) {
+    return segments[(int) (address >>> 32)].getInt((int) address);
+  }
+
+  public void putInt(long address, int value) {
+    segments[(int) (address >>> 32)].putInt((int) address, value);
+  }
+
+  public long getLong(long address) {
+    return segments[(int) (address >>> 32)].getLong((int) address);
+  }
+
+  public void putLong(long address, long value) {
+    segments[(int) (address >>> 32)].putLong((int) address, value);
+  }
+
+  public double getDouble(long address) {
+    return segments[(int) (address >>> 32)].getDouble((int) address);
+  }
+
+  public void putDouble(long address, double value) {
+    segments[(int) (address >>> 32)].putDouble((int) address, value);
+  }
+
+  public void getBytes(long address, byte[] bytes) {
+    segments[(int) (address >>> 32)].get((int) address, bytes);
+  }
+
+  public void putBytes(long address, byte[] bytes) {
+    segments[(int) (address >>> 32)].put((int) address, bytes);
+  }
+
+  /**
+   * Copies bytes from one block to another.
+   *
+   * @param from  the address to copy from
+   * @param to    the address to copy to
+   * @param bytes the number of bytes to copy
+   */
+  public void copy(long from, long to, int bytes) {
+    ByteBuffer source = segments[(int) (from >>> 32)];
+    segments[(int) (to >>> 32)].put((int) to, source, (int) from, bytes);
+  }
+
+  // the power of two that blocks of this many bytes are rounded up to
+  private static int sizeClass(int bytes) {
+    if (bytes < 0 || bytes > MAX_SEGMENT_BYTES)
+      throw new IllegalArgumentException("cannot allocate " + bytes + " bytes");
+    return 32 - Integer.numberOfLeadingZeros(Math.max(bytes, MIN_BLOCK_BYTES) - 1);
+  }
+}
@@ -0,0 +1,409 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * This class is a graph that keeps all of its nodes and edges outside of the Java heap, in the
+ * blocks of an OffHeapArena, so that a graph of any size adds almost nothing to the heap, and the
+ * time the garbage collector spends on it does not grow with it. Nodes are numbered by dense ids,
+ * and answer queries the same way as DijkstraGraph does.
+ *
+ * Each node id has a 64 byte record, with the address and length of its UTF-8 name, the hash of
+ * its name, and the address, count and capacity of the blocks holding its leaving and entering
+ * edges. Records are stored in pages of 2^14 records. Each edge takes 12 bytes in each of its two
+ * lists: the id of the node at its other end and its weight. Names are found through an
+ * open-addressing table of ids, which is off-heap too. The ids of removed nodes are linked into a
+ * free list through their records, and reused by later nodes.
+ *
+ * Like BaseGraph, this graph may be queried by many threads at once, as long as no thread
+ * modifies it meanwhile.
+ */
+public class OffHeapGraph extends AbstractIndexedGraph {
+
+  // the layout of a node record
+  private static final int RECORD_BYTES = 64;
+  private static final int NAME_ADDRESS = 0; // long
+  private static final int NAME_LENGTH = 8; // int, or -1 when the id is not in use
+  private static final int NAME_HASH = 12; // int, or the next free id when not in use
+  private static final int LEAVING = 16; // the edge list fields of leaving edges
+  private static final int ENTERING = 32; // the edge list fields of entering edges
+  // the layout of the fields of an edge list, relative to LEAVING or ENTERING
+  private static final int BLOCK = 0; // long
+  private static final int COUNT = 8; // int
+  private static final int CAPACITY = 12; // int, in edges
+  // the layout of an edge within an edge list
+  private static final int EDGE_BYTES = 12;
+  private static final int EDGE_WEIGHT = 4; // the neighbor is at 0
+
+  private static final int PAGE_SHIFT = 14;
+  private static final int PAGE_RECORDS = 1 << PAGE_SHIFT;
+
+  private final OffHeapArena arena = new OffHeapArena();
+  private long[] pages = new long[16]; // the address of each page of node records
+  private int idBound = 0;
+  private int freeId = -1; // the most recently freed id, or -1
+  private int nodeCount = 0;
+  private int edgeCount = 0;
+
+  private long slots; // the address of the name table, holding id + 1 or 0 for free slots
+  private int slotCount = 16;
+
+  public OffHeapGraph() {
+    slots = allocateSlots(slotCount);
+  }
+
+  /**
+   * Retrieves the number of bytes that this graph has reserved outside of the heap.
+   *
+   * @return the total size of the arena's segments
+   */
+  public long getOffHeapBytes() {
+    return arena.getReservedBytes();
+  }
+
+  @Override
+  public int getId(String name) {
+    if (name == null)
+      return -1;
+    byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+    int slot = findSlot(encoded, hash(encoded));
+    return slot == -1 ? -1 : arena.getInt(slots + 4L * slot) - 1;
+  }
+
+  @Override
+  public String getName(int id) {
+    if (id < 0 || id >= idBound)
+      return null;
+    long record = record(id);
+    int length = arena.getInt(record + NAME_LENGTH);
+    if (length <= 0)
+      return length == 0 ? "" : null;
+    byte[] bytes = new byte[length];
+    arena.getBytes(arena.getLong(record + NAME_ADDRESS), bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Insert a new node into the graph.
+   *
+   * @param data is the name of the new node
+   * @return true if the name is unique and a node was inserted, or false if the name is already
+   *         in the graph
+   * @throws NullPointerException if data is null
+   */
+  @Override
+  public boolean insertNode(String data) {
+    byte[] encoded = data.getBytes(StandardCharsets.UTF_8); // throws NPE when data's null
+    int hash = hash(encoded);
+    if (findSlot(encoded, hash) != -1)
+      return false;
+    int id;
+    if (freeId != -1) {
+      id = freeId;
+      freeId = arena.getInt(record(id) + NAME_HASH);
+    } else {
+      id = idBound++;
+      if ((id & (PAGE_RECORDS - 1)) == 0) {
+        if ((id >>> PAGE_SHIFT) == pages.length)
+          pages = Arrays.copyOf(pages, pages.length * 2);
+        pages[id >>> PAGE_SHIFT] = arena.allocate(PAGE_RECORDS * RECORD_BYTES);
+      }
+    }
+    long record = record(id);
+    long name = OffHeapArena.NULL;
+    if (encoded.length > 0) {
+      name = arena.allocate(encoded.length);
+      arena.putBytes(name, encoded);
+    }
+    arena.putLong(record + NAME_ADDRESS, name);
+    arena.putInt(record + NAME_LENGTH, encoded.length);
+    arena.putInt(record + NAME_HASH, hash);
+    for (int list : new int[] {LEAVING, ENTERING}) {
+      arena.putLong(record + list + BLOCK, OffHeapArena.NULL);
+      arena.putInt(record + list + COUNT, 0);
+      arena.putInt(record + list + CAPACITY, 0);
+    }
+    int slot = hash & (slotCount - 1);
+    while (arena.getInt(slots + 4L * slot) != 0)
+      slot = (slot + 1) & (slotCount - 1);
+    arena.putInt(slots + 4L * slot, id + 1);
+    nodeCount++;
+    if (nodeCount * 2 > slotCount)
+      rehash();
+    return true;
+  }
+
+  /**
+   * Remove a node from the graph, and all edges adjacent to that node.
+   *
+   * @param data is the name of the node to be removed
+   * @return true if a node with that name is found and removed, or false if it is not found
+   * @throws NullPointerException if data is null
+   */
+  @Override
+  public boolean removeNode(String data) {
+    byte[] encoded = data.getBytes(StandardCharsets.UTF_8); // throws NPE when data's null
+    int free = findSlot(encoded, hash(encoded));
+    if (free == -1)
+      return false;
+    int id = arena.getInt(slots + 4L * free) - 1;
+    long record = record(id);
+
+    // remove the edges of this node from the lists of its neighbors, counting self loops once
+    int removed = arena.getInt(record + LEAVING + COUNT) + arena.getInt(record + ENTERING + COUNT);
+    long leaving = arena.getLong(record + LEAVING + BLOCK);
+    for (int i = arena.getInt(record + LEAVING + COUNT) - 1; i >= 0; i--) {
+      int successor = arena.getInt(leaving + (long) i * EDGE_BYTES);
+      if (successor == id)
+        removed--;
+      else
+        removeFromList(record(successor) + ENTERING, id);
+    }
+    long entering = arena.getLong(record + ENTERING + BLOCK);
+    for (int i = arena.getInt(record + ENTERING + COUNT) - 1; i >= 0; i--) {
+      int predecessor = arena.getInt(entering + (long) i * EDGE_BYTES);
+      if (predecessor != id)
+        removeFromList(record(predecessor) + LEAVING, id);
+    }
+    edgeCount -= removed;
+    freeList(record + LEAVING);
+    freeList(record + ENTERING);
+    if (arena.getInt(record + NAME_LENGTH) > 0)
+      arena.free(arena.getLong(record + NAME_ADDRESS), arena.getInt(record + NAME_LENGTH));
+
+    // move back each following entry in this run that would otherwise become unreachable
+    int mask = slotCount - 1;
+    for (int next = (free + 1) & mask; arena.getInt(slots + 4L * next) != 0;
+        next = (next + 1) & mask) {
+      int entry = arena.getInt(slots + 4L * next);
+      int home = arena.getInt(record(entry - 1) + NAME_HASH) & mask;
+      if (((next - home) & mask) >= ((next - free) & mask)) {
+        arena.putInt(slots + 4L * free, entry);
+        free = next;
+      }
+    }
+    arena.putInt(slots + 4L * free, 0);
+
+    arena.putInt(record + NAME_LENGTH, -1);
+    arena.putInt(record + NAME_HASH, freeId);
+    freeId = id;
+    nodeCount--;
+    return true;
+  }
+
+  @Override
+  public int getNodeCount() {
+    return nodeCount;
+  }
+
+  /**
+   * Insert a new directed edge into the graph, or if an edge between pred and succ already
+   * exists, update its weight.
+   *
+   * @param pred   is the name of the new edge's predecessor node
+   * @param succ   is the name of the new edge's successor node
+   * @param weight is the non-negative weight of the new edge
+   * @return true if the edge could be inserted or updated, or false if the pred or succ names are
+   *         not found in any graph nodes
+   */
+  @Override
+  public boolean insertEdge(String pred, String succ, Double weight) {
+    int predId = getId(pred);
+    int succId = getId(succ);
+    if (predId == -1 || succId == -1)
+      return false;
+    long predRecord = record(predId);
+    long succRecord = record(succId);
+    long leaving = findInList(predRecord + LEAVING, succId);
+    if (leaving != OffHeapArena.NULL) {
+      arena.putDouble(leaving + EDGE_WEIGHT, weight);
+      arena.putDouble(findInList(succRecord + ENTERING, predId) + EDGE_WEIGHT, weight);
+    } else {
+      appendToList(predRecord + LEAVING, succId, weight);
+      appendToList(succRecord + ENTERING, predId, weight);
+      edgeCount++;
+    }
+    return true;
+  }
+
+  @Override
+  public boolean removeEdge(String pred, String succ) {
+    int predId = getId(pred);
+    int succId = getId(succ);
+    if (predId == -1 || succId == -1 || !removeFromList(record(predId) + LEAVING, succId))
+      return false;
+    removeFromList(record(succId) + ENTERING, predId);
+    edgeCount--;
+    return true;
+  }
+
+  @Override
+  public boolean containsEdge(String pred, String succ) {
+    int predId = getId(pred);
+    int succId = getId(succ);
+    return predId != -1 && succId != -1
+        && findInList(record(predId) + LEAVING, succId) != OffHeapArena.NULL;
+  }
+
+  @Override
+  public Double getEdge(String pred, String succ) {
+    int predId = getId(pred);
+    int succId = getId(succ);
+    long edge = predId == -1 || succId == -1 ? OffHeapArena.NULL
+        : findInList(record(predId) + LEAVING, succId);
+    if (edge == OffHeapArena.NULL)
+      throw new NoSuchElementException("No edge from " + pred + " to " + succ);
+    return arena.getDouble(edge + EDGE_WEIGHT);
+  }
+
+  @Override
+  public int getEdgeCount() {
+    return edgeCount;
+  }
+
+  @Override
+  public int getIdBound() {
+    return idBound;
+  }
+
+  @Override
+  public void relaxLeaving(int id, SearchState search) {
+    long list = record(id) + LEAVING;
+    long edge = arena.getLong(list + BLOCK);
+    long end = edge + (long) arena.getInt(list + COUNT) * EDGE_BYTES;
+    for (; edge < end; edge += EDGE_BYTES)
+      search.relax(id, arena.getInt(edge), arena.getDouble(edge + EDGE_WEIGHT));
+  }
+
+  @Override
+  public void relaxEntering(int id, SearchState search) {
+    long list = record(id) + ENTERING;
+    long edge = arena.getLong(list + BLOCK);
+    long end = edge + (long) arena.getInt(list + COUNT) * EDGE_BYTES;
+    for (; edge < end; edge += EDGE_BYTES)
+      search.relax(id, arena.getInt(edge), arena.getDouble(edge + EDGE_WEIGHT));
+  }
+
+  @Override
+  public double getWeight(int predecessor, int successor) {
+    long edge = findInList(record(predecessor) + LEAVING, successor);
+    if (edge == OffHeapArena.NULL)
+      throw new NoSuchElementException("No edge from " + predecessor + " to " + successor);
+    return arena.getDouble(edge + EDGE_WEIGHT);
+  }
+
+  // the address of the record of a node id
+  private long record(int id) {
+    return pages[id >>> PAGE_SHIFT] + (long) (id & (PAGE_RECORDS - 1)) * RECORD_BYTES;
+  }
+
+  // finds the address of the edge to neighbor within an edge list, or returns NULL
+  private long findInList(long list, int neighbor) {
+    long edge = arena.getLong(list + BLOCK);
+    long end = edge + (long) arena.getInt(list + COUNT) * EDGE_BYTES;
+    for (; edge < end; edge += EDGE_BYTES)
+      if (arena.getInt(edge) == neighbor)
+        return edge;
+    return OffHeapArena.NULL;
+  }
+
+  // adds an edge to the end of an edge list, doubling its block when it is full
+  private void appendToList(long list, int neighbor, double weight) {
+    long block = arena.getLong(list + BLOCK);
+    int count = arena.getInt(list + COUNT);
+    int capacity = arena.getInt(list + CAPACITY);
+    if (count == capacity) {
+      int bytes = OffHeapArena.blockBytes(Math.max(2, capacity * 2) * EDGE_BYTES);
+      long grown = arena.allocate(bytes);
+      if (capacity > 0) {
+        arena.copy(block, grown, count * EDGE_BYTES);
+        arena.free(block, capacity * EDGE_BYTES);
+      }
+      block = grown;
+      arena.putLong(list + BLOCK, block);
+      arena.putInt(list + CAPACITY, bytes / EDGE_BYTES);
+    }
+    long edge = block + (long) count * EDGE_BYTES;
+    arena.putInt(edge, neighbor);
+    arena.putDouble(edge + EDGE_WEIGHT, weight);
+    arena.putInt(list + COUNT, count + 1);
+  }
+
+  // removes the edge to neighbor from an edge list by moving the last edge into its place, and
+  // returns false when there is no such edge
+  private boolean removeFromList(long list, int neighbor) {
+    long edge = findInList(list, neighbor);
+    if (edge == OffHeapArena.NULL)
+      return false;
+    int count = arena.getInt(list + COUNT) - 1;
+    long last = arena.getLong(list + BLOCK) + (long) count * EDGE_BYTES;
+    arena.putInt(edge, arena.getInt(last));
+    arena.putDouble(edge + EDGE_WEIGHT, arena.getDouble(last + EDGE_WEIGHT));
+    arena.putInt(list + COUNT, count);
+    return true;
+  }
+
+  private void freeList(long list) {
+    int capacity = arena.getInt(list + CAPACITY);
+    if (capacity > 0)
+      arena.free(arena.getLong(list + BLOCK), capacity * EDGE_BYTES);
+  }
+
+  // finds the slot of the name table holding the id of a name, or returns -1
+  private int findSlot(byte[] encoded, int hash) {
+    int mask = slotCount - 1;
+    for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+      int entry = arena.getInt(slots + 4L * slot);
+      if (entry == 0)
+        return -1;
+      long record = record(entry - 1);
+      if (arena.getInt(record + NAME_HASH) == hash && nameEquals(record, encoded))
+        return slot;
+    }
+  }
+
+  private boolean nameEquals(long record, byte[] encoded) {
+    if (arena.getInt(record + NAME_LENGTH) != encoded.length)
+      return false;
+    long name = arena.getLong(record + NAME_ADDRESS);
+    for (int i = 0; i < encoded.length; i++)
+      if (arena.getByte(name + i) != encoded[i])
+        return false;
+    return true;
+  }
+
+  // doubles the name table, placing each id straight into its first free slot
+  private void rehash() {
+    long oldSlots = slots;
+    int oldCount = slotCount;
+    slotCount *= 2;
+    slots = allocateSlots(slotCount);
+    int mask = slotCount - 1;
+    for (int i = 0; i < oldCount; i++) {
+      int entry = arena.getInt(oldSlots + 4L * i);
+      if (entry == 0)
+        continue;
+      int slot = arena.getInt(record(entry - 1) + NAME_HASH) & mask;
+      while (arena.getInt(slots + 4L * slot) != 0)
+        slot = (slot + 1) & mask;
+      arena.putInt(slots + 4L * slot, entry);
+    }
+    arena.free(oldSlots, 4 * oldCount);
+  }
+
+  private long allocateSlots(int count) {
+    long table = arena.allocate(4 * count);
+    for (int i = 0; i < count; i += 2)
+      arena.putLong(table + 4L * i, 0);
+    return table;
+  }
+
+  // hashes the UTF-8 bytes of a name, spreading the bits across the low bits used to choose a slot
+  private static int hash(byte[] encoded) {
+    int hash = 0;
+    for (byte b : encoded)
+      hash = hash * 31 + b;
+    hash *= 0x9E3779B9;
+    return hash ^ (hash >>> 16);
+  }
+}
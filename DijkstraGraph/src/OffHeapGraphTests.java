@@ -0,0 +1,92 @@
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class OffHeapGraphTests {
+
+  /**
+   * tests that random insertions, updates and removals of nodes and edges leave an OffHeapGraph
+   * with the same nodes, edges and shortest paths as a DijkstraGraph
+   */
+  @Test
+  public void test1() {
+    OffHeapGraph graph = new OffHeapGraph();
+    DijkstraGraph<String, Double> expected = new DijkstraGraph<>();
+    Random random = new Random(17);
+    for (int step = 0; step < 20000; step++) {
+      String a = "node" + random.nextInt(300);
+      String b = random.nextInt(50) == 0 ? a : "node" + random.nextInt(300);
+      int operation = random.nextInt(100);
+      if (operation < 20)
+        Assertions.assertEquals(expected.insertNode(a), graph.insertNode(a));
+      else if (operation < 22)
+        Assertions.assertEquals(expected.removeNode(a), graph.removeNode(a));
+      else if (operation < 85) {
+        double weight = random.nextInt(1000) / 10.0;
+        Assertions.assertEquals(expected.insertEdge(a, b, weight), graph.insertEdge(a, b, weight));
+      } else
+        Assertions.assertEquals(expected.removeEdge(a, b), graph.removeEdge(a, b));
+    }
+    Assertions.assertEquals(new HashSet<>(expected.getAllNodes()),
+        new HashSet<>(graph.getAllNodes()));
+    Assertions.assertEquals(expected.getNodeCount(), graph.getNodeCount());
+    int edges = 0;
+    List<String> nodes = expected.getAllNodes();
+    for (String a : nodes) {
+      for (String b : nodes) {
+        Assertions.assertEquals(expected.containsEdge(a, b), graph.containsEdge(a, b));
+        if (expected.containsEdge(a, b)) {
+          Assertions.assertEquals(expected.getEdge(a, b), graph.getEdge(a, b));
+          edges++;
+        }
+      }
+    }
+    Assertions.assertEquals(edges, graph.getEdgeCount());
+    for (int i = 0; i < 200; i++) {
+      String a = nodes.get(random.nextInt(nodes.size()));
+      String b = nodes.get(random.nextInt(nodes.size()));
+      try {
+        double cost = expected.shortestPathCost(a, b);
+        Assertions.assertEquals(cost, graph.shortestPathCost(a, b), 1e-9);
+        Assertions.assertEquals(a, graph.shortestPathData(a, b).get(0));
+      } catch (NoSuchElementException e) {
+        Assertions.assertThrows(NoSuchElementException.class, () -> graph.shortestPathCost(a, b));
+      }
+    }
+    Assertions.assertThrows(NoSuchElementException.class, () -> graph.getEdge("none", "node1"));
+    Assertions.assertFalse(graph.insertEdge("none", "node1", 1.0));
+  }
+
+  /**
+   * tests that a Backend gives the same answers for campus.dot with an OffHeapGraph as with a
+   * DijkstraGraph, and that loading it again reuses the memory of the removed nodes
+   */
+  @Test
+  public void test2() throws IOException {
+    OffHeapGraph graph = new OffHeapGraph();
+    Backend backend = new Backend(graph);
+    Backend expected = new Backend(new DijkstraGraph<>());
+    backend.loadGraphData("campus.dot");
+    expected.loadGraphData("campus.dot");
+    long reserved = graph.getOffHeapBytes();
+    backend.loadGraphData("campus.dot");
+    Assertions.assertEquals(reserved, graph.getOffHeapBytes());
+    List<String> locations = expected.getListOfAllLocations();
+    Assertions.assertEquals(new HashSet<>(locations),
+        new HashSet<>(backend.getListOfAllLocations()));
+    for (int i = 0; i < locations.size(); i += 5) {
+      String start = locations.get(i);
+      Assertions.assertEquals(expected.getFurthestDestinationFrom(start),
+          backend.getFurthestDestinationFrom(start));
+      for (int j = 0; j < locations.size(); j += 13) {
+        String end = locations.get(j);
+        Assertions.assertEquals(expected.findLocationsOnShortestPath(start, end),
+            backend.findLocationsOnShortestPath(start, end));
+      }
+    }
+  }
+}
@@ -0,0 +1,217 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Implements MapADT with open addressing: keys and values are stored directly in parallel arrays,
+ * and a key that collides with another is placed in the next free slot (linear probing). The
+ * capacity is always a power of two, so a hash is turned into a slot by masking off its low bits.
+ *
+ * Unlike HashtableMap, the number of keys is kept in a counter rather than counted on demand, put
+ * finds a duplicate key and a free slot with the same probe, and rehashing moves every key into
+ * the larger arrays in a single pass without any further checks. Removal shifts later keys of
+ * the same probe sequence back, so no deleted markers are left behind to slow down lookups.
+ */
+public class OpenAddressingMap<KeyType, ValueType> implements MapADT<KeyType, ValueType> {
+
+  // the table grows once it would be more than two thirds full
+  private static final int LOAD_NUMERATOR = 2;
+  private static final int LOAD_DENOMINATOR = 3;
+
+  protected Object[] keys; // null for free slots
+  protected Object[] values;
+  protected int[] hashes; // the mixed hash of each key, so that rehashing never calls hashCode
+  protected int mask; // keys.length - 1
+  protected int size = 0;
+
+  public OpenAddressingMap(int capacity) {
+    allocate(Math.max(2, Integer.highestOneBit(Math.max(1, capacity) * 2 - 1)));
+  }
+
+  public OpenAddressingMap() {
+    // with default capacity = 64
+    allocate(64);
+  }
+
+  /**
+   * Adds a new key,value pair/mapping to this collection. It is ok that the value is null.
+   *
+   * @param key   the key of the key,value pair
+   * @param value the value that key maps to
+   * @throws IllegalArgumentException if key already maps to a value
+   * @throws NullPointerException     if key is null
+   */
+  @Override
+  public void put(KeyType key, ValueType value) throws IllegalArgumentException {
+    if (key == null)
+      throw new NullPointerException("null keys not allowed");
+    int hash = Hashing.mix(key);
+    int slot = hash & mask;
+    while (keys[slot] != null) {
+      if (hashes[slot] == hash && keys[slot].equals(key))
+        throw new IllegalArgumentException("key " + key.toString() + " already present in map");
+      slot = (slot + 1) & mask;
+    }
+    keys[slot] = key;
+    values[slot] = value;
+    hashes[slot] = hash;
+    size++;
+    if (size * LOAD_DENOMINATOR > keys.length * LOAD_NUMERATOR)
+      rehash();
+  }
+
+  /**
+   * Checks whether a key maps to a value in this collection.
+   *
+   * @param key the key to check
+   * @return true if the key maps to a value, and false is the key doesn't map to a value
+   */
+  @Override
+  public boolean containsKey(KeyType key) {
+    return find(key) != -1;
+  }
+
+  /**
+   * Retrieves the specific value that a key maps to.
+   *
+   * @param key the key to look up
+   * @return the value that key maps to
+   * @throws NoSuchElementException when key is not stored in this collection
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public ValueType get(KeyType key) throws NoSuchElementException {
+    int slot = find(key);
+    if (slot == -1)
+      throw new NoSuchElementException("key " + key + " not present in map");
+    return (ValueType) values[slot];
+  }
+
+  /**
+   * Retrieves the value that a key maps to, or a default value, with a single probe.
+   *
+   * @param key          the key to look up
+   * @param defaultValue the value to return when key is not stored
+   * @return the value that key maps to, or defaultValue
+   * @throws NullPointerException if key is null
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public ValueType getOrDefault(KeyType key, ValueType defaultValue) {
+    int slot = find(key);
+    return slot == -1 ? defaultValue : (ValueType) values[slot];
+  }
+
+  /**
+   * Remove the mapping for a key from this collection.
+   *
+   * @param key the key whose mapping to remove
+   * @return the value that the removed key mapped to
+   * @throws NoSuchElementException when key is not stored in this collection
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public ValueType remove(KeyType key) throws NoSuchElementException {
+    int slot = find(key);
+    if (slot == -1)
+      throw new NoSuchElementException("key " + key + " not present in map");
+    ValueType removed = (ValueType) values[slot];
+    // move back each following key in this run that would otherwise become unreachable
+    int free = slot;
+    for (int next = (free + 1) & mask; keys[next] != null; next = (next + 1) & mask) {
+      int home = hashes[next] & mask;
+      if (((next - home) & mask) >= ((next - free) & mask)) {
+        keys[free] = keys[next];
+        values[free] = values[next];
+        hashes[free] = hashes[next];
+        free = next;
+      }
+    }
+    keys[free] = null;
+    values[free] = null;
+    size--;
+    return removed;
+  }
+
+  /**
+   * Removes all key,value pairs from this collection.
+   */
+  @Override
+  public void clear() {
+    Arrays.fill(keys, null);
+    Arrays.fill(values, null);
+    size = 0;
+  }
+
+  /**
+   * Retrieves the number of keys stored in this collection.
+   *
+   * @return the number of keys stored in this collection
+   */
+  @Override
+  public int getSize() {
+    return size;
+  }
+
+  /**
+   * Retrieves this collection's capacity.
+   *
+   * @return the size of the underlying arrays for this collection
+   */
+  @Override
+  public int getCapacity() {
+    return keys.length;
+  }
+
+  /**
+   * Retrieves this collection's keys.
+   *
+   * @return a list of the keys in this collection, in the order of their slots
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public List<KeyType> getKeys() {
+    ArrayList<KeyType> list = new ArrayList<>(size);
+    for (Object key : keys)
+      if (key != null)
+        list.add((KeyType) key);
+    return list;
+  }
+
+  // finds the slot holding key, or returns -1 when key is not in this map
+  private int find(KeyType key) {
+    if (key == null)
+      throw new NullPointerException("null keys not allowed");
+    int hash = Hashing.mix(key);
+    for (int slot = hash & mask; keys[slot] != null; slot = (slot + 1) & mask)
+      if (hashes[slot] == hash && keys[slot].equals(key))
+        return slot;
+    return -1;
+  }
+
+  // doubles the capacity, placing each key straight into its first free slot of the new arrays
+  private void rehash() {
+    Object[] oldKeys = keys;
+    Object[] oldValues = values;
+    int[] oldHashes = hashes;
+    allocate(oldKeys.length * 2);
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] == null)
+        continue;
+      int slot = oldHashes[i] & mask;
+      while (keys[slot] != null)
+        slot = (slot + 1) & mask;
+      keys[slot] = oldKeys[i];
+      values[slot] = oldValues[i];
+      hashes[slot] = oldHashes[i];
+    }
+  }
+
+  private void allocate(int capacity) {
+    keys = new Object[capacity];
+    values = new Object[capacity];
+    hashes = new int[capacity];
+    mask = capacity - 1;
+  }
+}
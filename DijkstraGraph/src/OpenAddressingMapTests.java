@@ -0,0 +1,81 @@
+import java.util.HashMap;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class OpenAddressingMapTests {
+
+  /**
+   * tests size, capacity, and rounding capacities up to powers of two
+   */
+  @Test
+  public void test1() {
+    OpenAddressingMap<Integer, Integer> map = new OpenAddressingMap<>();
+    Assertions.assertEquals(0, map.getSize());
+    Assertions.assertEquals(64, map.getCapacity());
+    map.put(10, 10);
+    Assertions.assertEquals(1, map.getSize());
+    OpenAddressingMap<Integer, Integer> small = new OpenAddressingMap<>(5);
+    Assertions.assertEquals(8, small.getCapacity());
+    for (int key = 0; key < 6; key++)
+      small.put(key, key);
+    // growing past two thirds full doubles the capacity, and keeps every key
+    Assertions.assertEquals(16, small.getCapacity());
+    Assertions.assertEquals(6, small.getSize());
+    for (int key = 0; key < 6; key++)
+      Assertions.assertEquals(key, small.get(key));
+  }
+
+  /**
+   * tests put, get, getOrDefault and remove errors, and null values
+   */
+  @Test
+  public void test2() {
+    OpenAddressingMap<String, String> map = new OpenAddressingMap<>();
+    map.put("a", null);
+    Assertions.assertTrue(map.containsKey("a"));
+    Assertions.assertNull(map.get("a"));
+    // a key that maps to null is told apart from a missing key
+    Assertions.assertNull(map.getOrDefault("a", "x"));
+    Assertions.assertEquals("x", map.getOrDefault("b", "x"));
+    Assertions.assertThrows(NullPointerException.class, () -> map.getOrDefault(null, "x"));
+    Assertions.assertThrows(IllegalArgumentException.class, () -> map.put("a", "b"));
+    Assertions.assertThrows(NullPointerException.class, () -> map.put(null, "b"));
+    Assertions.assertThrows(NoSuchElementException.class, () -> map.get("b"));
+    Assertions.assertThrows(NoSuchElementException.class, () -> map.remove("b"));
+    Assertions.assertNull(map.remove("a"));
+    Assertions.assertFalse(map.containsKey("a"));
+    Assertions.assertEquals(0, map.getSize());
+  }
+
+  /**
+   * tests colliding keys, removal from the middle of a run, and clear
+   */
+  @Test
+  public void test3() {
+    OpenAddressingMap<Integer, Integer> map = new OpenAddressingMap<>(1024);
+    Random random = new Random(3);
+    HashMap<Integer, Integer> expected = new HashMap<>();
+    for (int step = 0; step < 20000; step++) {
+      // keys that are multiples of a large power of two share their low bits
+      int key = random.nextInt(300) << 16;
+      if (expected.containsKey(key)) {
+        Assertions.assertEquals(expected.remove(key), map.remove(key));
+      } else {
+        expected.put(key, step);
+        map.put(key, step);
+      }
+      Assertions.assertEquals(expected.size(), map.getSize());
+    }
+    for (int key = 0; key < 300; key++)
+      Assertions.assertEquals(expected.containsKey(key << 16), map.containsKey(key << 16));
+    List<Integer> keys = map.getKeys();
+    Assertions.assertEquals(expected.size(), keys.size());
+    Assertions.assertTrue(expected.keySet().containsAll(keys));
+    map.clear();
+    Assertions.assertEquals(0, map.getSize());
+    Assertions.assertTrue(map.getKeys().isEmpty());
+  }
+}
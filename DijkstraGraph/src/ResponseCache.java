@@ -0,0 +1,128 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * This class is a bounded cache of encoded http responses, keyed by normalized queries, that
+ * evicts the least recently used response when it is full. Each response holds the bytes that are
+ * sent for it, and its gzip encoding once some client has asked for that, so a cached response
+ * can be sent again without being generated, encoded or compressed.
+ *
+ * Responses are only valid for the graph that they were generated from, so each loaded graph has
+ * its own cache, which is dropped along with it. All methods are synchronized, so a cache can be
+ * shared by concurrent requests.
+ */
+public class ResponseCache {
+
+  /**
+   * An encoded response, with the entity tag that identifies it.
+   */
+  public static class Response {
+    public final String etag; // the quoted entity tag of the unencoded body
+    public final String contentType;
+    public final byte[] body;
+    private volatile byte[] gzipped = null;
+
+    public Response(String etag, String contentType, byte[] body) {
+      this.etag = etag;
+      this.contentType = contentType;
+      this.body = body;
+    }
+
+    /**
+     * Retrieves the gzip encoding of the body, compressing it the first time it is asked for.
+     *
+     * @return the compressed body
+     */
+    public byte[] getGzipped() {
+      byte[] compressed = gzipped;
+      if (compressed == null) {
+        // concurrent requests may both compress the body, but either result can be kept
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+          gzip.write(body);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e); // a ByteArrayOutputStream throws no IOException
+        }
+        compressed = out.toByteArray();
+        gzipped = compressed;
+      }
+      return compressed;
+    }
+
+    /**
+     * Retrieves the entity tag of the gzip encoding of the body, which differs from that of the
+     * body itself, since the two are different bytes.
+     *
+     * @return the quoted entity tag
+     */
+    public String getGzippedEtag() {
+      return etag.substring(0, etag.length() - 1) + "-gzip\"";
+    }
+  }
+
+  private final int capacity;
+  private final LinkedHashMap<String, Response> responses;
+  private long hits = 0;
+  private long misses = 0;
+
+  /**
+   * Creates an empty cache.
+   *
+   * @param capacity the greatest number of responses kept, where 0 keeps none
+   * @throws IllegalArgumentException if capacity is negative
+   */
+  public ResponseCache(int capacity) {
+    if (capacity < 0)
+      throw new IllegalArgumentException("capacity must not be negative");
+    this.capacity = capacity;
+    this.responses = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Response> eldest) {
+        return size() > ResponseCache.this.capacity;
+      }
+    };
+  }
+
+  /**
+   * Looks up the response to a query, and counts a hit or a miss.
+   *
+   * @param query the normalized query
+   * @return its cached response, or null when there is none
+   */
+  public synchronized Response get(String query) {
+    Response response = responses.get(query);
+    if (response == null)
+      misses++;
+    else
+      hits++;
+    return response;
+  }
+
+  /**
+   * Caches the response to a query, evicting the least recently used response if the cache is
+   * full.
+   *
+   * @param query    the normalized query
+   * @param response its response
+   */
+  public synchronized void put(String query, Response response) {
+    if (capacity > 0)
+      responses.put(query, response);
+  }
+
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  public synchronized int getSize() {
+    return responses.size();
+  }
+}
@@ -0,0 +1,73 @@
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ResponseCacheTests {
+
+  /**
+   * tests that a full cache evicts its least recently used response, where lookups count as uses,
+   * and that hits and misses are counted
+   */
+  @Test
+  public void test1() {
+    ResponseCache cache = new ResponseCache(2);
+    ResponseCache.Response a = response("\"a\"", "a");
+    ResponseCache.Response b = response("\"b\"", "b");
+    ResponseCache.Response c = response("\"c\"", "c");
+    cache.put("/?q=a", a);
+    cache.put("/?q=b", b);
+    Assertions.assertSame(a, cache.get("/?q=a")); // b is now the least recently used
+    cache.put("/?q=c", c);
+    Assertions.assertEquals(2, cache.getSize());
+    Assertions.assertNull(cache.get("/?q=b"));
+    Assertions.assertSame(a, cache.get("/?q=a"));
+    Assertions.assertSame(c, cache.get("/?q=c"));
+    // replacing a response does not grow the cache
+    ResponseCache.Response newerC = response("\"c2\"", "c");
+    cache.put("/?q=c", newerC);
+    Assertions.assertEquals(2, cache.getSize());
+    Assertions.assertSame(newerC, cache.get("/?q=c"));
+    Assertions.assertEquals(4, cache.getHits());
+    Assertions.assertEquals(1, cache.getMisses());
+  }
+
+  /**
+   * tests that a cache with a capacity of 0 keeps nothing, and that negative capacities are
+   * rejected
+   */
+  @Test
+  public void test2() {
+    ResponseCache cache = new ResponseCache(0);
+    cache.put("/", response("\"a\"", "a"));
+    Assertions.assertEquals(0, cache.getSize());
+    Assertions.assertNull(cache.get("/"));
+    Assertions.assertEquals(0, cache.getHits());
+    Assertions.assertEquals(1, cache.getMisses());
+    Assertions.assertThrows(IllegalArgumentException.class, () -> new ResponseCache(-1));
+  }
+
+  /**
+   * tests that the gzip encoding of a body decompresses to it, is only compressed once, and has
+   * its own entity tag inside the quotes of the body's
+   */
+  @Test
+  public void test3() throws IOException {
+    ResponseCache.Response response = response("\"1a.3-cafe\"", "<p>path</p>".repeat(500));
+    byte[] gzipped = response.getGzipped();
+    Assertions.assertSame(gzipped, response.getGzipped());
+    Assertions.assertTrue(gzipped.length < response.body.length);
+    try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+      Assertions.assertArrayEquals(response.body, in.readAllBytes());
+    }
+    Assertions.assertEquals("\"1a.3-cafe-gzip\"", response.getGzippedEtag());
+  }
+
+  // a response with an html body
+  private static ResponseCache.Response response(String etag, String body) {
+    return new ResponseCache.Response(etag, "text/html; charset=utf-8",
+        body.getBytes(StandardCharsets.UTF_8));
+  }
+}
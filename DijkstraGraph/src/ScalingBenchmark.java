@@ -0,0 +1,102 @@
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * Measures how loading and querying scale with the size of the map, on maps generated by
+ * GraphGenerator with 10^3 locations and then ten times as many at each step, up to a maximum.
+ * Each map is written to a temporary dot file and loaded by a Backend, and then answers random
+ * shortest path queries between its locations. For each kind and size, this prints one line of
+ * tab-separated columns:
+ *
+ * kind, nodes, edges, load time (ms), query latency percentiles p50, p90 and p99 and the maximum
+ * (us), the mean number of nodes each query settled, and the peak heap used (MB).
+ *
+ * The number of nodes settled is collected by the graph's SearchMetrics. Maps with 10^7 locations
+ * need a heap of well over 10GB (-Xmx) to load.
+ *
+ * Run with: java ScalingBenchmark [maxNodes] [queries] [kind...]
+ */
+public class ScalingBenchmark {
+
+  protected static final long SEED = 21;
+
+  public static void main(String[] args) throws IOException {
+    int maxNodes = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+    int queries = args.length > 1 ? Math.max(1, Integer.parseInt(args[1])) : 200;
+    List<GraphGenerator.Kind> kinds = new ArrayList<>();
+    for (int i = 2; i < args.length; i++)
+      kinds.add(GraphGenerator.Kind.valueOf(args[i].toUpperCase()));
+    if (kinds.isEmpty())
+      kinds.addAll(Arrays.asList(GraphGenerator.Kind.values()));
+    System.out.println("kind\tnodes\tedges\tload_ms\tp50_us\tp90_us\tp99_us\tmax_us\tsettled"
+        + "\tpeak_heap_mb");
+    for (GraphGenerator.Kind kind : kinds)
+      for (long nodes = 1000; nodes <= maxNodes; nodes *= 10)
+        run(kind, (int) nodes, queries);
+  }
+
+  // generates, loads and queries one map, and prints its line
+  private static void run(GraphGenerator.Kind kind, int nodes, int queries) throws IOException {
+    File file = File.createTempFile(kind.name().toLowerCase() + nodes, ".dot");
+    try {
+      new GraphGenerator(kind, nodes, SEED).writeDot(file.getPath());
+      System.gc();
+      for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+        pool.resetPeakUsage();
+
+      DijkstraGraph<String, Double> graph = new DijkstraGraph<>();
+      Backend backend = new Backend(graph);
+      long start = System.nanoTime();
+      backend.loadGraphData(file.getPath());
+      double loadMillis = (System.nanoTime() - start) / 1e6;
+
+      List<String> locations = backend.getListOfAllLocations();
+      Random random = new Random(SEED);
+      long[] latencies = new long[queries];
+      SearchMetrics metrics = new SearchMetrics();
+      graph.setMetrics(metrics);
+      for (int i = 0; i < queries; i++) {
+        String source = locations.get(random.nextInt(locations.size()));
+        String target = locations.get(random.nextInt(locations.size()));
+        start = System.nanoTime();
+        try {
+          graph.shortestPathCost(source, target);
+        } catch (NoSuchElementException e) {
+          // an unreachable target is a query like any other
+        }
+        latencies[i] = System.nanoTime() - start;
+      }
+      Arrays.sort(latencies);
+      System.out.printf("%s\t%d\t%d\t%.1f\t%.1f\t%.1f\t%.1f\t%.1f\t%.0f\t%.1f%n",
+          kind.name().toLowerCase(), graph.getNodeCount(), graph.getEdgeCount(), loadMillis,
+          percentile(latencies, 0.5), percentile(latencies, 0.9), percentile(latencies, 0.99),
+          latencies[queries - 1] / 1e3, (double) metrics.getSettledCount() / queries,
+          peakHeapBytes() / 1e6);
+    } finally {
+      file.delete();
+    }
+  }
+
+  // the latency (in microseconds) that a fraction of the sorted latencies are no greater than
+  private static double percentile(long[] sorted, double fraction) {
+    return sorted[(int) Math.min(sorted.length - 1, Math.ceil(fraction * sorted.length) - 1)]
+        / 1e3;
+  }
+
+  // the sum of the peak usage of every heap pool since their peaks were last reset
+  private static long peakHeapBytes() {
+    long bytes = 0;
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+      if (pool.getType() == MemoryType.HEAP)
+        bytes += pool.getPeakUsage().getUsed();
+    return bytes;
+  }
+}
@@ -0,0 +1,30 @@
+/**
+ * This interface represents a heuristic that guides an A* search towards its target. It estimates
+ * the cost of the shortest path from any node to the target, and nodes are settled in order of
+ * their distance from the start plus this estimate.
+ *
+ * For A* to find shortest paths, estimates must never be larger than the true cost (admissible),
+ * and must never drop by more than an edge's weight when moving along that edge (consistent).
+ */
+public interface SearchHeuristic {
+
+  /**
+   * Estimates the cost of the shortest path from a node to the target of a search.
+   *
+   * @param id     the id of the node to estimate from
+   * @param target the id of the node that the search is looking for
+   * @return a lower bound on the cost of that path, or positive infinity when the heuristic knows
+   *         that there is no such path
+   */
+  public double estimate(int id, int target);
+
+  /**
+   * Checks whether this heuristic's estimates are still admissible for a graph. Heuristics that
+   * are precomputed from a particular graph are no longer valid once that graph is modified.
+   *
+   * @param graph the graph that is about to be searched
+   * @return true if this heuristic can be used to search that graph, false otherwise
+   */
+  public boolean isValidFor(IndexedGraph graph);
+
+}
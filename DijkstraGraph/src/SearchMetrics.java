@@ -0,0 +1,131 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class collects the work done by the point-to-point queries of a DijkstraGraph (see
+ * DijkstraGraph.setMetrics): how many queries ran and how many found no path, and in total, how
+ * many nodes they settled, how many edges they relaxed, how many nodes they pushed onto and popped
+ * from their frontiers, how many frontier keys they decreased, and how many nodes their paths
+ * held. The frontier lowers keys in place, so no query ever pops a stale entry, and key decreases
+ * are counted instead.
+ *
+ * A graph without metrics does not record anything, so the only cost of this instrumentation when
+ * it is off is a few counters within each SearchState. Totals are kept in LongAdders, so queries
+ * on many threads can record at once without contending. Subclasses can override record to see
+ * the counts of each query as well.
+ */
+public class SearchMetrics {
+
+  private final LongAdder queries = new LongAdder();
+  private final LongAdder unreachable = new LongAdder();
+  private final LongAdder settled = new LongAdder();
+  private final LongAdder relaxed = new LongAdder();
+  private final LongAdder pushes = new LongAdder();
+  private final LongAdder decreases = new LongAdder();
+  private final LongAdder pathNodes = new LongAdder();
+
+  /**
+   * Records one query, which ran forward and (for bidirectional and hierarchy queries) backward
+   * searches.
+   *
+   * @param forward   the forward search
+   * @param backward  the backward search, or null
+   * @param pathNodes the number of nodes on the path found, or 0 when there is no path
+   */
+  public void recordQuery(SearchState forward, SearchState backward, int pathNodes) {
+    if (backward == null) {
+      record(forward.getSettledCount(), forward.getRelaxedCount(), forward.getPushCount(),
+          forward.getDecreaseCount(), pathNodes);
+    } else {
+      record(forward.getSettledCount() + backward.getSettledCount(),
+          forward.getRelaxedCount() + backward.getRelaxedCount(),
+          forward.getPushCount() + backward.getPushCount(),
+          forward.getDecreaseCount() + backward.getDecreaseCount(), pathNodes);
+    }
+  }
+
+  /**
+   * Records one query that was answered without a search, from a maintained shortest path tree.
+   *
+   * @param pathNodes the number of nodes on the path found, or 0 when there is no path
+   */
+  public void recordQuery(int pathNodes) {
+    record(0, 0, 0, 0, pathNodes);
+  }
+
+  /**
+   * Adds the counts of one query to the totals.
+   *
+   * @param settled   the number of nodes settled, which is also the number of frontier pops
+   * @param relaxed   the number of edges relaxed
+   * @param pushes    the number of nodes pushed onto the frontier
+   * @param decreases the number of frontier keys decreased
+   * @param pathNodes the number of nodes on the path found, or 0 when there is no path
+   */
+  protected void record(int settled, int relaxed, int pushes, int decreases, int pathNodes) {
+    queries.increment();
+    if (pathNodes == 0)
+      unreachable.increment();
+    this.settled.add(settled);
+    this.relaxed.add(relaxed);
+    this.pushes.add(pushes);
+    this.decreases.add(decreases);
+    this.pathNodes.add(pathNodes);
+  }
+
+  public long getQueryCount() {
+    return queries.sum();
+  }
+
+  public long getUnreachableCount() {
+    return unreachable.sum();
+  }
+
+  public long getSettledCount() {
+    return settled.sum();
+  }
+
+  public long getRelaxedCount() {
+    return relaxed.sum();
+  }
+
+  public long getPushCount() {
+    return pushes.sum();
+  }
+
+  public long getDecreaseCount() {
+    return decreases.sum();
+  }
+
+  public long getPathNodeCount() {
+    return pathNodes.sum();
+  }
+
+  /**
+   * Appends every total as a counter in the Prometheus text exposition format.
+   *
+   * @param out the text to append to
+   */
+  public void writePrometheus(StringBuilder out) {
+    counter(out, "dijkstra_queries_total", "Point-to-point shortest path queries.",
+        getQueryCount());
+    counter(out, "dijkstra_queries_without_path_total", "Queries that found no path.",
+        getUnreachableCount());
+    counter(out, "dijkstra_nodes_settled_total", "Nodes settled by queries.", getSettledCount());
+    counter(out, "dijkstra_edges_relaxed_total", "Edges relaxed by queries.", getRelaxedCount());
+    counter(out, "dijkstra_heap_pushes_total", "Nodes pushed onto search frontiers.",
+        getPushCount());
+    counter(out, "dijkstra_heap_pops_total", "Nodes popped from search frontiers.",
+        getSettledCount());
+    counter(out, "dijkstra_heap_decreases_total",
+        "Keys decreased within search frontiers, which never hold stale entries.",
+        getDecreaseCount());
+    counter(out, "dijkstra_path_nodes_total", "Nodes on the paths that queries returned.",
+        getPathNodeCount());
+  }
+
+  private static void counter(StringBuilder out, String name, String help, long value) {
+    out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    out.append("# TYPE ").append(name).append(" counter\n");
+    out.append(name).append(' ').append(value).append('\n');
+  }
+}
@@ -0,0 +1,200 @@
+import java.util.Arrays;
+
+/**
+ * This class holds the scratch state of a single Dijkstra search over graph nodes that are
+ * identified by dense integer ids: a tentative distance and predecessor for each node, which nodes
+ * have been reached or settled, and an IndexedMinHeap of the unsettled frontier.
+ *
+ * A SearchState is meant to be reused across many searches. Rather than clearing its arrays before
+ * each search, reset() advances a generation stamp, so that starting a new search takes constant
+ * time no matter how large the graph is.
+ *
+ * Each search also counts the work it does, which SearchMetrics collects. The frontier lowers the
+ * key of a node in place rather than adding it again, so a search never pops a stale entry, and
+ * counts its key decreases instead.
+ */
+public class SearchState {
+
+  private double[] distance = new double[0];
+  private int[] predecessor = new int[0];
+  private int[] reachedStamp = new int[0]; // == stamp when distance[id] is valid for this search
+  private int[] settledStamp = new int[0]; // == stamp when id was settled during this search
+  private int stamp = 0;
+  private IndexedMinHeap frontier = new IndexedMinHeap(0);
+  private SearchHeuristic heuristic = null; // guides A* searches, or null for plain Dijkstra
+  private int target = -1; // the node that heuristic estimates distances to
+  // the work done by this search since the last reset
+  private int settledCount = 0; // pops from the frontier
+  private int relaxedCount = 0; // edges considered by relax
+  private int pushCount = 0; // nodes added to the frontier
+  private int decreaseCount = 0; // keys lowered within the frontier
+
+  /**
+   * Prepares this state for a new search over ids from 0 up to capacity-1.
+   *
+   * @param capacity one more than the largest node id that this search may encounter
+   */
+  public void reset(int capacity) {
+    if (capacity > distance.length) {
+      int newLength = Math.max(capacity, distance.length * 2);
+      distance = Arrays.copyOf(distance, newLength);
+      predecessor = Arrays.copyOf(predecessor, newLength);
+      reachedStamp = Arrays.copyOf(reachedStamp, newLength);
+      settledStamp = Arrays.copyOf(settledStamp, newLength);
+      frontier.ensureCapacity(newLength);
+    }
+    frontier.clear();
+    heuristic = null;
+    target = -1;
+    settledCount = 0;
+    relaxedCount = 0;
+    pushCount = 0;
+    decreaseCount = 0;
+    stamp++;
+    if (stamp == Integer.MAX_VALUE) {
+      // wrap around before old stamps could be mistaken for current ones
+      Arrays.fill(reachedStamp, 0);
+      Arrays.fill(settledStamp, 0);
+      stamp = 1;
+    }
+  }
+
+  /**
+   * Turns this search into an A* search towards target: nodes in the frontier are then ordered by
+   * their distance plus the heuristic's estimate of their remaining distance, and nodes that the
+   * heuristic knows cannot reach target are never added to the frontier. This lasts until the
+   * next call to reset().
+   *
+   * @param heuristic a consistent heuristic for the graph being searched
+   * @param target    the id of the node that this search is looking for
+   */
+  public void setHeuristic(SearchHeuristic heuristic, int target) {
+    this.heuristic = heuristic;
+    this.target = target;
+  }
+
+  /**
+   * Adds the source node of this search to the frontier with a distance of zero.
+   *
+   * @param source the id of the node this search starts from
+   */
+  public void start(int source) {
+    distance[source] = 0;
+    predecessor[source] = -1;
+    reachedStamp[source] = stamp;
+    frontier.insertOrDecrease(source, 0);
+    pushCount++;
+  }
+
+  /**
+   * Checks whether there are any unsettled nodes left in the frontier.
+   *
+   * @return true if the frontier is empty, false otherwise
+   */
+  public boolean isFrontierEmpty() {
+    return frontier.isEmpty();
+  }
+
+  /**
+   * Retrieves the smallest key within the frontier. This is the smallest tentative distance, plus
+   * the heuristic's estimate for that node during A* searches.
+   *
+   * @return that key, or positive infinity when the frontier is empty
+   */
+  public double peekFrontierKey() {
+    return frontier.peekMinKey();
+  }
+
+  /**
+   * Removes the closest node from the frontier and marks it settled: its distance is final.
+   *
+   * @return the id of the node that was settled
+   */
+  public int settleNext() {
+    int id = frontier.pollMin();
+    settledStamp[id] = stamp;
+    settledCount++;
+    return id;
+  }
+
+  /**
+   * Considers reaching node to through an edge from the settled node from. When this is shorter
+   * than any path to node to found so far, its distance and predecessor are updated, and its key in
+   * the frontier is decreased.
+   *
+   * @param from   the id of a settled node
+   * @param to     the id of the node that the edge leads to
+   * @param weight the weight of the edge between them
+   * @return true if the distance to node to was improved, false otherwise
+   */
+  public boolean relax(int from, int to, double weight) {
+    relaxedCount++;
+    if (settledStamp[to] == stamp)
+      return false;
+    double newDistance = distance[from] + weight;
+    boolean reached = reachedStamp[to] == stamp;
+    if (reached && newDistance >= distance[to])
+      return false;
+    double key = newDistance;
+    if (heuristic != null) {
+      key += heuristic.estimate(to, target);
+      if (key == Double.POSITIVE_INFINITY)
+        return false; // the target cannot be reached through this node
+    }
+    distance[to] = newDistance;
+    predecessor[to] = from;
+    reachedStamp[to] = stamp;
+    frontier.insertOrDecrease(to, key);
+    if (reached)
+      decreaseCount++;
+    else
+      pushCount++;
+    return true;
+  }
+
+  public boolean isReached(int id) {
+    return id < reachedStamp.length && reachedStamp[id] == stamp;
+  }
+
+  public boolean isSettled(int id) {
+    return id < settledStamp.length && settledStamp[id] == stamp;
+  }
+
+  /**
+   * Retrieves the tentative (or once settled, final) distance to a node.
+   *
+   * @param id the id of a node
+   * @return the distance to that node, or positive infinity when it has not been reached
+   */
+  public double getDistance(int id) {
+    return isReached(id) ? distance[id] : Double.POSITIVE_INFINITY;
+  }
+
+  /**
+   * Retrieves the node before this one on the shortest path found so far.
+   *
+   * @param id the id of a reached node
+   * @return the id of its predecessor, or -1 for the source node
+   */
+  public int getPredecessor(int id) {
+    return predecessor[id];
+  }
+
+  // the work done by this search since the last reset
+
+  public int getSettledCount() {
+    return settledCount;
+  }
+
+  public int getRelaxedCount() {
+    return relaxedCount;
+  }
+
+  public int getPushCount() {
+    return pushCount;
+  }
+
+  public int getDecreaseCount() {
+    return decreaseCount;
+  }
+}
@@ -0,0 +1,298 @@
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class is a bounded cache of shortest path results, keyed by their (start, end) nodes. When
+ * it is full, the least recently used (LRU) or least frequently used (LFU) result is evicted.
+ *
+ * Popular start nodes can also have their whole ShortestPathTree cached: once the same start node
+ * has been looked up hotSourceThreshold times, the graph computes its tree, and every later lookup
+ * from that start node is a hit, whatever its destination.
+ *
+ * Results are only valid for one version of a graph. Before each lookup, the graph passes its
+ * current version to invalidateIfStale, and every cached result is dropped when it has changed.
+ * All methods are synchronized, so a cache can be shared by concurrent searches.
+ */
+public class ShortestPathCache<NodeType> {
+
+  /**
+   * The policies for choosing which result to evict when the cache is full.
+   */
+  public enum Eviction {
+    LRU, LFU
+  }
+
+  /**
+   * A cached shortest path: its nodes and its cost, or a null path and infinite cost when there
+   * is no path from the start to the end node.
+   */
+  public static class CachedPath<NodeType> {
+    public final List<NodeType> path;
+    public final double cost;
+
+    public CachedPath(List<NodeType> path, double cost) {
+      this.path = path;
+      this.cost = cost;
+    }
+  }
+
+  // the (start, end) pair that a cached path is stored under
+  private static class Key {
+    private final Object start;
+    private final Object end;
+
+    public Key(Object start, Object end) {
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof Key && start.equals(((Key) other).start)
+          && end.equals(((Key) other).end);
+    }
+
+    @Override
+    public int hashCode() {
+      return start.hashCode() * 31 + end.hashCode();
+    }
+  }
+
+  private final int capacity;
+  private final Eviction eviction;
+  private final int treeCapacity;
+  private final int hotSourceThreshold;
+
+  // for LRU, paths are kept in access order; for LFU, in insertion order
+  private final LinkedHashMap<Key, CachedPath<NodeType>> paths;
+  // for LFU, the number of uses of each cached path, and the keys used each number of times in
+  // the order they reached it, so that ties are evicted least recently used first
+  private final HashMap<Key, Integer> uses = new HashMap<>();
+  private final HashMap<Integer, LinkedHashSet<Key>> keysByUses = new HashMap<>();
+  private int fewestUses = 0; // the smallest count in keysByUses, when it is not empty
+
+  private final LinkedHashMap<NodeType, ShortestPathTree<NodeType>> trees;
+  private final HashMap<NodeType, Integer> sourceLookups = new HashMap<>();
+
+  private long version = -1; // the graph version that the cached results are valid for
+  private long hits = 0;
+  private long misses = 0;
+  private long evictions = 0;
+  private long invalidations = 0;
+
+  /**
+   * Creates a cache of paths only.
+   *
+   * @param capacity the maximum number of (start, end) results to keep
+   * @param eviction the policy for choosing which result to evict
+   */
+  public ShortestPathCache(int capacity, Eviction eviction) {
+    this(capacity, eviction, 0, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Creates a cache of paths, and of whole shortest path trees for popular start nodes.
+   *
+   * @param capacity           the maximum number of (start, end) results to keep
+   * @param eviction           the policy for choosing which result to evict
+   * @param treeCapacity       the maximum number of trees to keep, evicted least recently used
+   * @param hotSourceThreshold the number of lookups from a start node before its tree is cached
+   */
+  public ShortestPathCache(int capacity, Eviction eviction, int treeCapacity,
+      int hotSourceThreshold) {
+    if (capacity < 1)
+      throw new IllegalArgumentException("capacity must be positive");
+    this.capacity = capacity;
+    this.eviction = eviction;
+    this.treeCapacity = treeCapacity;
+    this.hotSourceThreshold = hotSourceThreshold;
+    this.paths = new LinkedHashMap<>(16, 0.75f, eviction == Eviction.LRU);
+    this.trees = new LinkedHashMap<>(16, 0.75f, true);
+  }
+
+  /**
+   * Drops every cached result when the graph has changed since they were cached.
+   *
+   * @param graphVersion the current version of the graph
+   */
+  public synchronized void invalidateIfStale(long graphVersion) {
+    if (graphVersion == version)
+      return;
+    if (!paths.isEmpty() || !trees.isEmpty())
+      invalidations++;
+    clear();
+    version = graphVersion;
+  }
+
+  /**
+   * Removes all cached results, without changing the counters.
+   */
+  public synchronized void clear() {
+    paths.clear();
+    uses.clear();
+    keysByUses.clear();
+    fewestUses = 0;
+    trees.clear();
+    sourceLookups.clear();
+  }
+
+  /**
+   * Looks up the shortest path between two nodes, either as a cached (start, end) result or
+   * through a cached tree for start. This counts as a hit or a miss.
+   *
+   * @param start the data item in the starting node for the path
+   * @param end   the data item in the destination node for the path
+   * @return the cached path, or null when this is a miss
+   */
+  public synchronized CachedPath<NodeType> get(NodeType start, NodeType end) {
+    Key key = new Key(start, end);
+    CachedPath<NodeType> cached = paths.get(key);
+    if (cached != null) {
+      if (eviction == Eviction.LFU)
+        use(key);
+      hits++;
+      return cached;
+    }
+    ShortestPathTree<NodeType> tree = trees.get(start);
+    if (tree != null) {
+      hits++;
+      return tree.isReachable(end) ? new CachedPath<>(tree.getPath(end), tree.getCost(end))
+          : new CachedPath<>(null, Double.POSITIVE_INFINITY);
+    }
+    misses++;
+    return null;
+  }
+
+  /**
+   * Records a lookup from a start node that missed, and checks whether that start node has now
+   * become popular enough to cache its whole tree.
+   *
+   * @param start the data item in the starting node of a lookup that missed
+   * @return true if the caller should compute and put the tree for start, false otherwise
+   */
+  public synchronized boolean isHotSource(NodeType start) {
+    if (treeCapacity <= 0)
+      return false;
+    int lookups = sourceLookups.merge(start, 1, Integer::sum);
+    return lookups >= hotSourceThreshold;
+  }
+
+  /**
+   * Caches the shortest path between two nodes, evicting another result if the cache is full.
+   *
+   * @param start  the data item in the starting node for the path
+   * @param end    the data item in the destination node for the path
+   * @param result the path and its cost
+   */
+  public synchronized void put(NodeType start, NodeType end, CachedPath<NodeType> result) {
+    Key key = new Key(start, end);
+    if (paths.containsKey(key)) {
+      paths.put(key, result);
+      return;
+    }
+    if (paths.size() >= capacity) {
+      Key evicted;
+      if (eviction == Eviction.LRU)
+        evicted = paths.keySet().iterator().next();
+      else
+        evicted = keysByUses.get(fewestUses).iterator().next();
+      if (eviction == Eviction.LFU)
+        removeUses(evicted);
+      paths.remove(evicted);
+      evictions++;
+    }
+    paths.put(key, result);
+    if (eviction == Eviction.LFU) {
+      uses.put(key, 0);
+      keysByUses.computeIfAbsent(0, count -> new LinkedHashSet<>()).add(key);
+      fewestUses = 0;
+    }
+  }
+
+  /**
+   * Caches the whole shortest path tree of a start node, evicting the least recently used tree if
+   * the tree cache is full.
+   *
+   * @param start the data item in the node that the tree is rooted at
+   * @param tree  the tree of shortest paths from start
+   */
+  public synchronized void putTree(NodeType start, ShortestPathTree<NodeType> tree) {
+    if (treeCapacity <= 0)
+      return;
+    trees.put(start, tree);
+    sourceLookups.remove(start);
+    if (trees.size() > treeCapacity) {
+      Iterator<NodeType> oldest = trees.keySet().iterator();
+      oldest.next();
+      oldest.remove();
+      evictions++;
+    }
+  }
+
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  public synchronized long getEvictions() {
+    return evictions;
+  }
+
+  public synchronized long getInvalidations() {
+    return invalidations;
+  }
+
+  /**
+   * Return the number of (start, end) results currently cached.
+   *
+   * @return the number of cached paths
+   */
+  public synchronized int getSize() {
+    return paths.size();
+  }
+
+  /**
+   * Return the number of shortest path trees currently cached.
+   *
+   * @return the number of cached trees
+   */
+  public synchronized int getTreeCount() {
+    return trees.size();
+  }
+
+  // moves a key from its current use count to the next one
+  private void use(Key key) {
+    int count = removeUses(key);
+    if (count == fewestUses && !keysByUses.containsKey(count))
+      fewestUses = count + 1;
+    uses.put(key, count + 1);
+    keysByUses.computeIfAbsent(count + 1, next -> new LinkedHashSet<>()).add(key);
+  }
+
+  // removes a key from the use counts, and returns the count it had
+  private int removeUses(Key key) {
+    int count = uses.remove(key);
+    LinkedHashSet<Key> keys = keysByUses.get(count);
+    keys.remove(key);
+    if (keys.isEmpty())
+      keysByUses.remove(count);
+    return count;
+  }
+
+  @Override
+  public synchronized String toString() {
+    Map<String, Long> counters = new LinkedHashMap<>();
+    counters.put("hits", hits);
+    counters.put("misses", misses);
+    counters.put("evictions", evictions);
+    counters.put("invalidations", invalidations);
+    return counters.toString();
+  }
+}
@@ -0,0 +1,158 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.ToIntFunction;
+
+/**
+ * This class stores the result of a single-source (one-to-all) shortest path search: the cost of
+ * the shortest path from the source node to every node that it can reach, and the predecessor of
+ * each of those nodes along that path. Together the predecessors form a tree rooted at the source,
+ * so the shortest path to any target can be extracted on demand without searching again.
+ *
+ * Nodes are stored by their integer ids. A tree is a snapshot of the graph at the time it was
+ * computed, and is not updated when that graph is modified later.
+ */
+public class ShortestPathTree<NodeType> {
+
+  private final int source;
+  private final NodeType[] data; // node data by id
+  private final double[] distance; // cost from source by id, or infinity when unreachable
+  private final int[] predecessor; // previous node id on the path from source, or -1
+  private final ToIntFunction<NodeType> idOf; // finds the id of node data, or -1 when absent
+
+  /**
+   * Creates a shortest path tree from arrays that are indexed by node id. These arrays become part
+   * of this tree and must not be modified afterwards.
+   *
+   * @param source      the id of the node this tree is rooted at
+   * @param data        node data by id, with null for unused ids
+   * @param distance    shortest path cost from source by id, or positive infinity when unreachable
+   * @param predecessor id of the node before each node on its shortest path, or -1 for the source
+   *                    and for unreachable nodes
+   * @param idOf        function that finds the id of node data, and returns -1 when it has none
+   */
+  public ShortestPathTree(int source, NodeType[] data, double[] distance, int[] predecessor,
+      ToIntFunction<NodeType> idOf) {
+    this.source = source;
+    this.data = data;
+    this.distance = distance;
+    this.predecessor = predecessor;
+    this.idOf = idOf;
+  }
+
+  /**
+   * Retrieves the data of the node that all paths in this tree start from.
+   *
+   * @return the source node's data
+   */
+  public NodeType getSource() {
+    return data[source];
+  }
+
+  /**
+   * Checks whether there is a directed path from the source to a node.
+   *
+   * @param target the data item in the destination node
+   * @return true if target is in the graph and reachable from the source, false otherwise
+   */
+  public boolean isReachable(NodeType target) {
+    return findId(target) != -1;
+  }
+
+  /**
+   * Returns the cost of the shortest path from the source to a node.
+   *
+   * @param target the data item in the destination node for the path
+   * @return the cost of the shortest path between these nodes
+   * @throws NoSuchElementException if target is not in the graph, or is not reachable
+   */
+  public double getCost(NodeType target) {
+    return distance[requireId(target)];
+  }
+
+  /**
+   * Returns the list of data values from nodes along the shortest path from the source to a node.
+   * This list starts with the source and ends with target.
+   *
+   * @param target the data item in the destination node for the path
+   * @return list of data item from node along this shortest path
+   * @throws NoSuchElementException if target is not in the graph, or is not reachable
+   */
+  public List<NodeType> getPath(NodeType target) {
+    ArrayList<NodeType> path = new ArrayList<>();
+    for (int id = requireId(target); id != -1; id = predecessor[id])
+      path.add(data[id]);
+    for (int i = 0, j = path.size() - 1; i < j; i++, j--)
+      path.set(i, path.set(j, path.get(i)));
+    return path;
+  }
+
+  /**
+   * Returns the node that takes the longest time to reach from the source, when following
+   * shortest paths. Nodes that are reached at no cost (like the source itself) are never returned.
+   *
+   * @return the most distant node's data
+   * @throws NoSuchElementException if no node can be reached from the source at a positive cost
+   */
+  public NodeType getFurthest() {
+    int furthest = -1;
+    double longest = 0.0;
+    for (int id = 0; id < distance.length; id++) {
+      if (distance[id] > longest && distance[id] != Double.POSITIVE_INFINITY) {
+        furthest = id;
+        longest = distance[id];
+      }
+    }
+    if (furthest == -1)
+      throw new NoSuchElementException("Cannot find paths starting at " + getSource());
+    return data[furthest];
+  }
+
+  /**
+   * Retrieves one more than the largest node id stored in this tree.
+   *
+   * @return the upper bound (exclusive) of node ids in this tree
+   */
+  public int getIdBound() {
+    return distance.length;
+  }
+
+  /**
+   * Retrieves the shortest path cost to a node by its id.
+   *
+   * @param id the id of a node
+   * @return its cost from the source, or positive infinity when it is unreachable
+   */
+  public double getCostById(int id) {
+    return distance[id];
+  }
+
+  /**
+   * Retrieves the node before this one along its shortest path from the source.
+   *
+   * @param id the id of a node
+   * @return the id of its predecessor, or -1 for the source and for unreachable nodes
+   */
+  public int getPredecessorById(int id) {
+    return predecessor[id];
+  }
+
+  // finds the id of a reachable node, or -1 when that node is absent or unreachable
+  private int findId(NodeType target) {
+    if (target == null)
+      return -1;
+    int id = idOf.applyAsInt(target);
+    if (id < 0 || id >= data.length || !target.equals(data[id])
+        || distance[id] == Double.POSITIVE_INFINITY)
+      return -1;
+    return id;
+  }
+
+  // finds the id of a reachable node, or throws NoSuchElementException
+  private int requireId(NodeType target) {
+    int id = findId(target);
+    if (id == -1)
+      throw new NoSuchElementException("No path from " + getSource() + " to " + target);
+    return id;
+  }
+}
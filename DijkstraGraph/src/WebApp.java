@@ -1,16 +1,35 @@
 import java.net.InetSocketAddress;
 import java.net.URLDecoder;
+import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import com.sun.net.httpserver.Headers;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 import com.sun.net.httpserver.HttpContext;
 import com.sun.net.httpserver.HttpExchange;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.File;
-import java.util.Scanner;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Stream;
 
 /**
@@ -19,6 +38,152 @@ import java.util.stream.Stream;
  *
  */
 public class WebApp {
+    // the file that the campus graph is loaded from
+    private static final String GRAPH_FILE = "./campus.dot";
+    // how long to wait after a change to the graph file before reloading it,
+    // so that a file being written in several steps is only reloaded once
+    private static final long RELOAD_DELAY_MILLIS = 250;
+    // the page that every html response is written into, which is read and
+    // split around its placeholders once, when the server starts
+    private static final String TEMPLATE_FILE = "template.html";
+    private static final String RESPONSE_PLACEHOLDER = "<!-- RESPONSE GOES HERE -->";
+    private static final String PROMPTS_PLACEHOLDER = "<!-- PROMPTS GO HERE -->";
+    private static HtmlTemplate template = null;
+    // responses are written into buffers that are kept between requests, up
+    // to this size, so that most requests do not allocate their own
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_KEPT_BUFFER_SIZE = 1 << 20;
+    private static final ConcurrentLinkedQueue<ResponseBuffer> idleBuffers =
+	new ConcurrentLinkedQueue<>();
+
+    // system properties that configure how requests are executed:
+    // webapp.executor is "virtual" (the default) for a new virtual thread per
+    // request, or "platform" for a fixed pool of webapp.threads threads (one
+    // per core by default), and webapp.backlog is the number of connections
+    // that may wait to be accepted
+    private static final String EXECUTOR_PROPERTY = "webapp.executor";
+    private static final String THREADS_PROPERTY = "webapp.threads";
+    private static final String BACKLOG_PROPERTY = "webapp.backlog";
+    private static final int DEFAULT_BACKLOG = 128;
+    // system property naming a snapshot file (written by GraphSnapshot) that
+    // the server starts from instead of parsing the graph file, which maps
+    // the graph in place and so starts in milliseconds however large it is
+    private static final String SNAPSHOT_PROPERTY = "webapp.snapshot";
+    // system property that turns off the metrics served on /metrics when it
+    // is "false".  They are on by default, since recording them only takes a
+    // few atomic increments per request
+    private static final String METRICS_PROPERTY = "webapp.metrics";
+    private static final boolean METRICS_ENABLED =
+	!"false".equals(System.getProperty(METRICS_PROPERTY));
+    // system properties that configure how responses are cached:
+    // webapp.cache.size is the number of encoded responses kept for each
+    // graph loaded (0 keeps none), webapp.cache.maxAge is the number of
+    // seconds that browsers and proxies may reuse a response before they
+    // revalidate it, and webapp.gzip turns off compression when it is
+    // "false".  Responses shorter than GZIP_MIN_BYTES are never compressed,
+    // since compression saves less on them than it costs
+    private static final String CACHE_SIZE_PROPERTY = "webapp.cache.size";
+    private static final String CACHE_MAX_AGE_PROPERTY = "webapp.cache.maxAge";
+    private static final String GZIP_PROPERTY = "webapp.gzip";
+    private static final int CACHE_SIZE = Integer.getInteger(CACHE_SIZE_PROPERTY, 1024);
+    private static final int CACHE_MAX_AGE = Integer.getInteger(CACHE_MAX_AGE_PROPERTY, 60);
+    private static final boolean GZIP_ENABLED =
+	!"false".equals(System.getProperty(GZIP_PROPERTY));
+    private static final int GZIP_MIN_BYTES = 1024;
+    // system property that limits the number of locations a graph may have
+    // for its furthest destinations to be precomputed when it is loaded,
+    // which takes a search from every location (0 turns this off)
+    private static final String ECCENTRICITY_PROPERTY = "webapp.eccentricity.maxNodes";
+    private static final int ECCENTRICITY_MAX_NODES =
+	Integer.getInteger(ECCENTRICITY_PROPERTY, 20000);
+
+    // the work done by the searches of every graph loaded, the latency of
+    // each kind of request, and the time and size of the last graph load,
+    // which are all served in the Prometheus text format on /metrics
+    private static final SearchMetrics searchMetrics = new SearchMetrics();
+    private static final LatencyHistogram shortestPathLatency = new LatencyHistogram();
+    private static final LatencyHistogram furthestDestinationLatency = new LatencyHistogram();
+    private static final LatencyHistogram pageLatency = new LatencyHistogram();
+    private static final LatencyHistogram pathApiLatency = new LatencyHistogram();
+    private static final LatencyHistogram furthestApiLatency = new LatencyHistogram();
+    private static final AtomicLong graphLoads = new AtomicLong();
+    private static final AtomicLong notModifiedResponses = new AtomicLong();
+    private static volatile long graphLoadNanos = 0;
+    private static volatile int graphNodes = 0;
+    private static volatile int graphEdges = 0;
+
+    // the frontend and backend (with their graph) that every request is
+    // answered with.  They are built once at startup, and then only replaced
+    // as a whole after a changed graph file has been completely loaded, so
+    // that requests never see a partially loaded graph.
+    private static volatile Site currentSite = null;
+
+    // a frontend and its backend, along with the html of the frontend's
+    // prompts, which do not depend on the question asked and so are only
+    // generated once for each graph loaded.  Every response depends only on
+    // the graph and the query, so each site caches the responses it sends,
+    // and tags them with its version: the time its graph was loaded (which
+    // tells apart the graphs of reloads and restarts, and is also sent as
+    // their Last-Modified date, so the two always agree) and the graph's own
+    // version
+    private static final class Site {
+	final BackendInterface backend;
+	final FrontendInterface frontend;
+	final byte[] prompts;
+	final Instant loaded;
+	final String lastModified;
+	final String version;
+	final ResponseCache responses = new ResponseCache(CACHE_SIZE);
+
+	Site(BackendInterface backend, FrontendInterface frontend,
+	     GraphADT<String,Double> graph) {
+	    this.backend = backend;
+	    this.frontend = frontend;
+	    this.prompts = generatePromptHTML(frontend).getBytes(StandardCharsets.UTF_8);
+	    // http dates only hold whole seconds
+	    this.loaded = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+	    this.lastModified = DateTimeFormatter.RFC_1123_DATE_TIME
+		.format(ZonedDateTime.ofInstant(loaded, ZoneOffset.UTC));
+	    long graphVersion = graph instanceof BaseGraph ?
+		((BaseGraph<?,?>) graph).getVersion() : 0;
+	    this.version = Long.toString(loaded.getEpochSecond(), 36) + "." + graphVersion;
+	}
+    }
+
+    // writes the body of a response that may be cached, and returns its
+    // http status, where only responses with status 200 are cached
+    private interface ResponseBody {
+	int write(ResponseBuffer buffer) throws IOException;
+    }
+
+    // a byte array output stream that is kept between requests (see
+    // borrowBuffer), and sends its bytes without copying them
+    private static final class ResponseBuffer extends ByteArrayOutputStream {
+	ResponseBuffer() {
+	    super(BUFFER_SIZE);
+	}
+
+	void writeUtf8(String text) {
+	    writeBytes(text.getBytes(StandardCharsets.UTF_8));
+	}
+
+	// sends the bytes written as the complete response to an exchange
+	void send(HttpExchange exchange, int status, String contentType) throws IOException {
+	    exchange.getResponseHeaders().set("Content-Type", contentType);
+	    exchange.sendResponseHeaders(status, count);
+	    OutputStream out = exchange.getResponseBody();
+	    out.write(buf, 0, count);
+	    out.close();
+	}
+    }
+
+    // answers one api request with json, given the args of its query, and
+    // returns the http status of the answer
+    private interface JsonAnswer {
+	int answer(Map<String,String> keyValuePairs, BackendInterface backend,
+		   StringBuilder json);
+    }
+
     public static void main(String[] args) throws IOException {
 	// expects the port number as a command line argument to this program
 	// or if a non-numeric argument is passed treat this like the query
@@ -39,17 +204,59 @@ public class WebApp {
 	    return;
 	}
 				
+	// load the page template and the graph once, and reload the graph in
+	// the background when it changes
+	template = HtmlTemplate.load(TEMPLATE_FILE, RESPONSE_PLACEHOLDER, PROMPTS_PLACEHOLDER);
+	String snapshot = System.getProperty(SNAPSHOT_PROPERTY);
+	currentSite = snapshot != null ? createSnapshotSite(snapshot)
+	    : createWorkingSite(GRAPH_FILE, true);
+	watchGraphFile(GRAPH_FILE);
+
 	// configure and start server on this port, responding in this way
 	InetSocketAddress address = new InetSocketAddress(portNumber);
-	HttpServer server = HttpServer.create(address,8);
+	int backlog = Integer.getInteger(BACKLOG_PROPERTY, DEFAULT_BACKLOG);
+	HttpServer server = HttpServer.create(address,backlog);
 	HttpContext context = server.createContext("/");
 	context.setHandler( WebApp::requestHandler );
+	server.createContext("/api/path").setHandler( WebApp::pathApiHandler );
+	server.createContext("/api/furthest").setHandler( WebApp::furthestApiHandler );
+	if(METRICS_ENABLED)
+	    server.createContext("/metrics").setHandler( WebApp::metricsHandler );
+	// handle requests concurrently, rather than one at a time on the
+	// server's dispatcher thread
+	server.setExecutor(createRequestExecutor());
 	System.out.println("Starting Campus Navigator Server...");
 	server.start();
     }
 
+    // creates the executor configured by the webapp.executor property
+    private static ExecutorService createRequestExecutor() {
+	String kind = System.getProperty(EXECUTOR_PROPERTY, "virtual");
+	if(kind.equals("virtual")) {
+	    // virtual threads are only available from Java 21, so look them up
+	    // reflectively and fall back to platform threads without them
+	    try {
+		ExecutorService executor = (ExecutorService) Executors.class
+		    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		System.out.println("Handling requests on virtual threads");
+		return executor;
+	    } catch (ReflectiveOperationException e) {
+		System.out.println("Virtual threads are unavailable, " +
+				   "handling requests on platform threads");
+	    }
+	} else if(!kind.equals("platform")) {
+	    throw new IllegalArgumentException("Unknown " + EXECUTOR_PROPERTY +
+					       ": " + kind + " (expected virtual or platform)");
+	}
+	int threads = Integer.getInteger(THREADS_PROPERTY,
+					 Runtime.getRuntime().availableProcessors());
+	System.out.println("Handling requests on " + threads + " platform threads");
+	return Executors.newFixedThreadPool(threads);
+    }
+
     // http request handler handler for the context "/"
     public static void requestHandler(HttpExchange exchange) {
+	long startTime = System.nanoTime();
 	try {
 	    // extract the query (part of URI after?) part of URI
 	    String query = exchange.getRequestURI().getQuery();	    
@@ -59,21 +266,20 @@ public class WebApp {
 							  exchange.getRequestURI().getQuery());
 	    System.out.println("Query includes args: "+keyValuePairs);
 	    
-	    // create backend and frontend objects to respond to this request
-	    FrontendInterface frontend = createWorkingFrontend("./campus.dot");
-	    // compute answer to user's requested problem based on query args:
-	    String response = generateResponseHTML(keyValuePairs,frontend);
-	    // generate HTML prompts for user for make next requests
-	    String prompts = generatePromptHTML(frontend);
-	    // compose response and prompts into a complete html template
-	    String html = composeHTML(response,prompts);
-		
-	    // complete exchange response to send this html back to requester
-	    byte[] bytes = html.getBytes();
-	    exchange.sendResponseHeaders(200,bytes.length);
-	    OutputStream out = exchange.getResponseBody();
-	    out.write(bytes);
-	    out.close();
+	    // answer this whole request with the same graph, even if a reload
+	    // swaps in a new one part way through
+	    Site site = currentSite;
+	    // send back the cached page for this question, or compute answer to
+	    // user's requested problem based on query args, and compose it with
+	    // the cached prompts into a complete html page
+	    sendCacheable(exchange, site, normalizePageQuery(keyValuePairs),
+			  "text/html; charset=utf-8", buffer -> {
+			      String response = generateResponseHTML(keyValuePairs,site.frontend);
+			      composeHTML(buffer, response, site.prompts);
+			      return 200;
+			  });
+	    if(METRICS_ENABLED)
+		latencyOf(keyValuePairs).record(System.nanoTime() - startTime);
 	    
 	    // unless something goes wrong, in which case report problem
 	} catch (Exception e) {
@@ -85,6 +291,381 @@ public class WebApp {
 	}
     }
 
+    // http request handler for the context "/api/path", which answers a
+    // query like ?start=A&end=B with the shortest path between them as json:
+    // {"start":"A","end":"B","locations":["A",...,"B"],"times":[...],"cost":...}
+    public static void pathApiHandler(HttpExchange exchange) {
+	apiRequest(exchange, pathApiLatency, WebApp::generatePathJSON);
+    }
+
+    // http request handler for the context "/api/furthest", which answers a
+    // query like ?from=A with the destination that takes longest to reach:
+    // {"from":"A","destination":"B","locations":["A",...,"B"],"times":[...],"cost":...}
+    public static void furthestApiHandler(HttpExchange exchange) {
+	apiRequest(exchange, furthestApiLatency, WebApp::generateFurthestJSON);
+    }
+
+    // answers a json api request, with an object like {"error":"..."} and a
+    // 4xx status when its query does not ask a question that can be answered
+    private static void apiRequest(HttpExchange exchange, LatencyHistogram latency,
+				   JsonAnswer answer) {
+	long startTime = System.nanoTime();
+	try {
+	    Map<String,String> keyValuePairs;
+	    try {
+		keyValuePairs = parseQuery(exchange.getRequestURI().getQuery());
+	    } catch(IllegalArgumentException e) {
+		StringBuilder json = new StringBuilder();
+		jsonError(json, 400, e.getMessage());
+		sendUncached(exchange, 400, "application/json", json.toString());
+		return;
+	    }
+	    // answer this whole request with the same graph, even if a reload
+	    // swaps in a new one part way through
+	    Site site = currentSite;
+	    String query = normalizeQuery(exchange.getHttpContext().getPath(), keyValuePairs,
+					  "start", "end", "from");
+	    sendCacheable(exchange, site, query, "application/json", buffer -> {
+		    StringBuilder json = new StringBuilder();
+		    int status = answer.answer(keyValuePairs, site.backend, json);
+		    buffer.writeUtf8(json.toString());
+		    return status;
+		});
+	    if(METRICS_ENABLED)
+		latency.record(System.nanoTime() - startTime);
+	} catch (Exception e) {
+	    System.out.println("Exception Thrown: "+e.toString());
+	    e.printStackTrace();
+	    try { exchange.sendResponseHeaders(500,-1); }
+	    catch(IOException i){} // do nothing when this fails
+	}
+    }
+
+    // writes the shortest path between the start and end args as json
+    private static int generatePathJSON(Map<String,String> keyValuePairs,
+					BackendInterface backend, StringBuilder json) {
+	String start = keyValuePairs.get("start");
+	String end = keyValuePairs.get("end");
+	if(start == null || end == null)
+	    return jsonError(json, 400, "expected start and end locations");
+	BackendInterface.PathResult path =
+	    backend.findShortestPaths(List.of(start), List.of(end)).get(0);
+	if(path.locations.isEmpty())
+	    return jsonError(json, 404, "no path from " + start + " to " + end);
+	json.append("{\"start\":");
+	appendJSONString(json, start);
+	json.append(",\"end\":");
+	appendJSONString(json, end);
+	appendJSONPath(json, path);
+	json.append('}');
+	return 200;
+    }
+
+    // writes the furthest destination from the from arg, and the path to it,
+    // as json
+    private static int generateFurthestJSON(Map<String,String> keyValuePairs,
+					    BackendInterface backend, StringBuilder json) {
+	String from = keyValuePairs.get("from");
+	if(from == null)
+	    return jsonError(json, 400, "expected a from location");
+	String destination;
+	try {
+	    destination = backend.getFurthestDestinationFrom(from);
+	} catch(NoSuchElementException e) {
+	    return jsonError(json, 404, "no destination from " + from);
+	}
+	BackendInterface.PathResult path =
+	    backend.findShortestPaths(List.of(from), List.of(destination)).get(0);
+	json.append("{\"from\":");
+	appendJSONString(json, from);
+	json.append(",\"destination\":");
+	appendJSONString(json, destination);
+	appendJSONPath(json, path);
+	json.append('}');
+	return 200;
+    }
+
+    // appends the locations, times and total cost of a path as json members
+    private static void appendJSONPath(StringBuilder json, BackendInterface.PathResult path) {
+	json.append(",\"locations\":[");
+	for(int i = 0; i < path.locations.size(); i++) {
+	    if(i > 0) json.append(',');
+	    appendJSONString(json, path.locations.get(i));
+	}
+	json.append("],\"times\":[");
+	double cost = 0;
+	for(int i = 0; i < path.times.size(); i++) {
+	    if(i > 0) json.append(',');
+	    json.append(path.times.get(i));
+	    cost += path.times.get(i);
+	}
+	json.append("],\"cost\":").append(cost);
+    }
+
+    // writes an error object as json, and returns its status
+    private static int jsonError(StringBuilder json, int status, String message) {
+	json.append("{\"error\":");
+	appendJSONString(json, message);
+	json.append('}');
+	return status;
+    }
+
+    // appends a string as a quoted json string, escaping as needed
+    private static void appendJSONString(StringBuilder json, String text) {
+	json.append('"');
+	for(int i = 0; i < text.length(); i++) {
+	    char c = text.charAt(i);
+	    if(c == '"' || c == '\\')
+		json.append('\\').append(c);
+	    else if(c < 0x20)
+		json.append(String.format("\\u%04x", (int) c));
+	    else
+		json.append(c);
+	}
+	json.append('"');
+    }
+
+    // sends the response to a query that only depends on the site's graph:
+    // from the site's response cache when it is there, and otherwise as
+    // written by body.  Successful responses carry an ETag made from the
+    // site's version and the normalized query, and may be cached by browsers
+    // and proxies, so that one that already holds a response gets a 304 Not
+    // Modified without its body.  Bodies are compressed with gzip when the
+    // client accepts that.
+    private static void sendCacheable(HttpExchange exchange, Site site, String query,
+				      String contentType, ResponseBody body) throws IOException {
+	ResponseCache.Response response = site.responses.get(query);
+	if(response == null) {
+	    ResponseBuffer buffer = borrowBuffer();
+	    try {
+		int status = body.write(buffer);
+		if(status != 200) {
+		    // errors are neither cached nor tagged
+		    buffer.send(exchange, status, contentType);
+		    return;
+		}
+		response = new ResponseCache.Response(etag(site.version, query), contentType,
+						      buffer.toByteArray());
+	    } finally {
+		returnBuffer(buffer);
+	    }
+	    site.responses.put(query, response);
+	}
+
+	Headers requestHeaders = exchange.getRequestHeaders();
+	boolean gzip = GZIP_ENABLED && response.body.length >= GZIP_MIN_BYTES &&
+	    acceptsGzip(requestHeaders.getFirst("Accept-Encoding"));
+	Headers headers = exchange.getResponseHeaders();
+	headers.set("ETag", gzip ? response.getGzippedEtag() : response.etag);
+	headers.set("Last-Modified", site.lastModified);
+	headers.set("Cache-Control", "public, max-age=" + CACHE_MAX_AGE);
+	headers.set("Vary", "Accept-Encoding");
+	if(isNotModified(requestHeaders, response, site.loaded)) {
+	    notModifiedResponses.incrementAndGet();
+	    exchange.sendResponseHeaders(304,-1);
+	    exchange.close();
+	    return;
+	}
+	byte[] bytes = gzip ? response.getGzipped() : response.body;
+	headers.set("Content-Type", response.contentType);
+	if(gzip) headers.set("Content-Encoding", "gzip");
+	exchange.sendResponseHeaders(200,bytes.length);
+	OutputStream out = exchange.getResponseBody();
+	out.write(bytes);
+	out.close();
+    }
+
+    // sends a response that is not cached
+    private static void sendUncached(HttpExchange exchange, int status, String contentType,
+				     String body) throws IOException {
+	ResponseBuffer buffer = borrowBuffer();
+	try {
+	    buffer.writeUtf8(body);
+	    buffer.send(exchange, status, contentType);
+	} finally {
+	    returnBuffer(buffer);
+	}
+    }
+
+    // checks whether a client already holds the current response, by the
+    // entity tags in its If-None-Match header, or when it has none, by the
+    // date in its If-Modified-Since header, compared with the time the
+    // response's graph was loaded
+    static boolean isNotModified(Headers requestHeaders,
+				 ResponseCache.Response response, Instant loaded) {
+	String ifNoneMatch = requestHeaders.getFirst("If-None-Match");
+	if(ifNoneMatch != null) {
+	    // compared weakly, so either encoding of the same body matches
+	    for(String tag : ifNoneMatch.split(",")) {
+		tag = tag.trim();
+		if(tag.startsWith("W/")) tag = tag.substring(2);
+		if(tag.equals("*") || tag.equals(response.etag) ||
+		   tag.equals(response.getGzippedEtag()))
+		    return true;
+	    }
+	    return false;
+	}
+	String ifModifiedSince = requestHeaders.getFirst("If-Modified-Since");
+	if(ifModifiedSince != null) {
+	    try {
+		Instant since = ZonedDateTime.parse(ifModifiedSince,
+						    DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+		return !since.isBefore(loaded);
+	    } catch(DateTimeParseException e) {
+		// an invalid date is ignored
+	    }
+	}
+	return false;
+    }
+
+    // checks whether an Accept-Encoding header accepts gzip, which it does
+    // when it names gzip (or *) without a quality of zero
+    static boolean acceptsGzip(String acceptEncoding) {
+	if(acceptEncoding == null) return false;
+	for(String coding : acceptEncoding.split(",")) {
+	    String[] parts = coding.split(";");
+	    String name = parts[0].trim();
+	    if(!name.equalsIgnoreCase("gzip") && !name.equals("*")) continue;
+	    boolean refused = false;
+	    for(int i = 1; i < parts.length; i++) {
+		String parameter = parts[i].trim();
+		if(parameter.startsWith("q=")) {
+		    try {
+			refused = Double.parseDouble(parameter.substring(2)) == 0;
+		    } catch(NumberFormatException e) {
+			refused = true;
+		    }
+		}
+	    }
+	    if(!refused) return true;
+	}
+	return false;
+    }
+
+    // the quoted entity tag of the response to a normalized query: a
+    // site's version followed by a 64-bit FNV-1a hash of the query
+    static String etag(String version, String query) {
+	long hash = 0xcbf29ce484222325L;
+	for(byte b : query.getBytes(StandardCharsets.UTF_8)) {
+	    hash ^= b & 0xff;
+	    hash *= 0x100000001b3L;
+	}
+	return "\"" + version + "-" + Long.toHexString(hash) + "\"";
+    }
+
+    // the normalized query of a page: only the args that its answer depends
+    // on, as generateResponseHTML chooses them
+    private static String normalizePageQuery(Map<String,String> keyValuePairs) {
+	if(keyValuePairs.containsKey("start") && keyValuePairs.containsKey("end"))
+	    return normalizeQuery("/", keyValuePairs, "start", "end");
+	return normalizeQuery("/", keyValuePairs, "from");
+    }
+
+    // the path followed by those of the keys that a query has, in the order
+    // given, with their values encoded, so that queries that ask the same
+    // question (whatever the order of their args, and whatever other args
+    // they have) are the same string
+    private static String normalizeQuery(String path, Map<String,String> keyValuePairs,
+					 String... keys) {
+	StringBuilder query = new StringBuilder(path);
+	char separator = '?';
+	for(String key : keys) {
+	    String value = keyValuePairs.get(key);
+	    if(value == null) continue;
+	    query.append(separator).append(key).append('=')
+		.append(URLEncoder.encode(value, StandardCharsets.UTF_8));
+	    separator = '&';
+	}
+	return query.toString();
+    }
+
+    // takes a response buffer that is not in use, or a new one
+    private static ResponseBuffer borrowBuffer() {
+	ResponseBuffer buffer = idleBuffers.poll();
+	return buffer != null ? buffer : new ResponseBuffer();
+    }
+
+    // empties a response buffer and keeps it for another request, unless
+    // some very large response has grown it
+    private static void returnBuffer(ResponseBuffer buffer) {
+	if(buffer.size() > MAX_KEPT_BUFFER_SIZE) return;
+	buffer.reset();
+	idleBuffers.offer(buffer);
+    }
+
+    // the histogram for the kind of request that these query args make
+    private static LatencyHistogram latencyOf(Map<String,String> keyValuePairs) {
+	if(keyValuePairs.containsKey("start") && keyValuePairs.containsKey("end"))
+	    return shortestPathLatency;
+	else if(keyValuePairs.containsKey("from"))
+	    return furthestDestinationLatency;
+	return pageLatency;
+    }
+
+    // http request handler for the context "/metrics", which reports all
+    // metrics in the Prometheus text exposition format
+    public static void metricsHandler(HttpExchange exchange) {
+	try {
+	    StringBuilder text = new StringBuilder();
+	    searchMetrics.writePrometheus(text);
+	    String name = "webapp_request_duration_seconds";
+	    text.append("# HELP " + name + " Time to answer requests, by kind of question.\n");
+	    text.append("# TYPE " + name + " summary\n");
+	    shortestPathLatency.writePrometheus(text, name, "endpoint=\"shortest_path\"");
+	    furthestDestinationLatency.writePrometheus(text, name,
+						       "endpoint=\"furthest_destination\"");
+	    pageLatency.writePrometheus(text, name, "endpoint=\"page\"");
+	    pathApiLatency.writePrometheus(text, name, "endpoint=\"api_path\"");
+	    furthestApiLatency.writePrometheus(text, name, "endpoint=\"api_furthest\"");
+	    Site site = currentSite;
+	    metric(text, "webapp_response_cache_hits_total", "counter",
+		   "Responses sent from the cache of the current graph.",
+		   site.responses.getHits());
+	    metric(text, "webapp_response_cache_misses_total", "counter",
+		   "Responses generated for the current graph.", site.responses.getMisses());
+	    metric(text, "webapp_response_cache_size", "gauge",
+		   "Responses cached for the current graph.", site.responses.getSize());
+	    metric(text, "webapp_not_modified_total", "counter",
+		   "Requests answered with 304 Not Modified.", notModifiedResponses.get());
+	    metric(text, "webapp_graph_loads_total", "counter",
+		   "Graphs loaded, at startup and on reloads.", graphLoads.get());
+	    metric(text, "webapp_graph_load_seconds", "gauge",
+		   "Time taken by the last graph load.", graphLoadNanos / 1e9);
+	    metric(text, "webapp_graph_nodes", "gauge",
+		   "Locations in the graph that requests are answered with.", graphNodes);
+	    metric(text, "webapp_graph_edges", "gauge",
+		   "Paths in the graph that requests are answered with.", graphEdges);
+
+	    byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+	    exchange.getResponseHeaders().set("Content-Type",
+					      "text/plain; version=0.0.4; charset=utf-8");
+	    exchange.sendResponseHeaders(200,bytes.length);
+	    OutputStream out = exchange.getResponseBody();
+	    out.write(bytes);
+	    out.close();
+	} catch (Exception e) {
+	    System.out.println("Exception Thrown: "+e.toString());
+	    try { exchange.sendResponseHeaders(500,-1); }
+	    catch(IOException i){} // do nothing when this fails
+	}
+    }
+
+    // appends a metric with a single sample in the Prometheus text format
+    private static void metric(StringBuilder text, String name, String type,
+			       String help, Number value) {
+	text.append("# HELP " + name + " " + help + "\n");
+	text.append("# TYPE " + name + " " + type + "\n");
+	text.append(name + " " + value + "\n");
+    }
+
+    // records the time taken to load a graph, and its size
+    private static void recordGraphLoad(long nanos, GraphADT<String,Double> graph) {
+	graphLoads.incrementAndGet();
+	graphLoadNanos = nanos;
+	graphNodes = graph.getNodeCount();
+	graphEdges = graph.getEdgeCount();
+    }
+
     // reads key value pairs from the query string of a URI into a map
     private static Map<String,String> parseQuery(String query) {
 	HashMap<String,String> map = new HashMap<>();
@@ -100,33 +681,106 @@ public class WebApp {
 	return map;
     }
 
-    // creates a working Frontend, Backend, DijkstraGraph, and HashtableMap
-    private static FrontendInterface createWorkingFrontend(String filename) throws IOException {
-	GraphADT<String,Double> graph = new DijkstraGraph<>();
+    // creates a working Frontend, Backend and DijkstraGraph.  A server
+    // answers many queries from one graph, so it also precomputes landmarks
+    // and furthest destinations and caches paths, while a single query (from
+    // the cgi script) only loads the plain graph, since that one query would
+    // cost far less than any of these precomputations
+    private static Site createWorkingSite(String filename, boolean serving)
+	throws IOException {
+	DijkstraGraph<String,Double> graph = new DijkstraGraph<>();
 	BackendInterface backend = new Backend(graph);
+	long startTime = System.nanoTime();
 	backend.loadGraphData(filename);			
-	FrontendInterface frontend = new Frontend(backend);
-	return frontend;
+	recordGraphLoad(System.nanoTime() - startTime, graph);
+	if(METRICS_ENABLED) graph.setMetrics(searchMetrics);
+	if(!serving) return new Site(backend, new Frontend(backend), graph);
+	// point-to-point queries settle fewer nodes when guided by landmarks
+	graph.prepareLandmarks(8, LandmarkHeuristic.Selection.AVOID);
+	graph.setSearchMode(DijkstraGraph.SearchMode.A_STAR);
+	// furthest destinations are looked up rather than searched for
+	if(graph.getNodeCount() <= ECCENTRICITY_MAX_NODES) {
+	    EccentricityTable table = graph.prepareEccentricities();
+	    System.out.println("Found the furthest destination from each location in " +
+			       table.getComputeMillis() + " ms");
+	}
+	// the graph is kept between requests, so repeated questions are cached
+	graph.setCache(new ShortestPathCache<>(1024, ShortestPathCache.Eviction.LRU, 16, 4));
+	return new Site(backend, new Frontend(backend), graph);
+    }
+
+    // creates a Frontend whose Backend answers queries from a snapshot file
+    private static Site createSnapshotSite(String filename) throws IOException {
+	Backend backend = new Backend(new DijkstraGraph<>());
+	long startTime = System.nanoTime();
+	backend.loadGraphSnapshot(filename);
+	recordGraphLoad(System.nanoTime() - startTime, backend.getGraph());
+	return new Site(backend, new Frontend(backend), backend.getGraph());
+    }
+
+    // starts a background thread that reloads the graph whenever its file is
+    // created or modified, without holding up any requests
+    private static void watchGraphFile(String filename) throws IOException {
+	Path path = Paths.get(filename).toAbsolutePath().normalize();
+	WatchService watcher = path.getFileSystem().newWatchService();
+	path.getParent().register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+				  StandardWatchEventKinds.ENTRY_MODIFY);
+	Thread thread = new Thread(() -> {
+		try {
+		    while(true) {
+			WatchKey key = watcher.take();
+			boolean changed = isGraphFileEvent(key, path);
+			// wait for the file to settle, collecting any further events
+			Thread.sleep(RELOAD_DELAY_MILLIS);
+			for(key = watcher.poll(); key != null; key = watcher.poll())
+			    changed |= isGraphFileEvent(key, path);
+			if(changed) reloadGraph(filename);
+		    }
+		} catch(InterruptedException e) {
+		    // stop watching when interrupted
+		}
+	}, "graph-file-watcher");
+	thread.setDaemon(true);
+	thread.start();
+    }
+
+    // checks whether the events for a watch key include changes to path
+    private static boolean isGraphFileEvent(WatchKey key, Path path) {
+	boolean changed = false;
+	for(WatchEvent<?> event : key.pollEvents())
+	    if(path.getFileName().equals(event.context())) changed = true;
+	key.reset();
+	return changed;
+    }
+
+    // builds a new graph from filename off the request path, then swaps it in
+    private static void reloadGraph(String filename) {
+	try {
+	    long startTime = System.nanoTime();
+	    currentSite = createWorkingSite(filename, true);
+	    System.out.println("Reloaded " + filename + " in " +
+			       (System.nanoTime() - startTime) / 1000000 + " ms");
+	} catch (Exception e) {
+	    // a file that cannot be loaded leaves the previous graph in place
+	    System.out.println("Unable to reload " + filename + ": " + e.toString());
+	}
     }
 
     // creates the html response for the kind of question requeted (if any)
     private static String generateResponseHTML(Map<String,String> keyValuePairs, FrontendInterface frontend) {
 	// compute response for shortest path request
-	String response = "<div id=\"response\">";
 	if(keyValuePairs.containsKey("start") &&
 	   keyValuePairs.containsKey("end")) {
-	    response += frontend.generateShortestPathResponseHTML(
+	    return "<div id=\"response\">" + frontend.generateShortestPathResponseHTML(
 								  keyValuePairs.get("start"),
 								  keyValuePairs.get("end")) + "</div>";
 	    // compute response for other request
 	} else if(keyValuePairs.containsKey("from")) {
-	    response += frontend.generateFurthestDestinationFromResponseHTML(
+	    return "<div id=\"response\">" + frontend.generateFurthestDestinationFromResponseHTML(
 									     keyValuePairs.get("from")) + "</div>";
 	    // otherwise, leave response div blank 
 	} else
-	    response += "</div>";
-
-	return response;
+	    return "<div id=\"response\"></div>";
     }
 
     // generate separate div sections with a prompt for each kind of request
@@ -138,18 +792,11 @@ public class WebApp {
 	return firstPrompt + secondPrompt;
     }
 
-    // compose reponse with prompts inside a complete html tree
-    private static String composeHTML(String response, String prompts) throws IOException {
-	// read contents of template file into html string
-	String html = "";
-	Scanner in = new Scanner(new File("template.html"));
-	while(in.hasNextLine()) html += in.nextLine() + "\n";
-
-	// replace placeholders for response and prompts
-	html = html.replaceFirst("<!-- RESPONSE GOES HERE -->",response);
-	html = html.replaceFirst("<!-- PROMPTS GO HERE -->",prompts);
-	
-	return html;
+    // compose reponse with prompts inside a complete html tree, by filling
+    // the placeholders of the template that was split when the server started
+    private static void composeHTML(ResponseBuffer buffer, String response, byte[] prompts)
+	throws IOException {
+	template.write(buffer, response.getBytes(StandardCharsets.UTF_8), prompts);
     }
 
     // Since we cannot run a public webserver on the department's linux
@@ -161,15 +808,16 @@ public class WebApp {
 	    Map<String,String> keyValuePairs = parseQuery(query);
 	    
 	    // create backend and frontend objects to respond to this request
-	    FrontendInterface frontend = createWorkingFrontend("./campus.dot");
+	    template = HtmlTemplate.load(TEMPLATE_FILE, RESPONSE_PLACEHOLDER, PROMPTS_PLACEHOLDER);
+	    Site site = createWorkingSite(GRAPH_FILE, false);
 	    // compute answer to user's requested problem based on query args:
-	    String response = generateResponseHTML(keyValuePairs,frontend);
-	    // generate HTML prompts for user for make next requests
-	    String prompts = generatePromptHTML(frontend);
+	    String response = generateResponseHTML(keyValuePairs,site.frontend);
 	    // compose response and prompts into a complete html template
-	    String html = composeHTML(response,prompts);
+	    ResponseBuffer buffer = new ResponseBuffer();
+	    composeHTML(buffer, response, site.prompts);
 		
-	    System.out.println(html);
+	    buffer.writeTo(System.out);
+	    System.out.println();
 						
 	    // unless something goes wrong, in which case report problem
 	} catch (Exception e) {
@@ -0,0 +1,107 @@
+import com.sun.net.httpserver.Headers;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class WebAppTests {
+
+  private static final Instant LOADED = Instant.parse("2024-03-01T12:00:00Z");
+
+  /**
+   * tests that If-None-Match matches the entity tag of either encoding of a response, weak tags,
+   * the wildcard and any tag of a list, but not other tags
+   */
+  @Test
+  public void test1() {
+    ResponseCache.Response response = response();
+    Assertions.assertTrue(notModified("If-None-Match", "\"v1-abc\"", response));
+    Assertions.assertTrue(notModified("If-None-Match", "\"v1-abc-gzip\"", response));
+    Assertions.assertTrue(notModified("If-None-Match", "W/\"v1-abc\"", response));
+    Assertions.assertTrue(notModified("If-None-Match", "*", response));
+    Assertions.assertTrue(notModified("If-None-Match", "\"old\", W/\"v1-abc-gzip\" ,\"x\"",
+        response));
+    Assertions.assertFalse(notModified("If-None-Match", "\"old\", \"v1-ab\"", response));
+    Assertions.assertFalse(notModified("If-None-Match", "v1-abc", response));
+    Assertions.assertFalse(notModified("If-None-Match", "", response));
+    // a header that does not match is not overruled by If-Modified-Since
+    Headers headers = new Headers();
+    headers.set("If-None-Match", "\"old\"");
+    headers.set("If-Modified-Since", httpDate(LOADED.plusSeconds(60)));
+    Assertions.assertFalse(WebApp.isNotModified(headers, response, LOADED));
+    Assertions.assertFalse(WebApp.isNotModified(new Headers(), response, LOADED));
+  }
+
+  /**
+   * tests that If-Modified-Since matches dates no earlier than when the graph was loaded, and that
+   * invalid dates are ignored
+   */
+  @Test
+  public void test2() {
+    ResponseCache.Response response = response();
+    Assertions.assertTrue(notModified("If-Modified-Since", httpDate(LOADED), response));
+    Assertions.assertTrue(notModified("If-Modified-Since", httpDate(LOADED.plusSeconds(1)),
+        response));
+    Assertions.assertFalse(notModified("If-Modified-Since", httpDate(LOADED.minusSeconds(1)),
+        response));
+    Assertions.assertFalse(notModified("If-Modified-Since", "yesterday", response));
+  }
+
+  /**
+   * tests that gzip is accepted when it or * is named without a quality of zero
+   */
+  @Test
+  public void test3() {
+    Assertions.assertTrue(WebApp.acceptsGzip("gzip"));
+    Assertions.assertTrue(WebApp.acceptsGzip("deflate, GZIP;q=0.5"));
+    Assertions.assertTrue(WebApp.acceptsGzip("br;q=1.0, *"));
+    Assertions.assertTrue(WebApp.acceptsGzip("gzip;q=0, *;q=0.1"));
+    Assertions.assertFalse(WebApp.acceptsGzip(null));
+    Assertions.assertFalse(WebApp.acceptsGzip(""));
+    Assertions.assertFalse(WebApp.acceptsGzip("deflate, br"));
+    Assertions.assertFalse(WebApp.acceptsGzip("gzip;q=0"));
+    Assertions.assertFalse(WebApp.acceptsGzip("gzip; q=0.000"));
+    Assertions.assertFalse(WebApp.acceptsGzip("gzip;q=none"));
+    Assertions.assertFalse(WebApp.acceptsGzip("x-gzip"));
+  }
+
+  /**
+   * tests that entity tags are quoted, start with the version they were made for, and differ
+   * between queries and between versions
+   */
+  @Test
+  public void test4() {
+    String tag = WebApp.etag("v1", "/?start=A&end=B");
+    Assertions.assertTrue(tag.startsWith("\"v1-") && tag.endsWith("\""), tag);
+    Assertions.assertEquals(tag, WebApp.etag("v1", "/?start=A&end=B"));
+    Assertions.assertNotEquals(tag, WebApp.etag("v1", "/?start=B&end=A"));
+    Assertions.assertNotEquals(tag, WebApp.etag("v2", "/?start=A&end=B"));
+    // the FNV-1a hash of the empty string is its offset basis
+    Assertions.assertEquals("\"v1-cbf29ce484222325\"", WebApp.etag("v1", ""));
+    Assertions.assertEquals("\"v1-cbf29ce484222325-gzip\"", new ResponseCache.Response(
+        WebApp.etag("v1", ""), "text/html", new byte[0]).getGzippedEtag());
+  }
+
+  // checks whether a request with one conditional header gets a 304 for response
+  private static boolean notModified(String header, String value,
+      ResponseCache.Response response) {
+    Headers headers = new Headers();
+    headers.set(header, value);
+    return WebApp.isNotModified(headers, response, LOADED);
+  }
+
+  // a response tagged for version v1 of a site
+  private static ResponseCache.Response response() {
+    return new ResponseCache.Response("\"v1-abc\"", "text/html; charset=utf-8",
+        "<p>path</p>".getBytes(StandardCharsets.UTF_8));
+  }
+
+  // formats an instant as an http date
+  private static String httpDate(Instant instant) {
+    return DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.ofInstant(instant,
+        ZoneOffset.UTC));
+  }
+}